@@ -0,0 +1,56 @@
+package legend.game.unpacker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BPE decompression throughput of {@link Unpacker#decompress} against the old {@code LinkedList} implementation, kept in the
+ * test fixtures as {@link BpeFixtures#legacy}. Run with {@code -prof gc} to see bytes allocated per operation
+ * ({@code gc.alloc.rate.norm}); MB/s is {@code ops/s * decompressedSize}. Correctness is checked by {@code BpeDecompressTest}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BpeDecompressBenchmark {
+  @Param({"65536", "1048576"})
+  public int decompressedSize;
+
+  private FileData compressed;
+  private byte[] dest;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.compressed = new FileData(BpeFixtures.compress(BpeFixtures.generate(this.decompressedSize)));
+    this.dest = new byte[this.decompressedSize];
+  }
+
+  @Benchmark
+  public byte[] arrayStack() {
+    return Unpacker.decompress(this.compressed);
+  }
+
+  @Benchmark
+  public int arrayStackIntoBuffer() {
+    return Unpacker.decompress(this.compressed, this.dest);
+  }
+
+  @Benchmark
+  public byte[] legacyLinkedList() {
+    return BpeFixtures.legacy(this.compressed);
+  }
+}
@@ -0,0 +1,115 @@
+package legend.game.unpacker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sector read throughput of {@link IsoReader} against a synthetic mode 2 form 1 image. {@link #legacySeekRead} is the old
+ * seek-and-read-one-sector-under-a-lock path kept here as a baseline. Throughput in MB/s is {@code ops/s * fileSectors * 2048}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IsoReaderBenchmark {
+  private static final int IMAGE_SECTORS = 64 * 1024; // ~147 MB
+
+  @Param({"16", "512"})
+  public int fileSectors;
+
+  private Path image;
+  private IsoReader reader;
+  private RandomAccessFile legacyFile;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    this.image = Files.createTempFile("lod-iso-benchmark", ".bin");
+
+    final byte[] sector = new byte[IsoReader.SECTOR_SIZE];
+
+    try(final OutputStream out = Files.newOutputStream(this.image)) {
+      for(int i = 0; i < IMAGE_SECTORS; i++) {
+        ThreadLocalRandom.current().nextBytes(sector);
+        System.arraycopy(new byte[] {0, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0}, 0, sector, 0, IsoReader.SYNC_PATTER_SIZE);
+        sector[15] = 2; // Mode 2
+        sector[18] = 0x08; // Submode: data, form 1
+        out.write(sector);
+      }
+    }
+
+    this.reader = new IsoReader(this.image);
+    this.legacyFile = new RandomAccessFile(this.image.toFile(), "r");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    this.legacyFile.close();
+    this.reader = null;
+    System.gc();
+    Files.deleteIfExists(this.image);
+  }
+
+  private int randomStart() {
+    return ThreadLocalRandom.current().nextInt(IMAGE_SECTORS - this.fileSectors);
+  }
+
+  @Benchmark
+  public byte[] mapped() {
+    return this.reader.readSectors(this.randomStart(), this.fileSectors * 0x800, false);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public byte[] mappedConcurrent() {
+    return this.reader.readSectors(this.randomStart(), this.fileSectors * 0x800, false);
+  }
+
+  @Benchmark
+  public byte[] legacySeekRead() throws IOException {
+    return this.legacyRead(this.randomStart());
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public byte[] legacySeekReadConcurrent() throws IOException {
+    return this.legacyRead(this.randomStart());
+  }
+
+  private byte[] legacyRead(final int start) throws IOException {
+    final int length = this.fileSectors * 0x800;
+    final byte[] sectorData = new byte[IsoReader.SECTOR_SIZE];
+    final byte[] data = new byte[length];
+
+    synchronized(this.legacyFile) {
+      for(int i = 0; i < this.fileSectors; i++) {
+        this.legacyFile.seek((long)(start + i) * IsoReader.SECTOR_SIZE);
+        this.legacyFile.read(sectorData);
+        System.arraycopy(sectorData, 24, data, i * 0x800, 0x800);
+      }
+    }
+
+    return data;
+  }
+}
@@ -0,0 +1,217 @@
+package legend.core;
+
+import legend.core.opengl.GpuTimer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times the stages of each frame, on the CPU with {@link System#nanoTime} and on the GPU with {@link GpuTimer}s. Every section
+ * keeps a rolling window of samples that the overlay's percentiles are calculated from, and that can be dumped to CSV.
+ * Nothing is measured while the profiler is disabled.
+ */
+public class FrameProfiler {
+  private static final Logger LOGGER = LogManager.getFormatterLogger(FrameProfiler.class);
+  private static final DateTimeFormatter FILENAME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+
+  /** Number of samples that each section keeps */
+  private static final int WINDOW = 300;
+
+  private final List<Section> sections = new ArrayList<>();
+  private final List<GpuSection> gpuSections = new ArrayList<>();
+  private final float[] sorted = new float[WINDOW];
+
+  private boolean enabled;
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  public void toggle() {
+    this.enabled = !this.enabled;
+
+    for(final Section section : this.sections) {
+      section.clear();
+    }
+
+    LOGGER.info("Frame profiler %s", this.enabled ? "enabled" : "disabled");
+  }
+
+  public CpuSection cpu(final String name) {
+    final CpuSection section = new CpuSection(name);
+    this.sections.add(section);
+    return section;
+  }
+
+  /** Must be called with a GL context */
+  public GpuSection gpu(final String name) {
+    final GpuSection section = new GpuSection(name);
+    this.sections.add(section);
+    this.gpuSections.add(section);
+    return section;
+  }
+
+  /** Collects the GPU timings that have become available since the last frame */
+  public void endFrame() {
+    for(final GpuSection section : this.gpuSections) {
+      section.timer.poll(section::add);
+    }
+  }
+
+  /** One line per section with its percentiles in milliseconds */
+  public List<String> summarise() {
+    final List<String> lines = new ArrayList<>();
+    lines.add("%-20s %7s %7s %7s %7s".formatted("Section", "p50", "p95", "p99", "max"));
+
+    for(final Section section : this.sections) {
+      final int count = this.sort(section);
+
+      if(count == 0) {
+        lines.add("%-20s %7s".formatted(section.label(), "-"));
+        continue;
+      }
+
+      lines.add("%-20s %7.2f %7.2f %7.2f %7.2f".formatted(section.label(), this.percentile(count, 0.50f), this.percentile(count, 0.95f), this.percentile(count, 0.99f), this.sorted[count - 1]));
+    }
+
+    return lines;
+  }
+
+  /** Writes each section's percentiles to a new CSV file in the profiles directory */
+  public void dump() {
+    final Path file = Path.of("profiles", "frame-" + LocalDateTime.now().format(FILENAME_FORMAT) + ".csv");
+    final List<String> lines = new ArrayList<>();
+    lines.add("section,source,samples,mean_ms,p50_ms,p95_ms,p99_ms,max_ms");
+
+    for(final Section section : this.sections) {
+      final int count = this.sort(section);
+
+      if(count == 0) {
+        lines.add("%s,%s,0,,,,,".formatted(section.name, section.source()));
+        continue;
+      }
+
+      float total = 0.0f;
+      for(int i = 0; i < count; i++) {
+        total += this.sorted[i];
+      }
+
+      lines.add("%s,%s,%d,%.4f,%.4f,%.4f,%.4f,%.4f".formatted(section.name, section.source(), count, total / count, this.percentile(count, 0.50f), this.percentile(count, 0.95f), this.percentile(count, 0.99f), this.sorted[count - 1]));
+    }
+
+    try {
+      Files.createDirectories(file.getParent());
+      Files.write(file, lines);
+      LOGGER.info("Wrote frame profile to %s", file);
+    } catch(final IOException e) {
+      LOGGER.error("Failed to write frame profile", e);
+    }
+  }
+
+  public void delete() {
+    for(final GpuSection section : this.gpuSections) {
+      section.timer.delete();
+    }
+  }
+
+  /** Copies the section's samples into {@link #sorted} in ascending order */
+  private int sort(final Section section) {
+    System.arraycopy(section.samples, 0, this.sorted, 0, section.count);
+    Arrays.sort(this.sorted, 0, section.count);
+    return section.count;
+  }
+
+  /** Nearest-rank percentile of the first {@code count} values of {@link #sorted} */
+  private float percentile(final int count, final float percentile) {
+    final int rank = (int)Math.ceil(percentile * count);
+    return this.sorted[Math.max(0, rank - 1)];
+  }
+
+  public abstract class Section {
+    private final String name;
+    /** Milliseconds */
+    private final float[] samples = new float[WINDOW];
+    private int next;
+    private int count;
+
+    private Section(final String name) {
+      this.name = name;
+    }
+
+    protected abstract String source();
+
+    private String label() {
+      return this.source() + ' ' + this.name;
+    }
+
+    protected void add(final long nanos) {
+      this.samples[this.next] = nanos / 1_000_000.0f;
+      this.next = (this.next + 1) % WINDOW;
+      this.count = Math.min(this.count + 1, WINDOW);
+    }
+
+    private void clear() {
+      this.next = 0;
+      this.count = 0;
+    }
+  }
+
+  public final class CpuSection extends Section {
+    private long start;
+
+    private CpuSection(final String name) {
+      super(name);
+    }
+
+    @Override
+    protected String source() {
+      return "CPU";
+    }
+
+    public void begin() {
+      if(FrameProfiler.this.enabled) {
+        this.start = System.nanoTime();
+      }
+    }
+
+    public void end() {
+      if(FrameProfiler.this.enabled && this.start != 0) {
+        this.add(System.nanoTime() - this.start);
+      }
+
+      this.start = 0;
+    }
+  }
+
+  public final class GpuSection extends Section {
+    private final GpuTimer timer = new GpuTimer();
+
+    private GpuSection(final String name) {
+      super(name);
+    }
+
+    @Override
+    protected String source() {
+      return "GPU";
+    }
+
+    public void begin() {
+      if(FrameProfiler.this.enabled) {
+        this.timer.begin();
+      }
+    }
+
+    /** Always ends the query so that disabling the profiler mid-frame can't leave one running */
+    public void end() {
+      this.timer.end();
+    }
+  }
+}
@@ -214,7 +214,7 @@ public final class GameEngine {
             return;
           }
 
-          new ScriptPatcher(Path.of("./patches"), Path.of("./files"), Path.of("./files/patches")).apply();
+          new ScriptPatcher(Path.of("./patches"), Path.of("./files"), Path.of("./files/patches"), Path.of("./cache/scripts")).apply();
 
           loadXpTables();
 
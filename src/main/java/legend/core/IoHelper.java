@@ -107,8 +107,12 @@ public final class IoHelper {
   }
 
   public static int crc32(final Path file) throws IOException {
+    return crc32(Files.readAllBytes(file));
+  }
+
+  public static int crc32(final byte[] data) {
     final CRC32 crc32 = new CRC32();
-    crc32.update(Files.readAllBytes(file));
+    crc32.update(data);
     return (int)crc32.getValue();
   }
 
@@ -6,28 +6,35 @@ import legend.core.opengl.BasicCamera;
 import legend.core.opengl.Camera;
 import legend.core.opengl.FontShaderOptions;
 import legend.core.opengl.FrameBuffer;
+import legend.core.opengl.GlState;
+import legend.core.opengl.LegacyTextBatcher;
 import legend.core.opengl.LegacyTextBuilder;
 import legend.core.opengl.LineBuilder;
 import legend.core.opengl.Mesh;
 import legend.core.opengl.Obj;
+import legend.core.opengl.ObjRegistry;
 import legend.core.opengl.QuadBuilder;
 import legend.core.opengl.QuaternionCamera;
 import legend.core.opengl.Shader;
 import legend.core.opengl.ShaderManager;
 import legend.core.opengl.ShaderOptions;
 import legend.core.opengl.ShaderType;
+import legend.core.opengl.StreamingMesh;
 import legend.core.opengl.SimpleShaderOptions;
 import legend.core.opengl.Texture;
 import legend.core.opengl.TmdShaderOptions;
+import legend.core.opengl.UniformRingBuffer;
 import legend.core.opengl.VoidShaderOptions;
 import legend.core.opengl.Window;
 import legend.core.opengl.fonts.Font;
 import legend.core.opengl.fonts.FontManager;
+import legend.core.opengl.fonts.TextStream;
 import legend.game.combat.Battle;
 import legend.game.modding.coremod.CoreMod;
 import legend.game.types.Translucency;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.joml.FrustumIntersection;
 import org.joml.Matrix3f;
 import org.joml.Matrix4f;
 import org.joml.Vector2f;
@@ -46,6 +53,7 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import static legend.core.GameEngine.CONFIG;
@@ -59,6 +67,8 @@ import static org.lwjgl.glfw.GLFW.GLFW_KEY_D;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_ESCAPE;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_F10;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_F11;
+import static org.lwjgl.glfw.GLFW.GLFW_KEY_F7;
+import static org.lwjgl.glfw.GLFW.GLFW_KEY_F8;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_F9;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_LEFT_SHIFT;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_M;
@@ -80,19 +90,20 @@ import static org.lwjgl.opengl.GL11C.GL_LESS;
 import static org.lwjgl.opengl.GL11C.GL_LINE;
 import static org.lwjgl.opengl.GL11C.GL_LINEAR;
 import static org.lwjgl.opengl.GL11C.GL_LINE_SMOOTH;
+import static org.lwjgl.opengl.GL11C.GL_ONE_MINUS_SRC_ALPHA;
 import static org.lwjgl.opengl.GL11C.GL_RGBA;
 import static org.lwjgl.opengl.GL11C.GL_SCISSOR_TEST;
+import static org.lwjgl.opengl.GL11C.GL_SRC_ALPHA;
 import static org.lwjgl.opengl.GL11C.GL_STENCIL_BUFFER_BIT;
 import static org.lwjgl.opengl.GL11C.GL_TRIANGLES;
+import static org.lwjgl.opengl.GL11C.glBlendFunc;
 import static org.lwjgl.opengl.GL11C.glClear;
 import static org.lwjgl.opengl.GL11C.glClearColor;
-import static org.lwjgl.opengl.GL11C.glDepthFunc;
 import static org.lwjgl.opengl.GL11C.glDepthMask;
 import static org.lwjgl.opengl.GL11C.glDisable;
 import static org.lwjgl.opengl.GL11C.glEnable;
 import static org.lwjgl.opengl.GL11C.glLineWidth;
 import static org.lwjgl.opengl.GL11C.glPolygonMode;
-import static org.lwjgl.opengl.GL11C.glScissor;
 import static org.lwjgl.opengl.GL11C.glViewport;
 import static org.lwjgl.opengl.GL30C.GL_COLOR_ATTACHMENT0;
 import static org.lwjgl.opengl.GL30C.GL_DEPTH_ATTACHMENT;
@@ -102,6 +113,17 @@ import static org.lwjgl.opengl.GL30C.GL_RGBA16F;
 public class RenderEngine {
   private static final Logger LOGGER = LogManager.getFormatterLogger(RenderEngine.class);
 
+  /** Number of models whose transforms fit in the transforms2 and lighting uniform buffers at once */
+  private static final int MODELS_PER_UPLOAD = 128;
+  /** Transform, screenspace offset, recolour, CLUT/tpage overrides, UV offset */
+  private static final int MODEL_STRIDE = 4 * 4 + 4 + 4 + 4 + 4;
+  /** Light direction, colour (3*4 since glsl std140 means mat3's are basically 3 vec4s), background colour */
+  private static final int LIGHT_STRIDE = 4 * 4 + 3 * 4 + 4;
+  /** Number of models per frame that fit in the uniform ring buffers, pools past this fall back to per-batch uploads */
+  private static final int RING_MODELS = 8192;
+  /** Number of frames between refreshes of the profiler overlay's text */
+  private static final int PROFILER_REFRESH_FRAMES = 30;
+
   public static int legacyMode;
   public boolean usePs1Gpu = true;
 
@@ -119,9 +141,18 @@ public class RenderEngine {
   private final Matrix4f perspectiveProjection = new Matrix4f();
   private final Matrix4f orthographicProjection = new Matrix4f();
   private final FloatBuffer transformsBuffer = BufferUtils.createFloatBuffer(4 * 4 * 2);
-  private final FloatBuffer transforms2Buffer = BufferUtils.createFloatBuffer((4 * 4 + 4) * 128);
-  private final FloatBuffer lightBuffer = BufferUtils.createFloatBuffer((4 * 4 + 3 * 4 + 4) * 128); // 3*4 since glsl std140 means mat3's are basically 3 vec4s
+  private final FloatBuffer transforms2Buffer = BufferUtils.createFloatBuffer(MODEL_STRIDE * MODELS_PER_UPLOAD);
+  private final FloatBuffer lightBuffer = BufferUtils.createFloatBuffer(LIGHT_STRIDE * MODELS_PER_UPLOAD);
   private final FloatBuffer projectionBuffer = BufferUtils.createFloatBuffer(4);
+  /** Holds every queued model's transforms and lighting for the frame, null if persistent mapping isn't supported */
+  @Nullable
+  private UniformRingBuffer transforms2Ring;
+  @Nullable
+  private UniformRingBuffer lightRing;
+  /** Ring ranges must start on a multiple of this many models */
+  private int ringAlignment;
+  private int ringFrame;
+  private boolean ringBound;
 
   public static final ShaderType<SimpleShaderOptions> SIMPLE_SHADER = new ShaderType<>(
     options -> loadShader("simple", "simple", options),
@@ -155,16 +186,13 @@ public class RenderEngine {
       shader.bindUniformBlock("lighting", Shader.UniformBuffer.LIGHTING);
       shader.bindUniformBlock("projectionInfo", Shader.UniformBuffer.PROJECTION_INFO);
       final Shader<TmdShaderOptions>.UniformFloat modelIndex = shader.new UniformFloat("modelIndex");
-      final Shader<TmdShaderOptions>.UniformVec3 recolour = shader.new UniformVec3("recolour");
-      final Shader<TmdShaderOptions>.UniformVec2 uvOffset = shader.new UniformVec2("uvOffset");
-      final Shader<TmdShaderOptions>.UniformVec2 clutOverride = shader.new UniformVec2("clutOverride");
-      final Shader<TmdShaderOptions>.UniformVec2 tpageOverride = shader.new UniformVec2("tpageOverride");
+      final Shader<TmdShaderOptions>.UniformFloat colourScale = shader.new UniformFloat("colourScale");
       final Shader<TmdShaderOptions>.UniformFloat translucency = shader.new UniformFloat("translucency");
       final Shader<TmdShaderOptions>.UniformFloat discardTranslucency = shader.new UniformFloat("discardTranslucency");
       final Shader<TmdShaderOptions>.UniformInt tmdTranslucency = shader.new UniformInt("tmdTranslucency");
       final Shader<TmdShaderOptions>.UniformInt ctmdFlags = shader.new UniformInt("ctmdFlags");
       final Shader<TmdShaderOptions>.UniformVec3 battleColour = shader.new UniformVec3("battleColour");
-      return () -> new TmdShaderOptions(modelIndex, recolour, uvOffset, clutOverride, tpageOverride, translucency, discardTranslucency, tmdTranslucency, ctmdFlags, battleColour);
+      return () -> new TmdShaderOptions(modelIndex, colourScale, translucency, discardTranslucency, tmdTranslucency, ctmdFlags, battleColour);
     }
   );
 
@@ -178,6 +206,9 @@ public class RenderEngine {
 
   // Text
   public Obj chars;
+  public LegacyTextBatcher textBatcher;
+  // Transient geometry, see StreamingMesh
+  public StreamingMesh streamingTriangles;
   // Plain quads
   public final Map<Translucency, Obj> plainQuads = new EnumMap<>(Translucency.class);
   public Obj opaqueQuad;
@@ -220,9 +251,42 @@ public class RenderEngine {
   private final QueuePool<QueuedModel<VoidShaderOptions>> modelPool = new QueuePool<>(QueuedModel::new);
   private final QueuePool<QueuedModel<VoidShaderOptions>> orthoPool = new QueuePool<>(QueuedModel::new);
   private final QueuePool<QueuedModel> shaderPool = new QueuePool<>(QueuedModel::new);
-  private final Vector3f tempColour = new Vector3f();
   private boolean needsSorting;
 
+  /** Index of the first model in the transforms currently uploaded to the uniform buffers */
+  private int uploadStart;
+  /** Index after the last model in the transforms currently uploaded to the uniform buffers */
+  private int uploadEnd;
+
+  private int queuedDraws;
+  private int drawCalls;
+  private int lastQueuedDraws;
+  private int lastDrawCalls;
+
+  private int culledModels;
+  private int submittedModels;
+
+  // Scratch state for culling, see cullModelPool
+  private final FrustumIntersection cullFrustum = new FrustumIntersection();
+  private final Matrix4f cullTransforms = new Matrix4f();
+  private final Vector3f cullCentre = new Vector3f();
+  private final Vector3f cullScale = new Vector3f();
+  private boolean cullHighQuality;
+  private float cullPlaneDistance;
+  private float cullHalfWidth;
+  private float cullHalfHeight;
+
+  public final FrameProfiler profiler = new FrameProfiler();
+  private FrameProfiler.GpuSection opaqueProfile;
+  private FrameProfiler.GpuSection shaderPoolProfile;
+  private FrameProfiler.GpuSection orthoProfile;
+  private FrameProfiler.GpuSection translucentProfile;
+  private FrameProfiler.GpuSection postProfile;
+  private final List<TextStream> profilerText = new ArrayList<>();
+  private final Matrix4f profilerCamera = new Matrix4f();
+  private final Matrix4f profilerProjection = new Matrix4f();
+  private int profilerTextAge;
+
   private float projectionWidth;
   private float projectionHeight;
   private float projectionDepth;
@@ -276,6 +340,36 @@ public class RenderEngine {
     return this.fps;
   }
 
+  /** Number of draw calls that the model pools needed last frame before instancing merged them */
+  public int getQueuedDrawCount() {
+    return this.lastQueuedDraws;
+  }
+
+  /** Number of draw calls that the model pools actually issued last frame */
+  public int getDrawCallCount() {
+    return this.lastDrawCalls;
+  }
+
+  /** Number of 3D models that were culled last frame for being entirely outside of the projection */
+  public int getCulledModelCount() {
+    return this.culledModels;
+  }
+
+  /** Number of 3D models that were left to render last frame after culling */
+  public int getSubmittedModelCount() {
+    return this.submittedModels;
+  }
+
+  /** Number of GL state changes made while rendering the model pools last frame */
+  public int getStateChangeCount() {
+    return GlState.getStateChanges();
+  }
+
+  /** Number of redundant GL state calls that were skipped while rendering the model pools last frame */
+  public int getRedundantStateCallCount() {
+    return GlState.getRedundantCalls();
+  }
+
   public void setClearColour(final float red, final float green, final float blue) {
     glClearColor(red, green, blue, 1.0f);
   }
@@ -303,9 +397,15 @@ public class RenderEngine {
   }
 
   public void delete() {
+    if(this.transforms2Ring != null) {
+      this.transforms2Ring.delete();
+      this.lightRing.delete();
+    }
+
+    this.profiler.delete();
+    this.deleteProfilerText();
     ShaderManager.delete();
-    Obj.setShouldLog(false);
-    Obj.clearObjList(true);
+    ObjRegistry.clear();
   }
 
   public static <Options extends ShaderOptions<Options>> Shader<Options> loadShader(final String vsh, final String fsh, final Function<Shader<Options>, Supplier<Options>> options) {
@@ -335,6 +435,7 @@ public class RenderEngine {
     final Shader<VoidShaderOptions> screenShader = ShaderManager.addShader(SCREEN_SHADER);
     this.tmdShader = ShaderManager.addShader(TMD_SHADER);
     this.tmdShaderOptions = this.tmdShader.makeOptions();
+    ShaderManager.reportSetupTime();
 
     try {
       FontManager.add("default", new Font(Paths.get("gfx/fonts/consolas.ttf")));
@@ -347,6 +448,24 @@ public class RenderEngine {
     this.lightUniform = ShaderManager.addUniformBuffer("lighting", new Shader.UniformBuffer((long)this.lightBuffer.capacity() * Float.BYTES, Shader.UniformBuffer.LIGHTING));
     this.projectionUniform = ShaderManager.addUniformBuffer("projectionInfo", new Shader.UniformBuffer((long)this.projectionBuffer.capacity() * Float.BYTES, Shader.UniformBuffer.PROJECTION_INFO));
 
+    if(UniformRingBuffer.isSupported()) {
+      this.transforms2Ring = new UniformRingBuffer((long)(RING_MODELS + MODELS_PER_UPLOAD) * MODEL_STRIDE * Float.BYTES, Shader.UniformBuffer.TRANSFORM2);
+      this.lightRing = new UniformRingBuffer((long)(RING_MODELS + MODELS_PER_UPLOAD) * LIGHT_STRIDE * Float.BYTES, Shader.UniformBuffer.LIGHTING);
+
+      // Both strides are 128 bytes, alignments are powers of two so smaller alignments always line up with a model
+      this.ringAlignment = Math.max(1, this.transforms2Ring.getAlignment() / (MODEL_STRIDE * Float.BYTES));
+
+      if(this.ringAlignment > MODELS_PER_UPLOAD / 2) {
+        LOGGER.warn("Uniform buffer offset alignment %d is too coarse for ring buffers", this.transforms2Ring.getAlignment());
+        this.transforms2Ring.delete();
+        this.lightRing.delete();
+        this.transforms2Ring = null;
+        this.lightRing = null;
+      } else {
+        LOGGER.info("Using persistently-mapped uniform ring buffers");
+      }
+    }
+
     final Mesh postQuad = new Mesh(GL_TRIANGLES, new float[] {
       -1.0f, -1.0f,  0.0f, 0.0f,
        1.0f, -1.0f,  1.0f, 0.0f,
@@ -363,6 +482,14 @@ public class RenderEngine {
     // Build text quads
     this.chars = new LegacyTextBuilder("Text Characters").build();
     this.chars.persistent = true;
+    this.textBatcher = new LegacyTextBatcher("Text Batch");
+    this.streamingTriangles = new StreamingMesh("Streaming Triangles", GL_TRIANGLES);
+
+    this.opaqueProfile = this.profiler.gpu("Opaque");
+    this.shaderPoolProfile = this.profiler.gpu("Shader pool");
+    this.orthoProfile = this.profiler.gpu("Ortho");
+    this.translucentProfile = this.profiler.gpu("Translucent");
+    this.postProfile = this.profiler.gpu("Post");
 
     // Build fullscreen fade quads
     for(final Translucency translucency : Translucency.FOR_RENDERING) {
@@ -430,6 +557,8 @@ public class RenderEngine {
           this.frameAdvance = false;
           this.modelPool.reset();
           this.orthoPool.reset();
+          this.textBatcher.reset();
+          this.streamingTriangles.reset();
         } else {
           this.renderCallback.run();
         }
@@ -439,6 +568,8 @@ public class RenderEngine {
         this.modelPool.reset();
         this.orthoPool.reset();
         this.shaderPool.reset();
+        this.textBatcher.reset();
+        this.streamingTriangles.reset();
         this.renderCallback.run();
         if(this.frameAdvanceSingle) {
           this.frameAdvanceSingle = false;
@@ -455,33 +586,70 @@ public class RenderEngine {
           this.needsSorting = false;
         }
 
+        this.cullModelPool();
+        this.sortModelPool();
+
         this.opaqueFrameBuffer.bind();
         this.clear();
 
+        GlState.begin();
+
         // Gross hack bro
         if(currentEngineState_8004dd04 instanceof final Battle battle && battle._800c6930 != null) {
           this.tmdShader.use();
           this.tmdShaderOptions.battleColour(battle._800c6930.colour_00);
         }
 
+        this.queuedDraws = 0;
+        this.drawCalls = 0;
+        this.textBatcher.upload();
+        this.streamingTriangles.upload();
+
+        if(this.transforms2Ring != null) {
+          this.ringFrame++;
+          this.transforms2Ring.beginFrame();
+          this.lightRing.beginFrame();
+        }
+
         RENDERER.setProjectionMode(ProjectionMode._3D);
+        this.opaqueProfile.begin();
         this.renderPool(this.modelPool, true);
+        this.opaqueProfile.end();
+        this.shaderPoolProfile.begin();
         this.renderShaderPool();
+        this.shaderPoolProfile.end();
 
         RENDERER.setProjectionMode(ProjectionMode._2D);
+        this.orthoProfile.begin();
         this.renderPool(this.orthoPool, false);
+        this.orthoProfile.end();
 
+        this.translucentProfile.begin();
         RENDERER.setProjectionMode(ProjectionMode._3D);
         this.renderPoolTranslucent(this.modelPool);
 
         RENDERER.setProjectionMode(ProjectionMode._2D);
         this.renderPoolTranslucent(this.orthoPool);
+        this.translucentProfile.end();
+
+        this.lastQueuedDraws = this.queuedDraws;
+        this.lastDrawCalls = this.drawCalls;
+
+        if(this.transforms2Ring != null) {
+          this.transforms2Ring.endFrame();
+          this.lightRing.endFrame();
+          this.unbindRings();
+        }
+
+        GlState.end();
 
         // set render states
         glDisable(GL_DEPTH_TEST);
         glDepthMask(true); // enable depth writes so glClear won't ignore clearing the depth buffer
         glDisable(GL_BLEND);
 
+        this.postProfile.begin();
+
         // bind backbuffer
         FrameBuffer.unbind();
         this.setClearColour(0.0f, 0.0f, 0.0f);
@@ -493,6 +661,11 @@ public class RenderEngine {
         // draw final screen quad
         this.opaqueTexture.use();
         postQuad.draw();
+        this.postProfile.end();
+
+        if(this.profiler.isEnabled()) {
+          this.renderProfiler();
+        }
 
         // If we don't unbind the framebuffer textures, window resizing will crash since it has to resize the framebuffer
         Texture.unbind();
@@ -502,13 +675,19 @@ public class RenderEngine {
           this.modelPool.reset();
           this.orthoPool.reset();
           this.shaderPool.reset();
+          this.textBatcher.reset();
+          this.streamingTriangles.reset();
         }
       } else if(!this.paused) {
         this.orthoPool.reset();
         this.modelPool.reset();
         this.shaderPool.reset();
+        this.textBatcher.reset();
+        this.streamingTriangles.reset();
       }
 
+      this.profiler.endFrame();
+
       this.fps = 1_000_000_000.0f / (System.nanoTime() - this.lastFrame);
       this.lastFrame = System.nanoTime();
       this.vsyncCount += 60.0d * Config.getGameSpeedMultiplier() / this.window.getFpsLimit();
@@ -539,9 +718,50 @@ public class RenderEngine {
     });
   }
 
-  private void renderShaderPool() {
-    glDisable(GL_CULL_FACE);
+  /** Draws the profiler's percentiles over the top of the finished frame in window coordinates */
+  private void renderProfiler() {
+    if(this.profilerText.isEmpty() || ++this.profilerTextAge >= PROFILER_REFRESH_FRAMES) {
+      this.deleteProfilerText();
+      this.profilerTextAge = 0;
+
+      final Font font = FontManager.get("default");
+      for(final String line : this.profiler.summarise()) {
+        this.profilerText.add(font.text(stream -> stream.text(line)));
+      }
+
+      final String commands = "GPU commands: %d last frame, %d allocated".formatted(GPU.commands.getLastFrameAcquired(), GPU.commands.getAllocated());
+      this.profilerText.add(font.text(stream -> stream.text(commands)));
+    }
+
+    this.profilerProjection.setOrtho2D(0.0f, this.width, this.height, 0.0f);
+    this.profilerCamera.identity().get(this.transformsBuffer);
+    this.profilerProjection.get(16, this.transformsBuffer);
+    this.transformsUniform.set(this.transformsBuffer);
+
     glEnable(GL_BLEND);
+    glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+
+    final float lineHeight = 24.0f / this.window.getScale();
+    for(int i = 0; i < this.profilerText.size(); i++) {
+      final TextStream text = this.profilerText.get(i);
+      text.setColour(1.0f, 1.0f, 0.0f);
+      text.draw(8.0f, 8.0f + i * lineHeight);
+    }
+
+    glDisable(GL_BLEND);
+  }
+
+  private void deleteProfilerText() {
+    for(final TextStream text : this.profilerText) {
+      text.delete();
+    }
+
+    this.profilerText.clear();
+  }
+
+  private void renderShaderPool() {
+    GlState.disable(GL_CULL_FACE);
+    GlState.enable(GL_BLEND);
 
     for(int i = 0; i < this.shaderPool.size(); i++) {
       final QueuedModel<?> entry = this.shaderPool.get(i);
@@ -560,48 +780,39 @@ public class RenderEngine {
     }
 
     // Render if the depth is less than what is currently in the depth buffer
-    glEnable(GL_DEPTH_TEST);
-    glDepthFunc(GL_LESS);
+    GlState.enable(GL_DEPTH_TEST);
+    GlState.depthFunc(GL_LESS);
 
     // Update the depth mask so nothing further away than this will render
-    glDepthMask(true);
+    GlState.depthMask(true);
 
-    glDisable(GL_BLEND);
+    GlState.disable(GL_BLEND);
 
     if(backFaceCulling) {
-      glEnable(GL_CULL_FACE);
+      GlState.enable(GL_CULL_FACE);
     } else {
-      glDisable(GL_CULL_FACE);
+      GlState.disable(GL_CULL_FACE);
     }
 
     boolean modelBackFaceCulling = true;
 
     this.tmdShader.use();
     this.tmdShaderOptions.discardMode(1);
+    this.tmdShaderOptions.colourScale(1.0f);
+    this.uploadEnd = 0;
 
     final boolean widescreen = this.allowWidescreen && CONFIG.getConfig(CoreMod.ALLOW_WIDESCREEN_CONFIG.get());
     final float w = this.window.getWidth() / this.projectionWidth;
     final float h = this.window.getHeight() / this.projectionHeight;
 
-    for(int i = 0; i < pool.size(); i++) {
-      final int modelIndex = i & 0x7f;
-
-      // Load the next 128 model transforms into the buffers
-      if(modelIndex == 0) {
-        for(int storeIndex = 0; storeIndex < Math.min(128, pool.size() - i); storeIndex++) {
-          pool.get(i + storeIndex).storeTransforms(storeIndex, this.transforms2Buffer, this.lightBuffer);
-        }
-
-        this.transforms2Uniform.set(this.transforms2Buffer);
-        this.lightUniform.set(this.lightBuffer);
-      }
+    int instanceCount;
+    for(int i = 0; i < pool.size(); i += instanceCount) {
+      this.uploadTransforms(pool, i);
 
       final QueuedModel<VoidShaderOptions> entry = pool.get(i);
-      this.tmdShaderOptions.modelIndex(modelIndex);
-      this.tmdShaderOptions.colour(entry.colour);
-      this.tmdShaderOptions.clut(entry.clutOverride);
-      this.tmdShaderOptions.tpage(entry.tpageOverride);
-      this.tmdShaderOptions.uvOffset(entry.uvOffset);
+      instanceCount = this.countInstances(pool, i);
+
+      this.tmdShaderOptions.modelIndex(i - this.uploadStart);
       this.tmdShaderOptions.opaque();
       this.tmdShaderOptions.ctmdFlags(entry.ctmdFlags);
       this.tmdShaderOptions.tmdTranslucency(entry.tmdTranslucency);
@@ -609,12 +820,12 @@ public class RenderEngine {
       boolean updated = false;
 
       if(entry.scissor.w != 0) {
-        glEnable(GL_SCISSOR_TEST);
+        GlState.enable(GL_SCISSOR_TEST);
 
         if(widescreen) {
-          glScissor((int)((entry.scissor.x + this.widescreenOrthoOffsetX) * h * (320.0f / this.projectionWidth)), this.window.getHeight() - (int)(entry.scissor.y * h), (int)(entry.scissor.w * h * (320.0f / this.projectionWidth)), (int)(entry.scissor.h * h));
+          GlState.scissor((int)((entry.scissor.x + this.widescreenOrthoOffsetX) * h * (320.0f / this.projectionWidth)), this.window.getHeight() - (int)(entry.scissor.y * h), (int)(entry.scissor.w * h * (320.0f / this.projectionWidth)), (int)(entry.scissor.h * h));
         } else {
-          glScissor((int)((entry.scissor.x + this.widescreenOrthoOffsetX) * w), this.window.getHeight() - (int)(entry.scissor.y * h), (int)(entry.scissor.w * w), (int)(entry.scissor.h * h));
+          GlState.scissor((int)((entry.scissor.x + this.widescreenOrthoOffsetX) * w), this.window.getHeight() - (int)(entry.scissor.y * h), (int)(entry.scissor.w * w), (int)(entry.scissor.h * h));
         }
       }
 
@@ -623,15 +834,15 @@ public class RenderEngine {
           modelBackFaceCulling = entry.obj.useBackfaceCulling();
 
           if(modelBackFaceCulling) {
-            glEnable(GL_CULL_FACE);
+            GlState.enable(GL_CULL_FACE);
           } else {
-            glDisable(GL_CULL_FACE);
+            GlState.disable(GL_CULL_FACE);
           }
         }
 
         updated = true;
         entry.useTexture();
-        entry.render(null);
+        this.render(entry, null, instanceCount);
       }
 
       // First pass of translucency rendering - renders opaque pixels with translucency bit not set for translucent primitives
@@ -644,7 +855,7 @@ public class RenderEngine {
 
             if(backFaceCulling && modelBackFaceCulling) {
               modelBackFaceCulling = false;
-              glDisable(GL_CULL_FACE);
+              GlState.disable(GL_CULL_FACE);
             }
 
             if(!updated) {
@@ -652,13 +863,13 @@ public class RenderEngine {
               entry.useTexture();
             }
 
-            entry.render(translucency);
+            this.render(entry, translucency, instanceCount);
           }
         }
       }
 
       if(entry.scissor.w != 0) {
-        glDisable(GL_SCISSOR_TEST);
+        GlState.disable(GL_SCISSOR_TEST);
       }
     }
   }
@@ -669,36 +880,27 @@ public class RenderEngine {
     }
 
     // Do not update the depth mask so that we don't prevent things further away than this from rendering
-    glDepthMask(false);
+    GlState.depthMask(false);
 
-    glDisable(GL_CULL_FACE);
-    glEnable(GL_BLEND);
+    GlState.disable(GL_CULL_FACE);
+    GlState.enable(GL_BLEND);
 
     this.tmdShader.use();
     this.tmdShaderOptions.discardMode(2);
     this.tmdShaderOptions.translucency(Translucency.B_PLUS_F);
     Translucency.B_PLUS_F.setGlState();
+    this.uploadEnd = 0;
 
-    for(int i = 0; i < pool.size(); i++) {
-      final int modelIndex = i & 0x7f;
-
-      // Load the next 128 model transforms into the buffers
-      if(modelIndex == 0) {
-        for(int storeIndex = 0; storeIndex < Math.min(128, pool.size() - i); storeIndex++) {
-          pool.get(i + storeIndex).storeTransforms(storeIndex, this.transforms2Buffer, this.lightBuffer);
-        }
-
-        this.transforms2Uniform.set(this.transforms2Buffer);
-        this.lightUniform.set(this.lightBuffer);
-      }
-
+    int instanceCount;
+    for(int i = 0; i < pool.size(); i += instanceCount) {
       final QueuedModel<VoidShaderOptions> entry = pool.get(i);
+      instanceCount = 1;
 
       if(entry.hasTranslucency()) {
-        this.tmdShaderOptions.modelIndex(modelIndex);
-        this.tmdShaderOptions.clut(entry.clutOverride);
-        this.tmdShaderOptions.tpage(entry.tpageOverride);
-        this.tmdShaderOptions.uvOffset(entry.uvOffset);
+        this.uploadTransforms(pool, i);
+        instanceCount = this.countInstances(pool, i);
+
+        this.tmdShaderOptions.modelIndex(i - this.uploadStart);
         this.tmdShaderOptions.ctmdFlags(entry.ctmdFlags);
         this.tmdShaderOptions.tmdTranslucency(entry.tmdTranslucency);
         this.tmdShaderOptions.battleColour(entry.battleColour);
@@ -707,30 +909,123 @@ public class RenderEngine {
         if(entry.shouldRender(Translucency.HALF_B_PLUS_HALF_F)) {
           Translucency.HALF_B_PLUS_HALF_F.setGlState();
           this.tmdShaderOptions.translucency(Translucency.HALF_B_PLUS_HALF_F);
-          this.tmdShaderOptions.colour(entry.colour);
-          entry.render(Translucency.HALF_B_PLUS_HALF_F);
+          this.tmdShaderOptions.colourScale(1.0f);
+          this.render(entry, Translucency.HALF_B_PLUS_HALF_F, instanceCount);
           this.tmdShaderOptions.translucency(Translucency.B_PLUS_F);
           Translucency.B_PLUS_F.setGlState();
         }
 
         if(entry.shouldRender(Translucency.B_PLUS_F)) {
-          this.tmdShaderOptions.colour(entry.colour);
-          entry.render(Translucency.B_PLUS_F);
+          this.tmdShaderOptions.colourScale(1.0f);
+          this.render(entry, Translucency.B_PLUS_F, instanceCount);
         }
 
         if(entry.shouldRender(Translucency.B_MINUS_F)) {
-          this.tmdShaderOptions.colour(entry.colour.mul(-1.0f, this.tempColour));
-          entry.render(Translucency.B_MINUS_F);
+          this.tmdShaderOptions.colourScale(-1.0f);
+          this.render(entry, Translucency.B_MINUS_F, instanceCount);
         }
 
         if(entry.shouldRender(Translucency.B_PLUS_QUARTER_F)) {
-          this.tmdShaderOptions.colour(entry.colour.mul(0.25f, this.tempColour));
-          entry.render(Translucency.B_PLUS_QUARTER_F);
+          this.tmdShaderOptions.colourScale(0.25f);
+          this.render(entry, Translucency.B_PLUS_QUARTER_F, instanceCount);
         }
       }
     }
   }
 
+  /** Makes sure that the transforms for the model at {@code index} are in the uniform buffers, uploading the next batch if not */
+  private void uploadTransforms(final QueuePool<QueuedModel<VoidShaderOptions>> pool, final int index) {
+    if(index >= this.uploadStart && index < this.uploadEnd) {
+      return;
+    }
+
+    if(this.writeRings(pool)) {
+      // Every model is already in the rings, just bind the 128 that start at (or just before) this one
+      this.uploadStart = index - index % this.ringAlignment;
+      this.uploadEnd = Math.min(this.uploadStart + MODELS_PER_UPLOAD, pool.size());
+      this.transforms2Ring.bind(pool.transforms2Offset + (long)this.uploadStart * MODEL_STRIDE * Float.BYTES, (long)MODELS_PER_UPLOAD * MODEL_STRIDE * Float.BYTES);
+      this.lightRing.bind(pool.lightOffset + (long)this.uploadStart * LIGHT_STRIDE * Float.BYTES, (long)MODELS_PER_UPLOAD * LIGHT_STRIDE * Float.BYTES);
+      this.ringBound = true;
+      return;
+    }
+
+    this.unbindRings();
+
+    this.uploadStart = index;
+    this.uploadEnd = Math.min(index + MODELS_PER_UPLOAD, pool.size());
+
+    for(int storeIndex = 0; storeIndex < this.uploadEnd - index; storeIndex++) {
+      pool.get(index + storeIndex).storeTransforms(storeIndex, this.transforms2Buffer, this.lightBuffer);
+    }
+
+    this.transforms2Uniform.set(this.transforms2Buffer);
+    this.lightUniform.set(this.lightBuffer);
+  }
+
+  /** Writes every model in the pool to this frame's ring segments, once per frame. Returns false if the rings can't be used. */
+  private boolean writeRings(final QueuePool<QueuedModel<VoidShaderOptions>> pool) {
+    if(this.transforms2Ring == null) {
+      return false;
+    }
+
+    if(pool.ringFrame == this.ringFrame) {
+      return pool.transforms2Offset != -1;
+    }
+
+    pool.ringFrame = this.ringFrame;
+
+    // Leave room for a full 128 models past the end, the bound range always has to cover the whole uniform block
+    final long count = pool.size() + MODELS_PER_UPLOAD;
+    pool.transforms2Offset = this.transforms2Ring.allocate(count * MODEL_STRIDE * Float.BYTES);
+    pool.lightOffset = this.lightRing.allocate(count * LIGHT_STRIDE * Float.BYTES);
+
+    if(pool.transforms2Offset == -1 || pool.lightOffset == -1) {
+      LOGGER.warn("Uniform ring buffers are full, falling back to per-batch uploads for %d models", pool.size());
+      pool.transforms2Offset = -1;
+      return false;
+    }
+
+    final FloatBuffer transforms2 = this.transforms2Ring.floats(pool.transforms2Offset, (long)pool.size() * MODEL_STRIDE * Float.BYTES);
+    final FloatBuffer lights = this.lightRing.floats(pool.lightOffset, (long)pool.size() * LIGHT_STRIDE * Float.BYTES);
+
+    for(int i = 0; i < pool.size(); i++) {
+      pool.get(i).storeTransforms(i, transforms2, lights);
+    }
+
+    return true;
+  }
+
+  /** Points the transforms and lighting binding points back at the regular uniform buffers that everything else writes to */
+  private void unbindRings() {
+    if(this.ringBound) {
+      this.transforms2Uniform.bind();
+      this.lightUniform.bind();
+      this.ringBound = false;
+    }
+  }
+
+  /**
+   * Counts how many models starting at {@code index} can be drawn with a single instanced draw. Only consecutive models are
+   * merged so that draw order is preserved, and they must all be in the same transform upload since instances read their
+   * transforms from consecutive slots.
+   */
+  private int countInstances(final QueuePool<QueuedModel<VoidShaderOptions>> pool, final int index) {
+    final QueuedModel<VoidShaderOptions> first = pool.get(index);
+
+    int count = 1;
+    while(index + count < this.uploadEnd && first.canInstanceWith(pool.get(index + count))) {
+      count++;
+    }
+
+    return count;
+  }
+
+  private void render(final QueuedModel<VoidShaderOptions> entry, @Nullable final Translucency translucency, final int instanceCount) {
+    entry.render(translucency, instanceCount);
+    this.queuedDraws += instanceCount;
+    this.drawCalls++;
+  }
+
   public void setProjectionMode(final ProjectionMode projectionMode) {
     final boolean highQualityProjection = this.allowHighQualityProjection && CONFIG.getConfig(CoreMod.HIGH_QUALITY_PROJECTION_CONFIG.get());
 
@@ -748,13 +1043,13 @@ public class RenderEngine {
 
     switch(projectionMode) {
       case _2D -> {
-        glDisable(GL_CULL_FACE);
+        GlState.disable(GL_CULL_FACE);
         this.setTransforms(this.camera2d, this.orthographicProjection);
         this.projectionBuffer.put(3, 0.0f); // Projection mode: ortho
       }
 
       case _3D -> {
-        glEnable(GL_CULL_FACE);
+        GlState.enable(GL_CULL_FACE);
         this.setTransforms(this.camera3d, this.perspectiveProjection);
 
         if(highQualityProjection) {
@@ -780,6 +1075,88 @@ public class RenderEngine {
     this.orthoPool.sort(this.translucencySorter);
   }
 
+  /**
+   * Removes 3D models whose bounding spheres are entirely outside of the 3D projection so that they never reach the GPU. Models
+   * without bounds are always kept. The tests are conservative, anything that might touch the screen is kept.
+   */
+  private void cullModelPool() {
+    // The pools aren't reset while paused, so anything culled would stay gone even if the projection changes (e.g. on resize)
+    if(this.paused) {
+      this.culledModels = 0;
+      this.submittedModels = this.modelPool.size();
+      return;
+    }
+
+    this.cullHighQuality = this.allowHighQualityProjection && CONFIG.getConfig(CoreMod.HIGH_QUALITY_PROJECTION_CONFIG.get());
+    this.cullPlaneDistance = GTE.getProjectionPlaneDistance();
+
+    if(this.cullHighQuality) {
+      this.cullFrustum.set(this.perspectiveProjection);
+    } else {
+      // The PS1 projection is a centred ortho projection applied after the projection plane division
+      this.cullHalfWidth = 1.0f / Math.abs(this.perspectiveProjection.m00());
+      this.cullHalfHeight = 1.0f / Math.abs(this.perspectiveProjection.m11());
+    }
+
+    this.culledModels = this.modelPool.removeIf(this::isOutsideProjection);
+    this.submittedModels = this.modelPool.size();
+  }
+
+  private boolean isOutsideProjection(final QueuedModel<?> entry) {
+    final Obj obj = entry.obj;
+
+    if(!obj.hasBounds()) {
+      return false;
+    }
+
+    // Mirrors the vertex shader, the screenspace offset is added to view-space XY after the projection plane division
+    this.cullTransforms.set(this.camera3d.getView()).mul(entry.transforms);
+    this.cullTransforms.transformPosition(obj.getBoundsCentre(), this.cullCentre);
+    this.cullTransforms.getScale(this.cullScale);
+    final float radius = obj.getBoundsRadius() * this.cullScale.get(this.cullScale.maxComponent());
+    final float x = this.cullCentre.x;
+    final float y = this.cullCentre.y;
+    final float z = this.cullCentre.z;
+    final Vector3f offset = entry.screenspaceOffset;
+
+    if(this.cullHighQuality) {
+      return !this.cullFrustum.testSphere(x + offset.x, y + offset.y, z, radius);
+    }
+
+    // Entirely behind the camera
+    if(z + radius < 0.0f) {
+      return true;
+    }
+
+    final float h = this.cullPlaneDistance;
+    return isOutsidePlane(x, z, radius, h, this.cullHalfWidth - offset.x) || isOutsidePlane(-x, z, radius, h, this.cullHalfWidth + offset.x) ||
+      isOutsidePlane(y, z, radius, h, this.cullHalfHeight - offset.y) || isOutsidePlane(-y, z, radius, h, this.cullHalfHeight + offset.y);
+  }
+
+  /**
+   * A point is on screen along one axis when {@code a * h / z <= limit}. Multiplying through by z gives a plane through the
+   * camera, and the sphere is off screen if it's entirely on the far side of that plane.
+   */
+  private static boolean isOutsidePlane(final float a, final float z, final float radius, final float h, final float limit) {
+    return a * h - limit * z > radius * (float)Math.sqrt(h * h + limit * limit);
+  }
+
+  private final Comparator<QueuedModel<?>> stateSorter = Comparator.comparingLong((QueuedModel<?> model) -> model.sortKey);
+
+  /**
+   * Sorting opaque models by state means fewer state changes between draws, and puts identical models next to each other so
+   * they can be instanced. Models with translucent meshes may use order-dependent blending in the translucent pass, so they
+   * all share one key and the stable sort leaves them in the order they were queued in. The ortho pool is never sorted by
+   * state since 2D models rely on being drawn in order.
+   */
+  private void sortModelPool() {
+    for(int i = 0; i < this.modelPool.size(); i++) {
+      this.modelPool.get(i).updateSortKey();
+    }
+
+    this.modelPool.sort(this.stateSorter);
+  }
+
   public QueuedModel<VoidShaderOptions> queueModel(final Obj obj) {
     if(obj == null) {
       throw new IllegalArgumentException("obj is null");
@@ -1079,6 +1456,10 @@ public class RenderEngine {
       if(this.paused) {
         this.frameAdvance = true;
       }
+    } else if(key == GLFW_KEY_F7) {
+      this.profiler.toggle();
+    } else if(key == GLFW_KEY_F8) {
+      this.profiler.dump();
     }
 
     if(key == GLFW_KEY_M) {
@@ -1141,6 +1522,9 @@ public class RenderEngine {
     private int ctmdFlags;
     private final Vector3f battleColour = new Vector3f();
 
+    /** Packed state used to sort the model pool, see {@link #updateSortKey} */
+    private long sortKey;
+
     public Options options() {
       return this.shaderOptions;
     }
@@ -1293,23 +1677,84 @@ public class RenderEngine {
       return this.hasTranslucency && this.translucency == translucency || (this.ctmdFlags & 0x2) != 0 && translucency != null && this.tmdTranslucency == translucency.ordinal() || this.obj.shouldRender(translucency);
     }
 
+    /**
+     * Packs the state that changes between draws, most expensive first. Every model in the model pool uses the TMD shader, so
+     * there's nothing to sort by there. Only GL names and obj handles go into the key so the draw order is the same every run.
+     * Hashes only group models, a collision just means a missed grouping.
+     * <ul>
+     *   <li>62: whether the model is drawn in the translucent pass, if set nothing else is packed</li>
+     *   <li>61: backface culling disabled</li>
+     *   <li>45-60: texture set, 0 for VRAM</li>
+     *   <li>9-40: Obj, i.e. the VAO</li>
+     *   <li>0-8: CTMD flags</li>
+     * </ul>
+     */
+    private void updateSortKey() {
+      if(this.hasTranslucency()) {
+        this.sortKey = 1L << 62;
+        return;
+      }
+
+      int textures = 0;
+      if(this.texturesUsed) {
+        for(final Texture texture : this.textures) {
+          textures = textures * 31 + (texture != null ? texture.getId() : 0);
+        }
+
+        textures = textures & 0xffff | 0x1;
+      }
+
+      this.sortKey =
+        (this.obj.useBackfaceCulling() ? 0L : 1L) << 61 |
+        (long)textures << 45 |
+        (this.obj.getHandle() & 0xffff_ffffL) << 9 |
+        this.ctmdFlags & 0x1ff;
+    }
+
+    /** Whether {@code other} only differs from this model in state that's stored per instance */
+    private boolean canInstanceWith(final QueuedModel<?> other) {
+      return
+        this.obj == other.obj &&
+        this.shader == other.shader &&
+        this.startVertex == other.startVertex &&
+        this.vertexCount == other.vertexCount &&
+        this.texturesUsed == other.texturesUsed &&
+        Arrays.equals(this.textures, other.textures) &&
+        this.hasTranslucency == other.hasTranslucency &&
+        this.translucency == other.translucency &&
+        this.tmdTranslucency == other.tmdTranslucency &&
+        this.ctmdFlags == other.ctmdFlags &&
+        this.battleColour.equals(other.battleColour) &&
+        this.scissor.equals(other.scissor);
+    }
+
     private void storeTransforms(final int modelIndex, final FloatBuffer transforms2Buffer, final FloatBuffer lightingBuffer) {
-      this.transforms.get(modelIndex * 20, transforms2Buffer);
-      this.screenspaceOffset.get(modelIndex * 20 + 16, transforms2Buffer);
+      final int offset = modelIndex * MODEL_STRIDE;
+      final int lightOffset = modelIndex * LIGHT_STRIDE;
+      this.transforms.get(offset, transforms2Buffer);
+      this.screenspaceOffset.get(offset + 16, transforms2Buffer);
+      this.colour.get(offset + 20, transforms2Buffer);
+      this.clutOverride.get(offset + 24, transforms2Buffer);
+      this.tpageOverride.get(offset + 26, transforms2Buffer);
+      this.uvOffset.get(offset + 28, transforms2Buffer);
 
       if(this.lightUsed) {
-        this.lightDirection.get(modelIndex * 32, lightingBuffer);
-        this.lightColour.get(modelIndex * 32 + 16, lightingBuffer);
-        this.backgroundColour.get(modelIndex * 32 + 28, lightingBuffer);
+        this.lightDirection.get(lightOffset, lightingBuffer);
+        this.lightColour.get(lightOffset + 16, lightingBuffer);
+        this.backgroundColour.get(lightOffset + 28, lightingBuffer);
       }
     }
 
     private void render(final Translucency translucency) {
+      this.render(translucency, 1);
+    }
+
+    private void render(final Translucency translucency, final int instanceCount) {
       if(this.hasTranslucency || (this.ctmdFlags & 0x2) != 0) {
         // Translucency override
-        this.obj.render(this.startVertex, this.vertexCount);
+        this.obj.render(this.startVertex, this.vertexCount, instanceCount);
       } else {
-        this.obj.render(translucency, this.startVertex, this.vertexCount);
+        this.obj.render(translucency, this.startVertex, this.vertexCount, instanceCount);
       }
     }
 
@@ -1324,6 +1769,11 @@ public class RenderEngine {
     private final Supplier<T> constructor;
     private int index;
 
+    /** The frame this pool's models were last written to the uniform rings, and where (-1 if they didn't fit) */
+    private int ringFrame = -1;
+    private long transforms2Offset;
+    private long lightOffset;
+
     private QueuePool(final Supplier<T> constructor) {
       this.constructor = constructor;
     }
@@ -1358,5 +1808,31 @@ public class RenderEngine {
     public void sort(final Comparator<? super T> comparator) {
       this.queue.subList(0, this.size()).sort(comparator);
     }
+
+    /**
+     * Moves every entry that matches the predicate past the end of the pool where it'll be reused, keeping the order of the rest
+     *
+     * @return the number of entries removed
+     */
+    public int removeIf(final Predicate<? super T> predicate) {
+      int kept = 0;
+
+      for(int i = 0; i < this.index; i++) {
+        final T entry = this.queue.get(i);
+
+        if(!predicate.test(entry)) {
+          if(kept != i) {
+            this.queue.set(i, this.queue.get(kept));
+            this.queue.set(kept, entry);
+          }
+
+          kept++;
+        }
+      }
+
+      final int removed = this.index - kept;
+      this.index = kept;
+      return removed;
+    }
   }
 }
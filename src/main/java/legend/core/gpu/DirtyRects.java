@@ -0,0 +1,96 @@
+package legend.core.gpu;
+
+/**
+ * Regions of VRAM that have changed since they were last uploaded. Rects that overlap or touch are merged as they're added so
+ * nothing is uploaded twice, and if too many separate rects build up they're collapsed into their bounding box.
+ */
+class DirtyRects {
+  private static final int MAX_RECTS = 32;
+
+  private final int width;
+  private final int height;
+  private final Rect4i[] rects = new Rect4i[MAX_RECTS];
+  private int count;
+
+  DirtyRects(final int width, final int height) {
+    this.width = width;
+    this.height = height;
+
+    for(int i = 0; i < this.rects.length; i++) {
+      this.rects[i] = new Rect4i();
+    }
+  }
+
+  void add(final int x, final int y, final int w, final int h) {
+    int left = Math.max(x, 0);
+    int top = Math.max(y, 0);
+    int right = Math.min(x + w, this.width);
+    int bottom = Math.min(y + h, this.height);
+
+    if(left >= right || top >= bottom) {
+      return;
+    }
+
+    // Absorb every rect this one touches. Growing can make it touch rects that were already checked, so repeat until it stops.
+    boolean merged;
+    do {
+      merged = false;
+
+      for(int i = 0; i < this.count; i++) {
+        final Rect4i rect = this.rects[i];
+
+        if(rect.x <= right && left <= rect.x + rect.w && rect.y <= bottom && top <= rect.y + rect.h) {
+          left = Math.min(left, rect.x);
+          top = Math.min(top, rect.y);
+          right = Math.max(right, rect.x + rect.w);
+          bottom = Math.max(bottom, rect.y + rect.h);
+          this.remove(i--);
+          merged = true;
+        }
+      }
+    } while(merged);
+
+    if(this.count == MAX_RECTS) {
+      for(int i = 0; i < this.count; i++) {
+        final Rect4i rect = this.rects[i];
+        left = Math.min(left, rect.x);
+        top = Math.min(top, rect.y);
+        right = Math.max(right, rect.x + rect.w);
+        bottom = Math.max(bottom, rect.y + rect.h);
+      }
+
+      this.count = 0;
+    }
+
+    this.rects[this.count++].set(left, top, right - left, bottom - top);
+  }
+
+  int count() {
+    return this.count;
+  }
+
+  Rect4i get(final int index) {
+    return this.rects[index];
+  }
+
+  /** Total number of dirty pixels */
+  int area() {
+    int area = 0;
+    for(int i = 0; i < this.count; i++) {
+      area += this.rects[i].w * this.rects[i].h;
+    }
+
+    return area;
+  }
+
+  void clear() {
+    this.count = 0;
+  }
+
+  /** Swaps the last rect into {@code index}, keeping the removed instance around for reuse */
+  private void remove(final int index) {
+    final Rect4i rect = this.rects[index];
+    this.rects[index] = this.rects[--this.count];
+    this.rects[this.count] = rect;
+  }
+}
@@ -5,6 +5,8 @@ import legend.core.MathHelper;
 import legend.core.ProjectionMode;
 import legend.core.RenderEngine;
 import legend.core.opengl.Mesh;
+import legend.core.opengl.ObjRegistry;
+import legend.core.opengl.PixelUnpackBuffer;
 import legend.core.opengl.Shader;
 import legend.core.opengl.ShaderManager;
 import legend.core.opengl.SimpleShaderOptions;
@@ -17,10 +19,10 @@ import org.joml.Matrix4f;
 import org.lwjgl.BufferUtils;
 
 import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
-import java.util.ArrayList;
+import java.nio.IntBuffer;
 import java.util.Arrays;
-import java.util.List;
 
 import static legend.core.GameEngine.RENDERER;
 import static legend.core.MathHelper.colour15To24;
@@ -44,6 +46,12 @@ public class Gpu {
   private static final int STANDARD_VRAM_WIDTH = 1024;
   private static final int STANDARD_VRAM_HEIGHT = 512;
 
+  /** Passed to the rasterizers when a primitive isn't being split into tiles */
+  static final Rect4i NO_CLIP = new Rect4i(Short.MIN_VALUE, Short.MIN_VALUE, 0x1_0000, 0x1_0000);
+
+  /** Rasterize with {@link TiledRasterizer}, otherwise every command is rendered serially */
+  public static boolean tiledRasterization = true;
+
   public final int vramWidth = STANDARD_VRAM_WIDTH;
   public final int vramHeight = STANDARD_VRAM_HEIGHT;
 
@@ -56,7 +64,8 @@ public class Gpu {
 
   private Texture vramTexture15;
   private Texture vramTexture24;
-  private boolean vramDirty;
+  private final DirtyRects vramDirty = new DirtyRects(this.vramWidth, this.vramHeight);
+  private PixelUnpackBuffer vramUploadBuffer;
 
   private Shader<SimpleShaderOptions> vramShader;
   private SimpleShaderOptions vramShaderOptions;
@@ -71,14 +80,20 @@ public class Gpu {
   private int windowHeight;
 
   public final Status status = new Status();
+  public final GpuCommandArena commands = new GpuCommandArena();
 
   public final Rect4i drawingArea = new Rect4i();
   public final Rect4i scaledDrawingArea = new Rect4i();
   private short offsetX;
   private short offsetY;
 
-  private int zMax;
-  private List<GpuCommand>[] zQueues;
+  private OrderingTable orderingTable;
+  private final TiledRasterizer tiledRasterizer = new TiledRasterizer(this);
+
+  /** Null if every triangle is rasterized by the scalar loop */
+  @Nullable
+  SpanKernel spanKernel = SpanKernel.load();
+  private final ThreadLocal<TriangleSetup> triangleSetups = ThreadLocal.withInitial(TriangleSetup::new);
 
   private boolean displayChanged;
 
@@ -130,23 +145,69 @@ public class Gpu {
       builder.dataType(GL_UNSIGNED_INT_8_8_8_8_REV);
     });
 
+    this.vramUploadBuffer = new PixelUnpackBuffer();
+
     this.displaySize(320, 240);
   }
 
   public void startFrame() {
     synchronized(this.vramLock) {
-      if(this.vramDirty) {
-        this.vramTexture15.dataInt(0, 0, 1024, 512, this.vram15);
-        this.vramTexture24.data(0, 0, 1024, 512, this.vram24);
-        this.vramDirty = false;
+      if(this.vramDirty.count() != 0) {
+        this.uploadDirtyVram();
+        this.vramDirty.clear();
       }
     }
 
-    if(this.zMax != orderingTableSize_1f8003c8) {
+    if(this.orderingTable == null || this.orderingTable.size() != orderingTableSize_1f8003c8) {
       this.updateOrderingTableSize(orderingTableSize_1f8003c8);
     }
   }
 
+  /** Uploads only the dirty parts of VRAM, staged through a {@link PixelUnpackBuffer} */
+  private void uploadDirtyVram() {
+    final ByteBuffer mapped = this.vramUploadBuffer.map((long)this.vramDirty.area() * 2 * Integer.BYTES);
+
+    if(mapped == null) {
+      LOGGER.warn("Failed to map VRAM upload buffer, uploading all of VRAM");
+      this.vramTexture15.dataInt(0, 0, this.vramWidth, this.vramHeight, this.vram15);
+      this.vramTexture24.data(0, 0, this.vramWidth, this.vramHeight, this.vram24);
+      return;
+    }
+
+    // All of the 15-bit rects followed by all of the 24-bit rects, each tightly packed
+    final IntBuffer buffer = mapped.asIntBuffer();
+    for(int i = 0; i < this.vramDirty.count(); i++) {
+      final Rect4i rect = this.vramDirty.get(i);
+      for(int y = rect.y; y < rect.y + rect.h; y++) {
+        buffer.put(this.vram15, y * this.vramWidth + rect.x, rect.w);
+      }
+    }
+
+    for(int i = 0; i < this.vramDirty.count(); i++) {
+      final Rect4i rect = this.vramDirty.get(i);
+      for(int y = rect.y; y < rect.y + rect.h; y++) {
+        buffer.put(this.vram24, y * this.vramWidth + rect.x, rect.w);
+      }
+    }
+
+    this.vramUploadBuffer.unmap();
+
+    long offset = 0;
+    for(int i = 0; i < this.vramDirty.count(); i++) {
+      final Rect4i rect = this.vramDirty.get(i);
+      this.vramTexture15.dataInt(rect.x, rect.y, rect.w, rect.h, offset);
+      offset += (long)rect.w * rect.h * Integer.BYTES;
+    }
+
+    for(int i = 0; i < this.vramDirty.count(); i++) {
+      final Rect4i rect = this.vramDirty.get(i);
+      this.vramTexture24.data(rect.x, rect.y, rect.w, rect.h, offset);
+      offset += (long)rect.w * rect.h * Integer.BYTES;
+    }
+
+    this.vramUploadBuffer.unbind();
+  }
+
   private final float[] fps = new float[60];
   private int fpsIndex;
 
@@ -163,7 +224,7 @@ public class Gpu {
         avg += this.fps[i];
       }
 
-      RENDERER.window().setTitle("Legend of Dragoon - FPS: %.2f/%d scale: %.2f res: %dx%d".formatted(avg / fpsLimit, fpsLimit, RENDERER.window().getHeight() / 240.0f, this.displayTexture.width, this.displayTexture.height));
+      RENDERER.window().setTitle("Legend of Dragoon - FPS: %.2f/%d scale: %.2f res: %dx%d culled: %d/%d draws: %d/%d state: %d (%d skipped) objs: %d VRAM: %.1fMiB".formatted(avg / fpsLimit, fpsLimit, RENDERER.window().getHeight() / 240.0f, this.displayTexture.width, this.displayTexture.height, RENDERER.getCulledModelCount(), RENDERER.getCulledModelCount() + RENDERER.getSubmittedModelCount(), RENDERER.getDrawCallCount(), RENDERER.getQueuedDrawCount(), RENDERER.getStateChangeCount(), RENDERER.getRedundantStateCallCount(), ObjRegistry.getCount(), ObjRegistry.getVramBytes() / (1024.0f * 1024.0f)));
     }
   }
 
@@ -218,19 +279,22 @@ public class Gpu {
       this.drawVram();
     }
 
-    if(this.zQueues != null) {
-      for(int z = this.zQueues.length - 1; z >= 0; z--) {
-        final List<GpuCommand> queue = this.zQueues[z];
+    this.renderOrderingTable();
 
-        for(int i = queue.size() - 1; i >= 0; i--) {
-          queue.get(i).render(this);
-        }
+    this.commands.reset();
+    this.drawBufferIndex ^= 1;
+  }
 
-        queue.clear();
+  /** Rasterizes and clears everything queued with {@link #queueCommand} */
+  void renderOrderingTable() {
+    if(this.orderingTable != null) {
+      if(tiledRasterization) {
+        this.orderingTable.render(this.tiledRasterizer::add);
+        this.tiledRasterizer.flush();
+      } else {
+        this.orderingTable.render(command -> command.render(this));
       }
     }
-
-    this.drawBufferIndex ^= 1;
   }
 
   public void clear(final int colour) {
@@ -251,7 +315,7 @@ public class Gpu {
         Arrays.fill(this.vram24, offset, offset + w, 0);
       }
 
-      this.vramDirty = true;
+      this.vramDirty.add(x, y, w, h);
     }
   }
 
@@ -284,7 +348,7 @@ public class Gpu {
         }
       }
 
-      this.vramDirty = true;
+      this.vramDirty.add(rectX, rectY, rectW, rectH);
     }
   }
 
@@ -308,7 +372,7 @@ public class Gpu {
         }
       }
 
-      this.vramDirty = true;
+      this.vramDirty.add(rectX, rectY, rectW, rectH);
     }
   }
 
@@ -332,7 +396,7 @@ public class Gpu {
         }
       }
 
-      this.vramDirty = true;
+      this.vramDirty.add(rectX, rectY, rectW, rectH);
     }
   }
 
@@ -403,7 +467,7 @@ public class Gpu {
         }
       }
 
-      this.vramDirty = true;
+      this.vramDirty.add(destX, destY, width, height);
     }
   }
 
@@ -412,17 +476,15 @@ public class Gpu {
   }
 
   public void queueCommand(final int z, final GpuCommand command) {
-    this.zQueues[z].add(command);
+    this.orderingTable.add(z, command);
   }
 
   /**
    * GP1(01h) - Reset Command Buffer
    */
   public void resetCommandBuffer() {
-    if(this.zQueues != null) {
-      for(int z = this.zQueues.length - 1; z >= 0; z--) {
-        this.zQueues[z].clear();
-      }
+    if(this.orderingTable != null) {
+      this.orderingTable.clear();
     }
   }
 
@@ -453,15 +515,18 @@ public class Gpu {
       this.displayTexture.delete();
     }
 
-    for(int i = 0; i < this.renderBuffers.length; i++) {
-      this.renderBuffers[i] = new VramTextureSingle(Bpp.BITS_24, new Rect4i(0, 0, horizontalRes, verticalRes), new int[horizontalRes * verticalRes]);
-    }
-
+    this.createRenderBuffers(horizontalRes, verticalRes);
     this.displayTexture = Texture.empty(horizontalRes, verticalRes);
 
     this.updateDisplayTexture(this.windowWidth, this.windowHeight);
   }
 
+  void createRenderBuffers(final int horizontalRes, final int verticalRes) {
+    for(int i = 0; i < this.renderBuffers.length; i++) {
+      this.renderBuffers[i] = new VramTextureSingle(Bpp.BITS_24, new Rect4i(0, 0, horizontalRes, verticalRes), new int[horizontalRes * verticalRes]);
+    }
+  }
+
   public void drawingArea(final int left, final int top, int width, final int height) {
     if(width == 384) {
       width = 368;
@@ -477,11 +542,7 @@ public class Gpu {
   }
 
   public void updateOrderingTableSize(final int size) {
-    final List<GpuCommand>[] list = new ArrayList[size];
-    Arrays.setAll(list, key -> new ArrayList<>());
-
-    this.zMax = size;
-    this.zQueues = list;
+    this.orderingTable = new OrderingTable(size);
   }
 
   public void drawDisplay() {
@@ -530,7 +591,12 @@ public class Gpu {
     return this.displayTexture.height;
   }
 
-  public void rasterizeLine(int x, int y, int x2, int y2, final int colour1, final int colour2, @Nullable final Translucency translucency) {
+  public void rasterizeLine(final int x, final int y, final int x2, final int y2, final int colour1, final int colour2, @Nullable final Translucency translucency) {
+    this.rasterizeLine(x, y, x2, y2, colour1, colour2, translucency, NO_CLIP);
+  }
+
+  /** Only pixels inside of {@code clip} are drawn */
+  void rasterizeLine(int x, int y, int x2, int y2, final int colour1, final int colour2, @Nullable final Translucency translucency, final Rect4i clip) {
     if(Math.abs(x - x2) >= this.vramWidth || Math.abs(y - y2) >= this.vramHeight) {
       return;
     }
@@ -586,7 +652,7 @@ public class Gpu {
       final float ratio = (float)i / longest;
       int colour = interpolateColours(colour1, colour2, ratio);
 
-      if(this.drawingArea.contains(x, y)) {
+      if(this.drawingArea.contains(x, y) && x >= clip.x && x < clip.x + clip.w && y >= clip.y && y < clip.y + clip.h) {
         if(translucency != null) {
           colour = this.handleTranslucence(x, y, colour, translucency);
         }
@@ -608,7 +674,7 @@ public class Gpu {
     }
   }
 
-  void rasterizeTriangle(final int vx0, final int vy0, int vx1, int vy1, int vx2, int vy2, final int tu0, final int tv0, int tu1, int tv1, int tu2, int tv2, final int c0, int c1, int c2, final int clutX, final int clutY, final int textureBaseX, final int textureBaseY, final Bpp bpp, final boolean isTextured, final boolean isShaded, final boolean isTranslucent, final boolean isRaw, final Translucency translucencyMode, @Nullable final VramTexture texture, @Nullable final VramTexture[] palettes) {
+  void rasterizeTriangle(final int vx0, final int vy0, int vx1, int vy1, int vx2, int vy2, final int tu0, final int tv0, int tu1, int tv1, int tu2, int tv2, final int c0, int c1, int c2, final int clutX, final int clutY, final int textureBaseX, final int textureBaseY, final Bpp bpp, final boolean isTextured, final boolean isShaded, final boolean isTranslucent, final boolean isRaw, final Translucency translucencyMode, @Nullable final VramTexture texture, @Nullable final VramTexture[] palettes, final Rect4i clip) {
     int area = orient2d(vx0, vy0, vx1, vy1, vx2, vy2);
     if(area == 0) {
       return;
@@ -649,6 +715,11 @@ public class Gpu {
     maxX = (short)Math.min(maxX, this.scaledDrawingArea.x + this.scaledDrawingArea.w);
     maxY = (short)Math.min(maxY, this.scaledDrawingArea.y + this.scaledDrawingArea.h);
 
+    minX = Math.max(minX, clip.x);
+    minY = Math.max(minY, clip.y);
+    maxX = Math.min(maxX, clip.x + clip.w);
+    maxY = Math.min(maxY, clip.y + clip.h);
+
     final int A01 = vy0 - vy1;
     final int B01 = vx1 - vx0;
     final int A12 = vy1 - vy2;
@@ -664,6 +735,56 @@ public class Gpu {
     int w1_row = orient2d(vx2, vy2, vx0, vy0, minX, minY);
     int w2_row = orient2d(vx0, vy0, vx1, vy1, minX, minY);
 
+    // VramTexture lookups are left to the scalar loop
+    if(this.spanKernel != null && texture == null) {
+      final TriangleSetup setup = this.triangleSetups.get();
+      setup.area = area;
+      setup.a12 = A12;
+      setup.a20 = A20;
+      setup.a01 = A01;
+      setup.bias0 = bias0;
+      setup.bias1 = bias1;
+      setup.bias2 = bias2;
+      setup.c0 = c0;
+      setup.c1 = c1;
+      setup.c2 = c2;
+      setup.shaded = isShaded;
+      setup.textured = isTextured;
+      setup.tu0 = tu0;
+      setup.tu1 = tu1;
+      setup.tu2 = tu2;
+      setup.tv0 = tv0;
+      setup.tv1 = tv1;
+      setup.tv2 = tv2;
+      setup.clutX = clutX;
+      setup.clutY = clutY;
+      setup.textureBaseX = textureBaseX;
+      setup.textureBaseY = textureBaseY;
+      setup.bpp = bpp;
+      setup.raw = isRaw;
+      setup.translucency = isTranslucent ? translucencyMode : null;
+      setup.checkMask = this.status.drawPixels == DRAW_PIXELS.NOT_TO_MASKED_AREAS;
+      setup.maskBit = (this.status.setMaskBit ? 1 : 0) << 24;
+      setup.vram15 = this.vram15;
+      setup.vram24 = this.vram24;
+      setup.vramWidth = this.vramWidth;
+      setup.drawBuffer = this.getDrawBuffer().getData();
+      setup.drawBufferWidth = this.getDrawBuffer().rect.w;
+
+      if(this.spanKernel.supports(setup)) {
+        for(int y = minY; y < maxY; y++) {
+          this.spanKernel.span(setup, y, minX, maxX, w0_row, w1_row, w2_row);
+
+          // One step down
+          w0_row += B12;
+          w1_row += B20;
+          w2_row += B01;
+        }
+
+        return;
+      }
+    }
+
     // Rasterize
     for(int y = minY; y < maxY; y++) {
       // Barycentric coordinates at start of row
@@ -760,9 +881,14 @@ public class Gpu {
     }
   }
 
-  void rasterizeQuad(final int x1, final int y1, final int x2, final int y2, final int colour, final boolean raw, final boolean textured, final int u1, final int v1, final int clutX, final int clutY, final int vramX, final int vramY, final Bpp bpp, @Nullable final Translucency translucency, @Nullable final VramTexture texture, @Nullable final VramTexture[] palettes) {
-    for(int y = y1, v = v1; y < y2; y++, v++) {
-      for(int x = x1, u = u1; x < x2; x++, u++) {
+  void rasterizeQuad(final int x1, final int y1, final int x2, final int y2, final int colour, final boolean raw, final boolean textured, final int u1, final int v1, final int clutX, final int clutY, final int vramX, final int vramY, final Bpp bpp, @Nullable final Translucency translucency, @Nullable final VramTexture texture, @Nullable final VramTexture[] palettes, final Rect4i clip) {
+    final int startX = Math.max(x1, clip.x);
+    final int startY = Math.max(y1, clip.y);
+    final int endX = Math.min(x2, clip.x + clip.w);
+    final int endY = Math.min(y2, clip.y + clip.h);
+
+    for(int y = startY, v = v1 + startY - y1; y < endY; y++, v++) {
+      for(int x = startX, u = u1 + startX - x1; x < endX; x++, u++) {
         // Check background mask
         if(this.status.drawPixels == DRAW_PIXELS.NOT_TO_MASKED_AREAS) {
           if((this.getPixel(x, y) & 0xff00_0000L) != 0) {
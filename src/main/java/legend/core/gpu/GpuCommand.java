@@ -1,5 +1,22 @@
 package legend.core.gpu;
 
+import javax.annotation.Nullable;
+
 public abstract class GpuCommand {
   public abstract void render(final Gpu gpu);
+
+  /** Restores the command to its newly-constructed state so that {@link GpuCommandArena} can reuse it */
+  void reset() { }
+
+  /**
+   * Prepares the command to be split across tiles by {@link TiledRasterizer}, doing anything that must only happen once.
+   *
+   * @param bounds set to a rect containing every pixel the command may draw to
+   * @return what renders each tile of the command, or null, without having changed anything, if the command can't be split. It's
+   * then rendered with {@link #render} on its own
+   */
+  @Nullable
+  TileRenderer prepareTiled(final Gpu gpu, final Rect4i bounds) {
+    return null;
+  }
 }
@@ -0,0 +1,105 @@
+package legend.core.gpu;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Hands out reusable commands so that queueing primitives doesn't allocate new objects every frame. Commands are only valid
+ * until the end of the frame they were acquired in, after {@link Gpu#endFrame} renders the ordering table everything is
+ * returned to the arena at once. Commands must never be held across frames.
+ */
+public class GpuCommandArena {
+  private final Pool<GpuCommandPoly> poly3 = new Pool<>(() -> new GpuCommandPoly(3));
+  private final Pool<GpuCommandPoly> poly4 = new Pool<>(() -> new GpuCommandPoly(4));
+  private final Pool<GpuCommandQuad> quads = new Pool<>(GpuCommandQuad::new);
+  private final Pool<GpuCommandLine> lines = new Pool<>(GpuCommandLine::new);
+  private final Pool<GpuCommandCopyVramToVram> copies = new Pool<>(GpuCommandCopyVramToVram::new);
+
+  private int acquired;
+  private int lastFrameAcquired;
+  private long allocated;
+
+  public GpuCommandPoly poly(final int vertexCount) {
+    if(vertexCount == 3) {
+      return this.poly3.acquire();
+    }
+
+    if(vertexCount == 4) {
+      return this.poly4.acquire();
+    }
+
+    this.allocated++;
+    return new GpuCommandPoly(vertexCount);
+  }
+
+  /** Same as {@link GpuCommandPoly#GpuCommandPoly(GpuCommandPoly)} */
+  public GpuCommandPoly poly(final GpuCommandPoly toCopy) {
+    final GpuCommandPoly poly = this.poly(toCopy.getVertexCount());
+    poly.copy(toCopy);
+    return poly;
+  }
+
+  public GpuCommandQuad quad() {
+    return this.quads.acquire();
+  }
+
+  public GpuCommandLine line() {
+    return this.lines.acquire();
+  }
+
+  public GpuCommandCopyVramToVram copyVramToVram(final int sourceX, final int sourceY, final int destX, final int destY, final int width, final int height) {
+    final GpuCommandCopyVramToVram copy = this.copies.acquire();
+    copy.set(sourceX, sourceY, destX, destY, width, height);
+    return copy;
+  }
+
+  /** Commands handed out last frame */
+  public int getLastFrameAcquired() {
+    return this.lastFrameAcquired;
+  }
+
+  /** Commands that have had to be created since startup, once the pools have grown this should stop increasing */
+  public long getAllocated() {
+    return this.allocated;
+  }
+
+  /** Returns every command to the arena, must only be called once the ordering table has been rendered */
+  void reset() {
+    this.lastFrameAcquired = this.acquired;
+    this.acquired = 0;
+    this.poly3.reset();
+    this.poly4.reset();
+    this.quads.reset();
+    this.lines.reset();
+    this.copies.reset();
+  }
+
+  private class Pool<T extends GpuCommand> {
+    private final Supplier<T> constructor;
+    private final List<T> commands = new ArrayList<>();
+    private int used;
+
+    private Pool(final Supplier<T> constructor) {
+      this.constructor = constructor;
+    }
+
+    private T acquire() {
+      GpuCommandArena.this.acquired++;
+
+      if(this.used == this.commands.size()) {
+        GpuCommandArena.this.allocated++;
+        this.commands.add(this.constructor.get());
+        return this.commands.get(this.used++);
+      }
+
+      final T command = this.commands.get(this.used++);
+      command.reset();
+      return command;
+    }
+
+    private void reset() {
+      this.used = 0;
+    }
+  }
+}
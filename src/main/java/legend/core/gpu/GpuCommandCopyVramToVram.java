@@ -1,14 +1,21 @@
 package legend.core.gpu;
 
 public class GpuCommandCopyVramToVram extends GpuCommand {
-  private final int sourceX;
-  private final int sourceY;
-  private final int destX;
-  private final int destY;
-  private final int width;
-  private final int height;
+  private int sourceX;
+  private int sourceY;
+  private int destX;
+  private int destY;
+  private int width;
+  private int height;
 
   public GpuCommandCopyVramToVram(final int sourceX, final int sourceY, final int destX, final int destY, final int width, final int height) {
+    this.set(sourceX, sourceY, destX, destY, width, height);
+  }
+
+  /** For {@link GpuCommandArena}, which always calls {@link #set} before handing the command out */
+  GpuCommandCopyVramToVram() { }
+
+  void set(final int sourceX, final int sourceY, final int destX, final int destY, final int width, final int height) {
     if(sourceX < 0) {
       throw new IllegalArgumentException("Negative sourceX " + sourceX);
     }
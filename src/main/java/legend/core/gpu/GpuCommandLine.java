@@ -14,6 +14,19 @@ public class GpuCommandLine extends GpuCommand {
   private final int[] y = new int[2];
   private final int[] colour = new int[2];
 
+  private final TileRenderer tileRenderer = this::rasterize;
+
+  @Override
+  void reset() {
+    this.translucence = null;
+
+    for(int i = 0; i < 2; i++) {
+      this.x[i] = 0;
+      this.y[i] = 0;
+      this.colour[i] = 0;
+    }
+  }
+
   public final GpuCommandLine translucent(final Translucency trans) {
     this.translucence = trans;
     return this;
@@ -84,6 +97,18 @@ public class GpuCommandLine extends GpuCommand {
 
   @Override
   public void render(final Gpu gpu) {
-    gpu.rasterizeLine(this.x[0], this.y[0], this.x[1], this.y[1], this.colour[0], this.colour[1], this.translucence);
+    this.rasterize(gpu, Gpu.NO_CLIP);
+  }
+
+  @Override
+  TileRenderer prepareTiled(final Gpu gpu, final Rect4i bounds) {
+    final int minX = Math.min(this.x[0], this.x[1]);
+    final int minY = Math.min(this.y[0], this.y[1]);
+    bounds.set(minX + gpu.getOffsetX(), minY + gpu.getOffsetY(), Math.abs(this.x[1] - this.x[0]) + 1, Math.abs(this.y[1] - this.y[0]) + 1);
+    return this.tileRenderer;
+  }
+
+  private void rasterize(final Gpu gpu, final Rect4i clip) {
+    gpu.rasterizeLine(this.x[0], this.y[0], this.x[1], this.y[1], this.colour[0], this.colour[1], this.translucence, clip);
   }
 }
@@ -33,6 +33,8 @@ public class GpuCommandPoly extends GpuCommand {
   private VramTexture texture;
   private VramTexture[] palettes;
 
+  private final TileRenderer tileRenderer = this::rasterize;
+
   public GpuCommandPoly(final int vertexCount) {
     this.vertexCount = vertexCount;
     this.x = new int[vertexCount];
@@ -63,6 +65,53 @@ public class GpuCommandPoly extends GpuCommand {
     this.vramY = toCopy.vramY;
   }
 
+  public int getVertexCount() {
+    return this.vertexCount;
+  }
+
+  /** Copies everything that {@link #GpuCommandPoly(GpuCommandPoly)} copies into this command, which must have as many vertices */
+  void copy(final GpuCommandPoly toCopy) {
+    this.bpp = toCopy.bpp;
+    this.translucence = toCopy.translucence;
+    this.shaded = toCopy.shaded;
+    this.raw = toCopy.raw;
+    this.textured = toCopy.textured;
+
+    System.arraycopy(toCopy.x, 0, this.x, 0, this.vertexCount);
+    System.arraycopy(toCopy.y, 0, this.y, 0, this.vertexCount);
+    System.arraycopy(toCopy.u, 0, this.u, 0, this.vertexCount);
+    System.arraycopy(toCopy.v, 0, this.v, 0, this.vertexCount);
+    System.arraycopy(toCopy.colour, 0, this.colour, 0, this.vertexCount);
+
+    this.clutX = toCopy.clutX;
+    this.clutY = toCopy.clutY;
+    this.vramX = toCopy.vramX;
+    this.vramY = toCopy.vramY;
+  }
+
+  @Override
+  void reset() {
+    this.bpp = Bpp.BITS_4;
+    this.translucence = null;
+    this.shaded = false;
+    this.raw = false;
+    this.textured = false;
+
+    Arrays.fill(this.x, 0);
+    Arrays.fill(this.y, 0);
+    Arrays.fill(this.u, 0);
+    Arrays.fill(this.v, 0);
+    Arrays.fill(this.colour, 0);
+
+    this.clutX = 0;
+    this.clutY = 0;
+    this.vramX = 0;
+    this.vramY = 0;
+
+    this.texture = null;
+    this.palettes = null;
+  }
+
   public GpuCommandPoly bpp(final Bpp bpp) {
     this.bpp = bpp;
     return this;
@@ -202,15 +251,46 @@ public class GpuCommandPoly extends GpuCommand {
 
   @Override
   public void render(final Gpu gpu) {
+    this.applyOffset(gpu);
+    this.rasterize(gpu, Gpu.NO_CLIP);
+  }
+
+  @Override
+  TileRenderer prepareTiled(final Gpu gpu, final Rect4i bounds) {
+    // Reads back pixels that other tiles may be drawing
+    if(this.texture == gpu.getDrawBuffer()) {
+      return null;
+    }
+
+    this.applyOffset(gpu);
+
+    int minX = this.x[0];
+    int minY = this.y[0];
+    int maxX = this.x[0];
+    int maxY = this.y[0];
+    for(int i = 1; i < this.vertexCount; i++) {
+      minX = Math.min(minX, this.x[i]);
+      minY = Math.min(minY, this.y[i]);
+      maxX = Math.max(maxX, this.x[i]);
+      maxY = Math.max(maxY, this.y[i]);
+    }
+
+    bounds.set(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    return this.tileRenderer;
+  }
+
+  private void applyOffset(final Gpu gpu) {
     for(int i = 0; i < this.vertexCount; i++) {
       this.x[i] += gpu.getOffsetX();
       this.y[i] += gpu.getOffsetY();
     }
+  }
 
-    gpu.rasterizeTriangle(this.x[0], this.y[0], this.x[1], this.y[1], this.x[2], this.y[2], this.u[0], this.v[0], this.u[1], this.v[1], this.u[2], this.v[2], this.colour[0], this.colour[1], this.colour[2], this.clutX, this.clutY, this.vramX, this.vramY, this.bpp, this.textured, this.shaded, this.translucence != null, this.raw, this.translucence, this.texture, this.palettes);
+  private void rasterize(final Gpu gpu, final Rect4i clip) {
+    gpu.rasterizeTriangle(this.x[0], this.y[0], this.x[1], this.y[1], this.x[2], this.y[2], this.u[0], this.v[0], this.u[1], this.v[1], this.u[2], this.v[2], this.colour[0], this.colour[1], this.colour[2], this.clutX, this.clutY, this.vramX, this.vramY, this.bpp, this.textured, this.shaded, this.translucence != null, this.raw, this.translucence, this.texture, this.palettes, clip);
 
     if(this.vertexCount == 4) {
-      gpu.rasterizeTriangle(this.x[1], this.y[1], this.x[2], this.y[2], this.x[3], this.y[3], this.u[1], this.v[1], this.u[2], this.v[2], this.u[3], this.v[3], this.colour[1], this.colour[2], this.colour[3], this.clutX, this.clutY, this.vramX, this.vramY, this.bpp, this.textured, this.shaded, this.translucence != null, this.raw, this.translucence, this.texture, this.palettes);
+      gpu.rasterizeTriangle(this.x[1], this.y[1], this.x[2], this.y[2], this.x[3], this.y[3], this.u[1], this.v[1], this.u[2], this.v[2], this.u[3], this.v[3], this.colour[1], this.colour[2], this.colour[3], this.clutX, this.clutY, this.vramX, this.vramY, this.bpp, this.textured, this.shaded, this.translucence != null, this.raw, this.translucence, this.texture, this.palettes, clip);
     }
   }
 }
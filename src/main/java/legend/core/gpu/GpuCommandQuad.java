@@ -31,6 +31,33 @@ public class GpuCommandQuad extends GpuCommand {
   private VramTexture texture;
   private VramTexture[] palettes;
 
+  private final TileRenderer tileRenderer = this::rasterize;
+
+  @Override
+  void reset() {
+    this.bpp = Bpp.BITS_4;
+    this.translucence = null;
+    this.raw = false;
+    this.textured = false;
+
+    this.colour = 0;
+
+    this.x = 0;
+    this.y = 0;
+    this.w = 0;
+    this.h = 0;
+    this.u = 0;
+    this.v = 0;
+
+    this.clutX = 0;
+    this.clutY = 0;
+    this.vramX = 0;
+    this.vramY = 0;
+
+    this.texture = null;
+    this.palettes = null;
+  }
+
   public GpuCommandQuad bpp(final Bpp bpp) {
     this.bpp = bpp;
     return this;
@@ -135,6 +162,21 @@ public class GpuCommandQuad extends GpuCommand {
 
   @Override
   public void render(final Gpu gpu) {
+    this.rasterize(gpu, Gpu.NO_CLIP);
+  }
+
+  @Override
+  TileRenderer prepareTiled(final Gpu gpu, final Rect4i bounds) {
+    // Reads back pixels that other tiles may be drawing
+    if(this.texture == gpu.getDrawBuffer()) {
+      return null;
+    }
+
+    bounds.set(this.x + gpu.getOffsetX(), this.y + gpu.getOffsetY(), this.w, this.h);
+    return this.tileRenderer;
+  }
+
+  private void rasterize(final Gpu gpu, final Rect4i clip) {
     final int x1 = Math.max(this.x + gpu.getOffsetX(), gpu.drawingArea.x);
     final int y1 = Math.max(this.y + gpu.getOffsetY(), gpu.drawingArea.y);
     final int x2 = Math.min(this.x + gpu.getOffsetX() + this.w, gpu.drawingArea.x + gpu.drawingArea.w);
@@ -150,6 +192,6 @@ public class GpuCommandQuad extends GpuCommand {
       v1 = 0;
     }
 
-    gpu.rasterizeQuad(x1, y1, x2, y2, this.colour, this.raw, this.textured, u1, v1, this.clutX, this.clutY, this.vramX, this.vramY, this.bpp, this.translucence, this.texture, this.palettes);
+    gpu.rasterizeQuad(x1, y1, x2, y2, this.colour, this.raw, this.textured, u1, v1, this.clutX, this.clutY, this.vramX, this.vramY, this.bpp, this.translucence, this.texture, this.palettes, clip);
   }
 }
@@ -0,0 +1,77 @@
+package legend.core.gpu;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Sorts queued commands by depth like the PS1's ordering table. Commands are stored in one flat array and each depth slot is a
+ * linked list threaded through it by index, with new commands inserted at the head. A bitmap of occupied slots lets
+ * {@link #render} skip straight over empty ones, so queueing and rendering cost O(commands) no matter how many slots there are.
+ *
+ * <p>Slots are rendered from the highest depth to the lowest and, within a slot, from the most recently queued command to the
+ * oldest.</p>
+ */
+class OrderingTable {
+  private static final int END = -1;
+
+  private final int size;
+  /** Index of the most recently queued command in each slot, only valid for slots that are marked in {@link #occupied} */
+  private final int[] heads;
+  private final long[] occupied;
+
+  private GpuCommand[] commands = new GpuCommand[1024];
+  /** Index of the next command in the same slot, or {@link #END} */
+  private int[] next = new int[1024];
+  private int count;
+
+  OrderingTable(final int size) {
+    this.size = size;
+    this.heads = new int[size];
+    this.occupied = new long[(size + 63) >>> 6];
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  void add(final int z, final GpuCommand command) {
+    Objects.checkIndex(z, this.size);
+
+    if(this.count == this.commands.length) {
+      this.commands = Arrays.copyOf(this.commands, this.count * 2);
+      this.next = Arrays.copyOf(this.next, this.count * 2);
+    }
+
+    final int word = z >>> 6;
+    final long bit = 1L << (z & 63);
+    final int index = this.count++;
+
+    this.commands[index] = command;
+    this.next[index] = (this.occupied[word] & bit) != 0 ? this.heads[z] : END;
+    this.heads[z] = index;
+    this.occupied[word] |= bit;
+  }
+
+  /** Passes every command to {@code renderer} in render order, then clears the table */
+  void render(final Consumer<GpuCommand> renderer) {
+    for(int word = this.occupied.length - 1; word >= 0; word--) {
+      while(this.occupied[word] != 0) {
+        final int bit = 63 - Long.numberOfLeadingZeros(this.occupied[word]);
+        this.occupied[word] &= ~(1L << bit);
+
+        for(int index = this.heads[word << 6 | bit]; index != END; index = this.next[index]) {
+          renderer.accept(this.commands[index]);
+        }
+      }
+    }
+
+    this.clear();
+  }
+
+  void clear() {
+    Arrays.fill(this.occupied, 0L);
+    Arrays.fill(this.commands, 0, this.count, null);
+    this.count = 0;
+  }
+}
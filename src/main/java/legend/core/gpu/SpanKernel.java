@@ -0,0 +1,58 @@
+package legend.core.gpu;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+
+/**
+ * Rasterizes horizontal spans of a triangle several pixels at a time. Kernels must produce exactly the same pixels as the
+ * scalar loop in {@link Gpu#rasterizeTriangle}, which is used for any triangle a kernel doesn't {@link #supports support}
+ * and for everything when no kernel is available.
+ */
+interface SpanKernel {
+  /** @return false if the triangle must be rasterized by the scalar loop */
+  boolean supports(final TriangleSetup triangle);
+
+  /**
+   * Rasterizes pixels {@code minX} (inclusive) to {@code maxX} (exclusive) of row {@code y}
+   *
+   * @param w0 the edge functions at {@code minX}
+   */
+  void span(final TriangleSetup triangle, final int y, final int minX, final int maxX, final int w0, final int w1, final int w2);
+
+  /**
+   * The Vector API is an incubator module that's only available when the JVM is started with
+   * {@code --add-modules jdk.incubator.vector}, so the kernel is loaded reflectively to keep this class loadable without it.
+   * The scalar loop is the default. To opt in, build with {@code -PvectorSpans}, then run with {@code lod.gpu.vectorSpans} set
+   * to true and the module added. The JVM prints a warning about using an incubator module on startup.
+   *
+   * @return null if the scalar loop should be used
+   */
+  @Nullable
+  static SpanKernel load() {
+    final Logger logger = LogManager.getFormatterLogger(SpanKernel.class);
+
+    if(!Boolean.parseBoolean(System.getProperty("lod.gpu.vectorSpans", "false"))) {
+      logger.info("Vector span rasterization not enabled, using scalar span rasterization");
+      return null;
+    }
+
+    if(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      logger.warn("Vector span rasterization requires --add-modules jdk.incubator.vector, using scalar span rasterization");
+      return null;
+    }
+
+    try {
+      final SpanKernel kernel = (SpanKernel)Class.forName("legend.core.gpu.VectorSpanKernel").getDeclaredConstructor().newInstance();
+      logger.info("Using vector span rasterization");
+      return kernel;
+    } catch(final ClassNotFoundException e) {
+      logger.warn("Vector span rasterization wasn't built, rebuild with -PvectorSpans. Using scalar span rasterization");
+      return null;
+    } catch(final ReflectiveOperationException | LinkageError e) {
+      logger.warn("Failed to load vector span rasterization", e);
+      return null;
+    }
+  }
+}
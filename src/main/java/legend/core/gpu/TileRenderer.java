@@ -0,0 +1,8 @@
+package legend.core.gpu;
+
+/** Returned by {@link GpuCommand#prepareTiled} to render the prepared command one tile at a time */
+@FunctionalInterface
+interface TileRenderer {
+  /** Renders the part of the command that's inside of {@code tile}, may be called from any thread */
+  void renderTile(final Gpu gpu, final Rect4i tile);
+}
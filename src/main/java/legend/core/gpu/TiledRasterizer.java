@@ -0,0 +1,120 @@
+package legend.core.gpu;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Rasterizes the ordering table in parallel by splitting the draw buffer into tiles. Commands are recorded, in ordering table
+ * order, into every tile their bounds overlap, then each tile renders its own commands on a separate core. Every pixel sees
+ * the same commands in the same order as when rendering serially, so the output is identical.
+ *
+ * <p>Commands that can't be split (state changes, VRAM copies, anything that reads back the draw buffer) act as barriers: the
+ * commands recorded so far are rasterized first, then the barrier is rendered on its own.</p>
+ */
+class TiledRasterizer {
+  private static final int TILE_SIZE = 64;
+
+  private final Gpu gpu;
+  private final Rect4i bounds = new Rect4i();
+
+  private int width;
+  private int height;
+  private int tilesX;
+  private Rect4i[] tiles = new Rect4i[0];
+  /** Indices into {@link #renderers} of the commands recorded into each tile */
+  private int[][] tileCommands = new int[0][];
+  private int[] tileCounts = new int[0];
+
+  private TileRenderer[] renderers = new TileRenderer[1024];
+  private int count;
+
+  TiledRasterizer(final Gpu gpu) {
+    this.gpu = gpu;
+  }
+
+  /** Records a command, or renders it immediately if it can't be split */
+  void add(final GpuCommand command) {
+    final VramTextureSingle drawBuffer = this.gpu.getDrawBuffer();
+    if(drawBuffer.rect.w != this.width || drawBuffer.rect.h != this.height) {
+      this.flush();
+      this.resize(drawBuffer.rect.w, drawBuffer.rect.h);
+    }
+
+    final TileRenderer renderer = command.prepareTiled(this.gpu, this.bounds);
+    if(renderer == null) {
+      this.flush();
+      command.render(this.gpu);
+      return;
+    }
+
+    final int minX = Math.max(this.bounds.x, 0);
+    final int minY = Math.max(this.bounds.y, 0);
+    final int maxX = Math.min(this.bounds.x + this.bounds.w, this.width);
+    final int maxY = Math.min(this.bounds.y + this.bounds.h, this.height);
+
+    // Entirely off-screen
+    if(minX >= maxX || minY >= maxY) {
+      return;
+    }
+
+    if(this.count == this.renderers.length) {
+      this.renderers = Arrays.copyOf(this.renderers, this.count * 2);
+    }
+
+    final int index = this.count++;
+    this.renderers[index] = renderer;
+
+    for(int tileY = minY / TILE_SIZE; tileY <= (maxY - 1) / TILE_SIZE; tileY++) {
+      for(int tileX = minX / TILE_SIZE; tileX <= (maxX - 1) / TILE_SIZE; tileX++) {
+        final int tile = tileY * this.tilesX + tileX;
+
+        if(this.tileCounts[tile] == this.tileCommands[tile].length) {
+          this.tileCommands[tile] = Arrays.copyOf(this.tileCommands[tile], this.tileCounts[tile] * 2);
+        }
+
+        this.tileCommands[tile][this.tileCounts[tile]++] = index;
+      }
+    }
+  }
+
+  /** Rasterizes everything that has been recorded */
+  void flush() {
+    if(this.count == 0) {
+      return;
+    }
+
+    IntStream.range(0, this.tiles.length).parallel().forEach(this::renderTile);
+
+    Arrays.fill(this.renderers, 0, this.count, null);
+    Arrays.fill(this.tileCounts, 0);
+    this.count = 0;
+  }
+
+  private void renderTile(final int tile) {
+    final Rect4i rect = this.tiles[tile];
+    final int[] commands = this.tileCommands[tile];
+
+    for(int i = 0; i < this.tileCounts[tile]; i++) {
+      this.renderers[commands[i]].renderTile(this.gpu, rect);
+    }
+  }
+
+  private void resize(final int width, final int height) {
+    this.width = width;
+    this.height = height;
+    this.tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+    final int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+    this.tiles = new Rect4i[this.tilesX * tilesY];
+    this.tileCommands = new int[this.tiles.length][];
+    this.tileCounts = new int[this.tiles.length];
+
+    for(int tileY = 0; tileY < tilesY; tileY++) {
+      for(int tileX = 0; tileX < this.tilesX; tileX++) {
+        final int tile = tileY * this.tilesX + tileX;
+        this.tiles[tile] = new Rect4i(tileX * TILE_SIZE, tileY * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+        this.tileCommands[tile] = new int[64];
+      }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package legend.core.gpu;
+
+import legend.game.types.Translucency;
+
+/**
+ * Everything a {@link SpanKernel} needs to rasterize the rows of one triangle. Each rasterizing thread reuses its own
+ * instance, see {@link Gpu#rasterizeTriangle}.
+ */
+final class TriangleSetup {
+  int area;
+  /** Edge function steps per pixel to the right */
+  int a12;
+  int a20;
+  int a01;
+  int bias0;
+  int bias1;
+  int bias2;
+
+  int c0;
+  int c1;
+  int c2;
+  boolean shaded;
+
+  boolean textured;
+  int tu0;
+  int tu1;
+  int tu2;
+  int tv0;
+  int tv1;
+  int tv2;
+  int clutX;
+  int clutY;
+  int textureBaseX;
+  int textureBaseY;
+  Bpp bpp;
+  boolean raw;
+
+  Translucency translucency;
+  /** Skip pixels whose mask bit is set */
+  boolean checkMask;
+  /** Mask bit to OR into every pixel, already shifted */
+  int maskBit;
+
+  int[] vram15;
+  int[] vram24;
+  int vramWidth;
+  int[] drawBuffer;
+  int drawBufferWidth;
+
+  /** For kernels that need to pass indices to gathers */
+  final int[] scratch = new int[64];
+}
@@ -0,0 +1,176 @@
+package legend.core.gpu;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+import legend.game.types.Translucency;
+
+import static jdk.incubator.vector.VectorOperators.ASHR;
+import static jdk.incubator.vector.VectorOperators.EQ;
+import static jdk.incubator.vector.VectorOperators.F2I;
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.I2F;
+import static jdk.incubator.vector.VectorOperators.LSHL;
+import static jdk.incubator.vector.VectorOperators.LSHR;
+import static jdk.incubator.vector.VectorOperators.LT;
+import static jdk.incubator.vector.VectorOperators.NE;
+
+/**
+ * Rasterizes flat, Gouraud-shaded and VRAM-textured spans one vector of pixels at a time (8 on AVX2, 16 on AVX-512). Only
+ * loaded by {@link SpanKernel#load} when the Vector API is available.
+ *
+ * <p>Interpolation divides by the triangle's area. Integer division isn't vectorised, so quotients are estimated in float and
+ * then corrected to the exact truncated result. Triangles where that estimate could be more than one out, or where the scalar
+ * loop's arithmetic could overflow, are left to the scalar loop.</p>
+ */
+final class VectorSpanKernel implements SpanKernel {
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+  private static final int LANES = SPECIES.length();
+  private static final IntVector IOTA = IntVector.zero(SPECIES).addIndex(1);
+
+  /** Float estimates of quotients below this are never more than one away from the truth */
+  private static final int MAX_QUOTIENT = 1 << 20;
+
+  @Override
+  public boolean supports(final TriangleSetup triangle) {
+    // The edge functions inside of the triangle are non-negative and sum to its area, so interpolated numerators never exceed max(value) * area
+    if(triangle.shaded && 256L * triangle.area > Integer.MAX_VALUE) {
+      return false;
+    }
+
+    if(triangle.textured) {
+      final int min = Math.min(Math.min(Math.min(triangle.tu0, triangle.tu1), Math.min(triangle.tu2, triangle.tv0)), Math.min(triangle.tv1, triangle.tv2));
+      final int max = Math.max(Math.max(Math.max(triangle.tu0, triangle.tu1), Math.max(triangle.tu2, triangle.tv0)), Math.max(triangle.tv1, triangle.tv2));
+
+      return min >= 0 && max < MAX_QUOTIENT && (max + 1L) * triangle.area <= Integer.MAX_VALUE;
+    }
+
+    return true;
+  }
+
+  @Override
+  public void span(final TriangleSetup triangle, final int y, final int minX, final int maxX, final int w0, final int w1, final int w2) {
+    final int rowOffset = y * triangle.drawBufferWidth;
+    final float reciprocal = 1.0f / triangle.area;
+
+    for(int x = minX, i = 0; x < maxX; x += LANES, i += LANES) {
+      final IntVector e0 = IOTA.mul(triangle.a12).add(w0 + i * triangle.a12);
+      final IntVector e1 = IOTA.mul(triangle.a20).add(w1 + i * triangle.a20);
+      final IntVector e2 = IOTA.mul(triangle.a01).add(w2 + i * triangle.a01);
+
+      VectorMask<Integer> active = SPECIES.indexInRange(x, maxX).and(e0.add(triangle.bias0).or(e1.add(triangle.bias1)).or(e2.add(triangle.bias2)).compare(GE, 0));
+
+      if(triangle.checkMask && active.anyTrue()) {
+        final IntVector vram = IntVector.fromArray(SPECIES, triangle.vram24, y * triangle.vramWidth + x, active);
+        active = active.and(vram.and(0xff00_0000).compare(EQ, 0));
+      }
+
+      if(!active.anyTrue()) {
+        continue;
+      }
+
+      IntVector colour;
+      if(triangle.shaded) {
+        final IntVector r = interpolate(e0, e1, e2, triangle.c0 & 0xff, triangle.c1 & 0xff, triangle.c2 & 0xff, triangle.area, reciprocal);
+        final IntVector g = interpolate(e0, e1, e2, triangle.c0 >>> 8 & 0xff, triangle.c1 >>> 8 & 0xff, triangle.c2 >>> 8 & 0xff, triangle.area, reciprocal);
+        final IntVector b = interpolate(e0, e1, e2, triangle.c0 >>> 16 & 0xff, triangle.c1 >>> 16 & 0xff, triangle.c2 >>> 16 & 0xff, triangle.area, reciprocal);
+        colour = b.lanewise(LSHL, 16).or(g.lanewise(LSHL, 8)).or(r);
+      } else {
+        colour = IntVector.broadcast(SPECIES, triangle.c0);
+      }
+
+      if(triangle.textured) {
+        IntVector texel = this.fetchTexels(triangle, e0, e1, e2, reciprocal, active);
+        active = active.and(texel.compare(NE, 0));
+
+        if(!active.anyTrue()) {
+          continue;
+        }
+
+        if(!triangle.raw) {
+          texel = applyBlending(colour, texel);
+        }
+
+        colour = texel;
+      }
+
+      if(triangle.translucency != null) {
+        VectorMask<Integer> translucent = active;
+        if(triangle.textured) {
+          translucent = translucent.and(colour.and(0xff00_0000).compare(NE, 0));
+        }
+
+        if(translucent.anyTrue()) {
+          final IntVector background = IntVector.fromArray(SPECIES, triangle.drawBuffer, rowOffset + x, translucent);
+          colour = colour.blend(handleTranslucence(background, colour, triangle.translucency), translucent);
+        }
+      }
+
+      colour.or(triangle.maskBit).intoArray(triangle.drawBuffer, rowOffset + x, active);
+    }
+  }
+
+  /** Same as {@link Gpu#getTexel} for every active lane */
+  private IntVector fetchTexels(final TriangleSetup triangle, final IntVector e0, final IntVector e1, final IntVector e2, final float reciprocal, final VectorMask<Integer> active) {
+    final Bpp bpp = triangle.bpp;
+    final IntVector u = interpolate(e0, e1, e2, triangle.tu0, triangle.tu1, triangle.tu2, triangle.area, reciprocal);
+    final IntVector v = interpolate(e0, e1, e2, triangle.tv0, triangle.tv1, triangle.tv2, triangle.area, reciprocal);
+
+    // u is never negative so shifting is the same as dividing
+    final IntVector indexAddress = v.add(triangle.textureBaseY).mul(triangle.vramWidth).add(u.lanewise(ASHR, Integer.numberOfTrailingZeros(bpp.widthDivisor))).add(triangle.textureBaseX);
+    final IntVector index = gather(triangle.vram15, indexAddress, active, triangle.scratch);
+    final IntVector p = index.lanewise(ASHR, u.and(bpp.widthMask).lanewise(LSHL, bpp.indexShift)).and(bpp.indexMask);
+    return gather(triangle.vram24, p.add(triangle.clutY * triangle.vramWidth + triangle.clutX), active, triangle.scratch);
+  }
+
+  private static IntVector gather(final int[] array, final IntVector indices, final VectorMask<Integer> active, final int[] scratch) {
+    indices.intoArray(scratch, 0);
+    return IntVector.fromArray(SPECIES, array, 0, scratch, 0, active);
+  }
+
+  /** {@code (t0 * e0 + t1 * e1 + t2 * e2) / area}, see {@link #supports} for why this can't overflow */
+  private static IntVector interpolate(final IntVector e0, final IntVector e1, final IntVector e2, final int t0, final int t1, final int t2, final int area, final float reciprocal) {
+    return divide(e0.mul(t0).add(e1.mul(t1)).add(e2.mul(t2)), area, reciprocal);
+  }
+
+  /** Exact {@code n / d} for non-negative {@code n} with quotients below {@link #MAX_QUOTIENT} */
+  private static IntVector divide(final IntVector n, final int d, final float reciprocal) {
+    IntVector q = (IntVector)((FloatVector)n.convert(I2F, 0)).mul(reciprocal).convert(F2I, 0);
+    q = q.sub(1, n.sub(q.mul(d)).compare(LT, 0));
+    return q.add(1, n.sub(q.mul(d)).compare(GE, d));
+  }
+
+  /** Same as {@link Gpu#applyBlending} */
+  private static IntVector applyBlending(final IntVector colour, final IntVector texel) {
+    final IntVector r = colour.and(0xff).mul(texel.and(0xff)).lanewise(LSHR, 7).min(0xff);
+    final IntVector g = colour.lanewise(LSHR, 8).and(0xff).mul(texel.lanewise(LSHR, 8).and(0xff)).lanewise(LSHR, 7).min(0xff);
+    final IntVector b = colour.lanewise(LSHR, 16).and(0xff).mul(texel.lanewise(LSHR, 16).and(0xff)).lanewise(LSHR, 7).min(0xff);
+    return texel.and(0xff00_0000).or(b.lanewise(LSHL, 16)).or(g.lanewise(LSHL, 8)).or(r);
+  }
+
+  /** Same as {@link Gpu#handleTranslucence} */
+  private static IntVector handleTranslucence(final IntVector background, final IntVector foreground, final Translucency mode) {
+    final IntVector r = blendChannel(background.and(0xff), foreground.and(0xff), mode);
+    final IntVector g = blendChannel(background.lanewise(LSHR, 8).and(0xff), foreground.lanewise(LSHR, 8).and(0xff), mode);
+    final IntVector b = blendChannel(background.lanewise(LSHR, 16).and(0xff), foreground.lanewise(LSHR, 16).and(0xff), mode);
+    return foreground.lanewise(LSHR, 24).and(0x1).lanewise(LSHL, 24).or(b.lanewise(LSHL, 16)).or(g.lanewise(LSHL, 8)).or(r);
+  }
+
+  /** Channels are never negative, so shifts are the same as the scalar divisions */
+  private static IntVector blendChannel(final IntVector b, final IntVector f, final Translucency mode) {
+    return switch(mode) {
+      case HALF_B_PLUS_HALF_F -> b.add(f).lanewise(LSHR, 1);
+      case B_PLUS_F -> b.add(f).min(0xff);
+      case B_MINUS_F -> b.sub(f).max(0);
+      case B_PLUS_QUARTER_F -> b.add(f.lanewise(LSHR, 2)).min(0xff);
+      case FULL_BACKGROUND -> b;
+      case TQUATER_B_FOREGROUND -> b.mul(3).lanewise(LSHR, 2).add(f).min(0xff);
+      case HALF_B_FOREGROUND -> b.lanewise(LSHR, 1).add(f).min(0xff);
+      case QUARTER_B_FOREGROUND -> b.lanewise(LSHR, 2).add(f).min(0xff);
+      case FULL_FOREGROUND -> f;
+      case QUARTER_B_QUARTER_F -> b.add(f).lanewise(LSHR, 2);
+      case TQUARTER_B_TQUARTER_F -> b.mul(3).lanewise(LSHR, 2).add(f.mul(3).lanewise(LSHR, 2)).min(0xff);
+    };
+  }
+}
@@ -0,0 +1,223 @@
+package legend.core.opengl;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL11C.GL_BLEND;
+import static org.lwjgl.opengl.GL11C.GL_CULL_FACE;
+import static org.lwjgl.opengl.GL11C.GL_DEPTH_TEST;
+import static org.lwjgl.opengl.GL11C.GL_SCISSOR_TEST;
+import static org.lwjgl.opengl.GL11C.glBlendFunc;
+import static org.lwjgl.opengl.GL11C.glDepthFunc;
+import static org.lwjgl.opengl.GL11C.glDepthMask;
+import static org.lwjgl.opengl.GL11C.glDisable;
+import static org.lwjgl.opengl.GL11C.glEnable;
+import static org.lwjgl.opengl.GL11C.glScissor;
+import static org.lwjgl.opengl.GL14C.glBlendEquation;
+import static org.lwjgl.opengl.GL20C.glUseProgram;
+import static org.lwjgl.opengl.GL30C.glBindVertexArray;
+
+/**
+ * Tracks the GL state that model rendering touches so that redundant calls can be skipped. Plenty of code still changes GL
+ * state directly, so calls are only skipped between {@link #begin} and {@link #end}, and everything is assumed unknown at
+ * {@link #begin}. Outside of that window every call goes straight through to GL.
+ */
+public final class GlState {
+  private GlState() { }
+
+  private static final int UNKNOWN = -1;
+  private static final int[] CAPABILITIES = {GL_BLEND, GL_CULL_FACE, GL_DEPTH_TEST, GL_SCISSOR_TEST};
+
+  private static boolean tracking;
+  /** Incremented on every {@link #begin}, cached uniform values from older generations are stale */
+  private static int generation;
+
+  private static int program;
+  private static int vertexArray;
+  private static final int[] enabled = new int[CAPABILITIES.length];
+  private static int depthFunc;
+  private static int depthMask;
+  private static int blendEquation;
+  private static int blendSrc;
+  private static int blendDst;
+  private static int scissorX;
+  private static int scissorY;
+  private static int scissorW;
+  private static int scissorH;
+
+  private static int changes;
+  private static int redundant;
+  private static int lastChanges;
+  private static int lastRedundant;
+
+  static {
+    invalidate();
+  }
+
+  /** Starts skipping redundant calls, GL state is assumed to be unknown */
+  public static void begin() {
+    invalidate();
+    tracking = true;
+    generation++;
+    changes = 0;
+    redundant = 0;
+  }
+
+  public static void end() {
+    tracking = false;
+    lastChanges = changes;
+    lastRedundant = redundant;
+  }
+
+  /** State changes made between the last {@link #begin} and {@link #end} */
+  public static int getStateChanges() {
+    return lastChanges;
+  }
+
+  /** Redundant calls skipped between the last {@link #begin} and {@link #end} */
+  public static int getRedundantCalls() {
+    return lastRedundant;
+  }
+
+  private static void invalidate() {
+    program = UNKNOWN;
+    vertexArray = UNKNOWN;
+    Arrays.fill(enabled, UNKNOWN);
+    depthFunc = UNKNOWN;
+    depthMask = UNKNOWN;
+    blendEquation = UNKNOWN;
+    blendSrc = UNKNOWN;
+    blendDst = UNKNOWN;
+    scissorX = UNKNOWN;
+    scissorY = UNKNOWN;
+    scissorW = UNKNOWN;
+    scissorH = UNKNOWN;
+  }
+
+  static int generation() {
+    return tracking ? generation : UNKNOWN;
+  }
+
+  /** Records a call that was skipped because it wouldn't have changed anything */
+  static void skipped() {
+    if(tracking) {
+      redundant++;
+    }
+  }
+
+  /** Records a call that changed GL state */
+  static void changed() {
+    if(tracking) {
+      changes++;
+    }
+  }
+
+  /** @return true if the call should be made */
+  private static boolean update(final boolean same) {
+    if(tracking && same) {
+      redundant++;
+      return false;
+    }
+
+    changed();
+    return true;
+  }
+
+  public static void useProgram(final int program) {
+    if(update(GlState.program == program)) {
+      GlState.program = program;
+      glUseProgram(program);
+    }
+  }
+
+  public static void bindVertexArray(final int vertexArray) {
+    if(update(GlState.vertexArray == vertexArray)) {
+      GlState.vertexArray = vertexArray;
+      glBindVertexArray(vertexArray);
+    }
+  }
+
+  public static void enable(final int capability) {
+    set(capability, true);
+  }
+
+  public static void disable(final int capability) {
+    set(capability, false);
+  }
+
+  public static void set(final int capability, final boolean enable) {
+    final int index = capabilityIndex(capability);
+
+    if(index == -1) {
+      changed();
+
+      if(enable) {
+        glEnable(capability);
+      } else {
+        glDisable(capability);
+      }
+
+      return;
+    }
+
+    final int value = enable ? 1 : 0;
+    if(update(enabled[index] == value)) {
+      enabled[index] = value;
+
+      if(enable) {
+        glEnable(capability);
+      } else {
+        glDisable(capability);
+      }
+    }
+  }
+
+  public static void depthFunc(final int func) {
+    if(update(depthFunc == func)) {
+      depthFunc = func;
+      glDepthFunc(func);
+    }
+  }
+
+  public static void depthMask(final boolean mask) {
+    final int value = mask ? 1 : 0;
+    if(update(depthMask == value)) {
+      depthMask = value;
+      glDepthMask(mask);
+    }
+  }
+
+  public static void blendEquation(final int equation) {
+    if(update(blendEquation == equation)) {
+      blendEquation = equation;
+      glBlendEquation(equation);
+    }
+  }
+
+  public static void blendFunc(final int src, final int dst) {
+    if(update(blendSrc == src && blendDst == dst)) {
+      blendSrc = src;
+      blendDst = dst;
+      glBlendFunc(src, dst);
+    }
+  }
+
+  public static void scissor(final int x, final int y, final int w, final int h) {
+    if(update(scissorX == x && scissorY == y && scissorW == w && scissorH == h)) {
+      scissorX = x;
+      scissorY = y;
+      scissorW = w;
+      scissorH = h;
+      glScissor(x, y, w, h);
+    }
+  }
+
+  private static int capabilityIndex(final int capability) {
+    for(int i = 0; i < CAPABILITIES.length; i++) {
+      if(CAPABILITIES[i] == capability) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+}
@@ -0,0 +1,78 @@
+package legend.core.opengl;
+
+import java.util.function.LongConsumer;
+
+import static org.lwjgl.opengl.GL15C.GL_QUERY_RESULT;
+import static org.lwjgl.opengl.GL15C.GL_QUERY_RESULT_AVAILABLE;
+import static org.lwjgl.opengl.GL15C.glBeginQuery;
+import static org.lwjgl.opengl.GL15C.glDeleteQueries;
+import static org.lwjgl.opengl.GL15C.glEndQuery;
+import static org.lwjgl.opengl.GL15C.glGenQueries;
+import static org.lwjgl.opengl.GL15C.glGetQueryObjecti;
+import static org.lwjgl.opengl.GL33C.GL_TIME_ELAPSED;
+import static org.lwjgl.opengl.GL33C.glGetQueryObjecti64;
+
+/**
+ * Measures how long the GPU spends on the commands issued between {@link #begin} and {@link #end}. Results are read a few
+ * frames later by {@link #poll} once they're available, so measuring never stalls the pipeline. If the GPU falls so far behind
+ * that every query is still waiting for a result, frames go unmeasured until one frees up.
+ *
+ * <p>Only one timer may be running at a time.</p>
+ */
+public class GpuTimer {
+  private static final int FRAMES = 4;
+
+  private final int[] queries = new int[FRAMES];
+  private final boolean[] pending = new boolean[FRAMES];
+
+  /** The query that the next {@link #begin} will use */
+  private int current;
+  private boolean running;
+
+  public GpuTimer() {
+    glGenQueries(this.queries);
+  }
+
+  public void begin() {
+    if(this.pending[this.current]) {
+      return;
+    }
+
+    glBeginQuery(GL_TIME_ELAPSED, this.queries[this.current]);
+    this.running = true;
+  }
+
+  public void end() {
+    if(!this.running) {
+      return;
+    }
+
+    glEndQuery(GL_TIME_ELAPSED);
+    this.pending[this.current] = true;
+    this.current = (this.current + 1) % FRAMES;
+    this.running = false;
+  }
+
+  /** Passes the elapsed nanoseconds of every finished measurement to {@code results}, oldest first */
+  public void poll(final LongConsumer results) {
+    for(int i = 0; i < FRAMES; i++) {
+      final int query = (this.current + i) % FRAMES;
+
+      if(!this.pending[query]) {
+        continue;
+      }
+
+      // Queries finish in the order they were issued, so there's no point checking any newer ones
+      if(glGetQueryObjecti(this.queries[query], GL_QUERY_RESULT_AVAILABLE) == 0) {
+        break;
+      }
+
+      results.accept(glGetQueryObjecti64(this.queries[query], GL_QUERY_RESULT));
+      this.pending[query] = false;
+    }
+  }
+
+  public void delete() {
+    glDeleteQueries(this.queries);
+  }
+}
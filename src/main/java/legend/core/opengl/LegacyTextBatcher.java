@@ -0,0 +1,124 @@
+package legend.core.opengl;
+
+import legend.core.RenderEngine;
+import legend.core.gte.MV;
+import legend.game.types.Translucency;
+import org.lwjgl.BufferUtils;
+
+import javax.annotation.Nullable;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import static legend.core.GameEngine.RENDERER;
+import static legend.core.opengl.LegacyTextBuilder.setVertex;
+import static legend.core.opengl.TmdObjLoader.VERTEX_SIZE;
+import static org.lwjgl.opengl.GL11C.GL_TRIANGLES;
+
+/**
+ * Collects the glyphs of legacy text into one vertex buffer that's shared by all of the text in a frame, so that a whole string
+ * or textbox is a single queued model rather than one per character. Colours, shadows, and clipping are baked into the
+ * vertices. The buffer is only uploaded again when the frame's glyphs differ from the last upload.
+ */
+public class LegacyTextBatcher {
+  private static final int VERTICES_PER_GLYPH = 6;
+
+  private final Mesh mesh;
+  private final MeshObj obj;
+
+  private float[] vertices = new float[256 * VERTICES_PER_GLYPH * VERTEX_SIZE];
+  private int length;
+  private float[] uploaded = new float[0];
+  private int uploadedLength;
+  private FloatBuffer buffer = BufferUtils.createFloatBuffer(0);
+
+  /** The first vertex of the batch being built */
+  private int batchStart;
+
+  public LegacyTextBatcher(final String name) {
+    this.mesh = new Mesh(GL_TRIANGLES);
+    LegacyTextBuilder.setAttributes(this.mesh);
+
+    final Mesh[] meshes = new Mesh[Translucency.values().length + 1];
+    meshes[0] = this.mesh;
+    this.obj = new MeshObj(name, meshes, false);
+    this.obj.persistent = true;
+  }
+
+  /** Starts a new batch, glyph positions are relative to the transforms that the batch is queued with */
+  public void begin() {
+    this.batchStart = this.length / VERTEX_SIZE;
+  }
+
+  public void glyph(final int chr, final float x, final float y, final float r, final float g, final float b) {
+    this.glyph(chr, x, y, 0, r, g, b);
+  }
+
+  /** @param clipTop the number of rows to cut off the top of the glyph */
+  public void glyph(final int chr, final float x, final float y, final int clipTop, final float r, final float g, final float b) {
+    if(clipTop >= 12) {
+      return;
+    }
+
+    if(this.length + VERTICES_PER_GLYPH * VERTEX_SIZE > this.vertices.length) {
+      this.vertices = Arrays.copyOf(this.vertices, this.vertices.length * 2);
+    }
+
+    final float u0 = (chr & 0xf) * 16;
+    final float v0 = chr / 16 * 12 + clipTop;
+    final float u1 = u0 + 8.0f;
+    final float v1 = chr / 16 * 12 + 12.0f;
+    final float y0 = y + clipTop;
+    final float y1 = y + 12.0f;
+
+    int offset = this.length;
+    offset = setVertex(offset, this.vertices, x, y0, u0, v0, r, g, b);
+    offset = setVertex(offset, this.vertices, x, y1, u0, v1, r, g, b);
+    offset = setVertex(offset, this.vertices, x + 8.0f, y0, u1, v0, r, g, b);
+    offset = setVertex(offset, this.vertices, x + 8.0f, y0, u1, v0, r, g, b);
+    offset = setVertex(offset, this.vertices, x, y1, u0, v1, r, g, b);
+    offset = setVertex(offset, this.vertices, x + 8.0f, y1, u1, v1, r, g, b);
+    this.length = offset;
+  }
+
+  /** Queues every glyph added since {@link #begin} as a single ortho model, or nothing if there weren't any */
+  @Nullable
+  public RenderEngine.QueuedModel<VoidShaderOptions> queue(final MV transforms) {
+    final int vertexCount = this.length / VERTEX_SIZE - this.batchStart;
+
+    if(vertexCount == 0) {
+      return null;
+    }
+
+    return RENDERER.queueOrthoModel(this.obj, transforms)
+      .vertices(this.batchStart, vertexCount);
+  }
+
+  /** Uploads this frame's glyphs if they've changed, must be called before the queued text is rendered */
+  public void upload() {
+    if(Arrays.equals(this.vertices, 0, this.length, this.uploaded, 0, this.uploadedLength)) {
+      return;
+    }
+
+    if(this.uploaded.length < this.length) {
+      this.uploaded = new float[this.vertices.length];
+    }
+
+    System.arraycopy(this.vertices, 0, this.uploaded, 0, this.length);
+    this.uploadedLength = this.length;
+
+    if(this.buffer.capacity() < this.length) {
+      this.buffer = BufferUtils.createFloatBuffer(this.vertices.length);
+    }
+
+    this.buffer.clear();
+    this.buffer.put(this.vertices, 0, this.length);
+    this.buffer.flip();
+    this.mesh.data(this.buffer, this.length / VERTEX_SIZE);
+  }
+
+  /** Discards this frame's glyphs, the last upload is kept so that an identical frame doesn't need another */
+  public void reset() {
+    this.length = 0;
+    this.batchStart = 0;
+  }
+}
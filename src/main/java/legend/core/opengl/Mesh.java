@@ -3,12 +3,16 @@ package legend.core.opengl;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
 import static org.lwjgl.opengl.GL11C.GL_FLOAT;
 import static org.lwjgl.opengl.GL11C.GL_UNSIGNED_INT;
 import static org.lwjgl.opengl.GL11C.glDrawArrays;
 import static org.lwjgl.opengl.GL11C.glDrawElements;
 import static org.lwjgl.opengl.GL12C.glDrawRangeElements;
 import static org.lwjgl.opengl.GL15C.GL_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL15C.GL_DYNAMIC_DRAW;
 import static org.lwjgl.opengl.GL15C.GL_ELEMENT_ARRAY_BUFFER;
 import static org.lwjgl.opengl.GL15C.GL_STATIC_DRAW;
 import static org.lwjgl.opengl.GL15C.glBindBuffer;
@@ -17,20 +21,28 @@ import static org.lwjgl.opengl.GL15C.glDeleteBuffers;
 import static org.lwjgl.opengl.GL15C.glGenBuffers;
 import static org.lwjgl.opengl.GL20C.glEnableVertexAttribArray;
 import static org.lwjgl.opengl.GL20C.glVertexAttribPointer;
-import static org.lwjgl.opengl.GL30C.glBindVertexArray;
 import static org.lwjgl.opengl.GL30C.glDeleteVertexArrays;
 import static org.lwjgl.opengl.GL30C.glGenVertexArrays;
+import static org.lwjgl.opengl.GL31C.glDrawArraysInstanced;
+import static org.lwjgl.opengl.GL31C.glDrawElementsInstanced;
 
 public class Mesh {
   private static final Int2ObjectMap<Mesh> usedVaos = new Int2ObjectOpenHashMap<>();
   private static final Int2ObjectMap<Mesh> usedVbos = new Int2ObjectOpenHashMap<>();
+  private static long totalVramBytes;
+
+  /** Bytes allocated by the buffers of every live mesh */
+  public static long getTotalVramBytes() {
+    return totalVramBytes;
+  }
 
   private final int vao;
   private final int vbo;
   private final int ebo;
-  private final int count;
+  private int count;
   private final int mode;
   private final boolean useIndices;
+  private long vramBytes;
 
   private boolean deleted;
 
@@ -40,7 +52,7 @@ public class Mesh {
     this.useIndices = true;
 
     this.vao = glGenVertexArrays();
-    glBindVertexArray(this.vao);
+    GlState.bindVertexArray(this.vao);
 
     this.vbo = glGenBuffers();
     glBindBuffer(GL_ARRAY_BUFFER, this.vbo);
@@ -49,8 +61,41 @@ public class Mesh {
     this.ebo = glGenBuffers();
     glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, this.ebo);
     glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
+    this.setVramBytes((long)vertexData.length * Float.BYTES + (long)indices.length * Integer.BYTES);
+
+    GlState.bindVertexArray(0);
+
+    if(usedVaos.containsKey(this.vao)) {
+      throw new RuntimeException("Allocated already-used VAO " + this.vao);
+    }
+
+    if(usedVbos.containsKey(this.vbo)) {
+      throw new RuntimeException("Allocated already-used VBO " + this.vbo);
+    }
+
+    usedVaos.put(this.vao, this);
+    usedVbos.put(this.vbo, this);
+  }
+
+  /** Uploads vertices and indices straight from buffers in native byte order. The data is copied, so the buffers may be freed once this returns */
+  public Mesh(final int mode, final ByteBuffer vertexData, final ByteBuffer indexData, final int indexCount) {
+    this.count = indexCount;
+    this.mode = mode;
+    this.useIndices = true;
+
+    this.vao = glGenVertexArrays();
+    GlState.bindVertexArray(this.vao);
+
+    this.vbo = glGenBuffers();
+    glBindBuffer(GL_ARRAY_BUFFER, this.vbo);
+    glBufferData(GL_ARRAY_BUFFER, vertexData, GL_STATIC_DRAW);
 
-    glBindVertexArray(0);
+    this.ebo = glGenBuffers();
+    glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, this.ebo);
+    glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexData, GL_STATIC_DRAW);
+    this.setVramBytes(vertexData.remaining() + indexData.remaining());
+
+    GlState.bindVertexArray(0);
 
     if(usedVaos.containsKey(this.vao)) {
       throw new RuntimeException("Allocated already-used VAO " + this.vao);
@@ -70,15 +115,16 @@ public class Mesh {
     this.useIndices = false;
 
     this.vao = glGenVertexArrays();
-    glBindVertexArray(this.vao);
+    GlState.bindVertexArray(this.vao);
 
     this.vbo = glGenBuffers();
     glBindBuffer(GL_ARRAY_BUFFER, this.vbo);
     glBufferData(GL_ARRAY_BUFFER, vertexData, GL_STATIC_DRAW);
+    this.setVramBytes((long)vertexData.length * Float.BYTES);
 
     this.ebo = -1;
 
-    glBindVertexArray(0);
+    GlState.bindVertexArray(0);
 
     if(usedVaos.containsKey(this.vao)) {
       throw new RuntimeException("Allocated already-used VAO " + this.vao);
@@ -92,7 +138,63 @@ public class Mesh {
     usedVbos.put(this.vbo, this);
   }
 
+  /** Creates a mesh with no vertices, they're uploaded (and may be replaced) later using {@link #data} */
+  public Mesh(final int mode) {
+    this.count = 0;
+    this.mode = mode;
+    this.useIndices = false;
+
+    this.vao = glGenVertexArrays();
+    GlState.bindVertexArray(this.vao);
+
+    this.vbo = glGenBuffers();
+    glBindBuffer(GL_ARRAY_BUFFER, this.vbo);
+    glBufferData(GL_ARRAY_BUFFER, 0L, GL_DYNAMIC_DRAW);
+
+    this.ebo = -1;
+
+    GlState.bindVertexArray(0);
+
+    if(usedVaos.containsKey(this.vao)) {
+      throw new RuntimeException("Allocated already-used VAO " + this.vao);
+    }
+
+    if(usedVbos.containsKey(this.vbo)) {
+      throw new RuntimeException("Allocated already-used VBO " + this.vbo);
+    }
+
+    usedVaos.put(this.vao, this);
+    usedVbos.put(this.vbo, this);
+  }
+
+  /** Replaces the vertices of a mesh created with {@link #Mesh(int)} */
+  public void data(final FloatBuffer vertexData, final int vertexCount) {
+    if(this.useIndices) {
+      throw new IllegalStateException("Can't replace the vertices of an indexed mesh");
+    }
+
+    glBindBuffer(GL_ARRAY_BUFFER, this.vbo);
+    glBufferData(GL_ARRAY_BUFFER, vertexData, GL_DYNAMIC_DRAW);
+    this.setVramBytes((long)vertexData.remaining() * Float.BYTES);
+    this.count = vertexCount;
+  }
+
+  /** Bytes allocated by this mesh's buffers */
+  public long getVramBytes() {
+    return this.vramBytes;
+  }
+
+  private void setVramBytes(final long bytes) {
+    totalVramBytes += bytes - this.vramBytes;
+    this.vramBytes = bytes;
+  }
+
   public void delete() {
+    // Meshes may be shared between objs, e.g. by StreamingMesh
+    if(this.deleted) {
+      return;
+    }
+
     this.deleted = true;
 
     if(this.ebo != -1) {
@@ -104,13 +206,14 @@ public class Mesh {
 
     usedVaos.remove(this.vao);
     usedVbos.remove(this.vbo);
+    this.setVramBytes(0);
   }
 
   public void attribute(final int index, final long offset, final int size, final int stride) {
-    glBindVertexArray(this.vao);
+    GlState.bindVertexArray(this.vao);
     glVertexAttribPointer(index, size, GL_FLOAT, false, stride * Float.BYTES, offset * Float.BYTES);
     glEnableVertexAttribArray(index);
-    glBindVertexArray(0);
+    GlState.bindVertexArray(0);
   }
 
   public void draw() {
@@ -118,7 +221,7 @@ public class Mesh {
       return;
     }
 
-    glBindVertexArray(this.vao);
+    GlState.bindVertexArray(this.vao);
 
     if(this.useIndices) {
       glDrawElements(this.mode, this.count, GL_UNSIGNED_INT, 0L);
@@ -137,7 +240,7 @@ public class Mesh {
       return;
     }
 
-    glBindVertexArray(this.vao);
+    GlState.bindVertexArray(this.vao);
 
     if(this.useIndices) {
       glDrawRangeElements(this.mode, start, start + count - 1, count, GL_UNSIGNED_INT, 0L);
@@ -145,4 +248,30 @@ public class Mesh {
       glDrawArrays(this.mode, start, count);
     }
   }
+
+  /** Draws {@code instanceCount} copies of the mesh, shaders tell them apart by {@code gl_InstanceID} */
+  public void draw(final int start, final int count, final int instanceCount) {
+    if(instanceCount == 1) {
+      this.draw(start, count);
+      return;
+    }
+
+    if(this.deleted) {
+      return;
+    }
+
+    GlState.bindVertexArray(this.vao);
+
+    if(count == 0) {
+      if(this.useIndices) {
+        glDrawElementsInstanced(this.mode, this.count, GL_UNSIGNED_INT, 0L, instanceCount);
+      } else {
+        glDrawArraysInstanced(this.mode, 0, this.count, instanceCount);
+      }
+    } else if(this.useIndices) {
+      glDrawElementsInstanced(this.mode, count, GL_UNSIGNED_INT, 0L, instanceCount);
+    } else {
+      glDrawArraysInstanced(this.mode, start, count, instanceCount);
+    }
+  }
 }
@@ -0,0 +1,215 @@
+package legend.core.opengl;
+
+import legend.core.gte.TmdObjTable1c;
+import legend.game.types.Translucency;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Vector3f;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+import static legend.core.opengl.TmdObjLoader.VERTEX_SIZE;
+import static org.lwjgl.opengl.GL11C.GL_TRIANGLES;
+import static org.lwjgl.system.MemoryUtil.memAlloc;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * Stores the vertex and index buffers that {@link TmdObjLoader} converts TMD objects into, so that later loads of the same
+ * object can skip the conversion and upload the buffers straight from the file's contents. Entries are keyed by a hash of everything
+ * that the conversion reads. Files are written in native byte order and anything that doesn't match (including files from a
+ * machine with a different byte order) is treated as a miss and rewritten.
+ *
+ * <p>File layout: magic, version, flags, mesh count, then the float and index counts of each mesh, then each mesh's vertices
+ * followed by its indices. Meshes with no vertices are absent.</p>
+ */
+final class MeshCache {
+  private MeshCache() { }
+
+  private static final Logger LOGGER = LogManager.getFormatterLogger(MeshCache.class);
+
+  private static final Path DIR = Path.of("./cache/meshes");
+  private static final int MAGIC = 0x434d_4454; // TDMC
+  /** Must be bumped whenever the conversion or file layout changes */
+  private static final int VERSION = 1;
+  private static final int BACKFACE_CULLING_FLAG = 0x1;
+  private static final int HEADER_SIZE = 4 * Integer.BYTES;
+  private static final int MESH_COUNT = Translucency.values().length + 1;
+
+  /** A 64-bit hash of the object and the options it's converted with */
+  static long key(final TmdObjTable1c objTable, final int specialFlags, final int textureWidth, final int textureHeight) {
+    int size = 4 * Integer.BYTES + (objTable.vert_top_00.length + objTable.normal_top_08.length) * 3 * Float.BYTES;
+    for(final TmdObjTable1c.Primitive primitive : objTable.primitives_10) {
+      size += Integer.BYTES + primitive.data().length * primitive.width();
+    }
+
+    final ByteBuffer data = ByteBuffer.allocate(size);
+    data.putInt(specialFlags).putInt(textureWidth).putInt(textureHeight).putInt(VERSION);
+
+    for(final Vector3f vertex : objTable.vert_top_00) {
+      data.putFloat(vertex.x).putFloat(vertex.y).putFloat(vertex.z);
+    }
+
+    for(final Vector3f normal : objTable.normal_top_08) {
+      data.putFloat(normal.x).putFloat(normal.y).putFloat(normal.z);
+    }
+
+    for(final TmdObjTable1c.Primitive primitive : objTable.primitives_10) {
+      data.putInt(primitive.header());
+
+      for(final byte[] packet : primitive.data()) {
+        data.put(packet);
+      }
+    }
+
+    // Two different CRCs make collisions between the thousands of cached objects vanishingly unlikely
+    final CRC32 crc = new CRC32();
+    final CRC32C crcC = new CRC32C();
+    crc.update(data.array());
+    crcC.update(data.array());
+    return crc.getValue() << 32 | crcC.getValue();
+  }
+
+  /** @return null if there's no valid entry for the key */
+  @Nullable
+  static MeshObj load(final String name, final long key) {
+    final Path file = file(key);
+
+    if(!Files.isRegularFile(file)) {
+      return null;
+    }
+
+    ByteBuffer data = null;
+    try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+
+      if(size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+        return null;
+      }
+
+      data = memAlloc((int)size);
+      while(data.hasRemaining() && channel.read(data) != -1) {
+      }
+
+      data.flip();
+    } catch(final IOException e) {
+      LOGGER.warn("Failed to read cached mesh %s", file, e);
+
+      if(data != null) {
+        memFree(data);
+      }
+
+      return null;
+    }
+
+    // The meshes are copied to the GPU when they're built so the file contents aren't needed after this
+    try {
+      return createObj(name, data.order(ByteOrder.nativeOrder()));
+    } finally {
+      memFree(data);
+    }
+  }
+
+  @Nullable
+  private static MeshObj createObj(final String name, final ByteBuffer data) {
+    if(data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+      return null;
+    }
+
+    final int flags = data.getInt(8);
+    final int meshCount = data.getInt(12);
+    int offset = HEADER_SIZE + meshCount * 2 * Integer.BYTES;
+
+    if(meshCount != MESH_COUNT || data.limit() < offset) {
+      return null;
+    }
+
+    // Validate everything before allocating any GL objects
+    long end = offset;
+    for(int i = 0; i < meshCount; i++) {
+      final int floatCount = data.getInt(HEADER_SIZE + i * 8);
+
+      if(floatCount % VERTEX_SIZE != 0) {
+        return null;
+      }
+
+      end += (floatCount + (long)data.getInt(HEADER_SIZE + i * 8 + 4)) * 4;
+    }
+
+    if(end != data.limit()) {
+      return null;
+    }
+
+    final Mesh[] meshes = new Mesh[meshCount];
+
+    for(int i = 0; i < meshCount; i++) {
+      final int vertexSize = data.getInt(HEADER_SIZE + i * 8) * Float.BYTES;
+      final int indexCount = data.getInt(HEADER_SIZE + i * 8 + 4);
+
+      if(vertexSize != 0) {
+        final ByteBuffer vertices = data.slice(offset, vertexSize);
+        final ByteBuffer indices = data.slice(offset + vertexSize, indexCount * Integer.BYTES);
+        meshes[i] = new Mesh(GL_TRIANGLES, vertices, indices, indexCount);
+        TmdObjLoader.setAttributes(meshes[i]);
+      }
+
+      offset += vertexSize + indexCount * Integer.BYTES;
+    }
+
+    return new MeshObj(name, meshes, (flags & BACKFACE_CULLING_FLAG) != 0);
+  }
+
+  /**
+   * @param vertexCounts the number of floats used in each array of {@code vertices}
+   * @param indexCounts the number of indices used in each array of {@code indices}
+   */
+  static void store(final long key, final float[][] vertices, final int[] vertexCounts, final int[][] indices, final int[] indexCounts, final boolean backfaceCulling) {
+    int size = HEADER_SIZE + vertices.length * 2 * Integer.BYTES;
+    for(int i = 0; i < vertices.length; i++) {
+      size += (vertexCounts[i] + indexCounts[i]) * 4;
+    }
+
+    final ByteBuffer data = ByteBuffer.allocate(size).order(ByteOrder.nativeOrder());
+    data.putInt(MAGIC).putInt(VERSION).putInt(backfaceCulling ? BACKFACE_CULLING_FLAG : 0).putInt(vertices.length);
+
+    for(int i = 0; i < vertices.length; i++) {
+      data.putInt(vertexCounts[i]).putInt(indexCounts[i]);
+    }
+
+    for(int i = 0; i < vertices.length; i++) {
+      if(vertexCounts[i] != 0) {
+        data.asFloatBuffer().put(vertices[i], 0, vertexCounts[i]);
+        data.position(data.position() + vertexCounts[i] * Float.BYTES);
+        data.asIntBuffer().put(indices[i], 0, indexCounts[i]);
+        data.position(data.position() + indexCounts[i] * Integer.BYTES);
+      }
+    }
+
+    final Path file = file(key);
+
+    try {
+      Files.createDirectories(DIR);
+
+      // Write to a temp file first so that a crash never leaves a truncated mesh in the cache
+      final Path temp = Files.createTempFile(DIR, file.getFileName().toString(), ".tmp");
+      Files.write(temp, data.array());
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch(final IOException e) {
+      // The cache is only an optimisation
+      LOGGER.warn("Failed to cache mesh %s", file, e);
+    }
+  }
+
+  private static Path file(final long key) {
+    return DIR.resolve("%016x.bin".formatted(key));
+  }
+}
@@ -53,27 +53,39 @@ public class MeshObj extends Obj {
   }
 
   @Override
-  public void render(final int startVertex, final int vertexCount) {
+  public void render(final int startVertex, final int vertexCount, final int instanceCount) {
     for(int i = 0; i < this.meshes.length; i++) {
       if(this.meshes[i] != null) {
-        this.meshes[i].draw(startVertex, vertexCount);
+        this.meshes[i].draw(startVertex, vertexCount, instanceCount);
       }
     }
   }
 
   @Override
-  public void render(@Nullable final Translucency translucency, final int startVertex, final int vertexCount) {
+  public void render(@Nullable final Translucency translucency, final int startVertex, final int vertexCount, final int instanceCount) {
     if(translucency == null) {
-      this.meshes[0].draw(startVertex, vertexCount);
+      this.meshes[0].draw(startVertex, vertexCount, instanceCount);
     } else {
       if(translucency != Translucency.HALF_B_PLUS_HALF_F && translucency != Translucency.B_PLUS_F && translucency != Translucency.B_MINUS_F && translucency != Translucency.B_PLUS_QUARTER_F) {
         throw new RuntimeException("Need to implement " + translucency);
       }
 
-      this.meshes[translucency.ordinal() + 1].draw(startVertex, vertexCount);
+      this.meshes[translucency.ordinal() + 1].draw(startVertex, vertexCount, instanceCount);
     }
   }
 
+  @Override
+  public long getVramBytes() {
+    long bytes = 0;
+    for(final Mesh mesh : this.meshes) {
+      if(mesh != null) {
+        bytes += mesh.getVramBytes();
+      }
+    }
+
+    return bytes;
+  }
+
   @Override
   public void delete() {
     if(!this.deleted) {
@@ -1,50 +1,60 @@
 package legend.core.opengl;
 
 import legend.game.types.Translucency;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
 
 import javax.annotation.Nullable;
-import java.util.ArrayList;
-import java.util.List;
 
 public abstract class Obj {
-  private static final Logger LOGGER = LogManager.getFormatterLogger(Obj.class);
-  private static boolean shouldLog = true;
-
-  private static final List<Obj> objList = new ArrayList<>();
   public final String name;
+  /** The scope (engine state) this obj was allocated in */
+  public final String scope;
+  private final int handle;
   protected boolean deleted;
   /** This Obj won't be deleted on state transition */
   public boolean persistent;
 
-  public static void setShouldLog(final boolean shouldLog) {
-    Obj.shouldLog = shouldLog;
-  }
+  /** Model-space bounding sphere, a negative radius means the bounds are unknown and the obj is never culled */
+  private final Vector3f boundsCentre = new Vector3f();
+  private float boundsRadius = -1.0f;
 
   public Obj(final String name) {
-    System.out.println("Allocated " + name);
     this.name = name;
-    objList.add(this);
+    this.scope = ObjRegistry.getScope();
+    this.handle = ObjRegistry.register(this);
   }
 
   public void delete() {
-    this.deleted = true;
-    objList.remove(this);
+    if(!this.deleted) {
+      this.deleted = true;
+      ObjRegistry.unregister(this.handle);
+    }
+  }
+
+  /** Registry handle, stable for the obj's lifetime */
+  public int getHandle() {
+    return this.handle;
   }
 
-  public static void clearObjList(final boolean clearPersistent) {
-    for(int i = objList.size() - 1; i >= 0; i--) {
-      final Obj obj = objList.get(i);
+  /** Bytes of GPU memory owned by this obj */
+  public abstract long getVramBytes();
 
-      if(!obj.persistent || clearPersistent) {
-        if(shouldLog) {
-          LOGGER.warn("Leaked: %s", obj.name);
-        }
+  public void setBounds(final Vector3fc centre, final float radius) {
+    this.boundsCentre.set(centre);
+    this.boundsRadius = radius;
+  }
 
-        obj.delete();
-      }
-    }
+  public boolean hasBounds() {
+    return this.boundsRadius >= 0.0f;
+  }
+
+  public Vector3fc getBoundsCentre() {
+    return this.boundsCentre;
+  }
+
+  public float getBoundsRadius() {
+    return this.boundsRadius;
   }
 
   public boolean useBackfaceCulling() {
@@ -53,8 +63,16 @@ public abstract class Obj {
 
   public abstract boolean hasTranslucency();
   public abstract boolean shouldRender(@Nullable final Translucency translucency);
-  public abstract void render(final int startVertex, final int vertexCount);
-  public abstract void render(@Nullable final Translucency translucency, final int startVertex, final int vertexCount);
+  public abstract void render(final int startVertex, final int vertexCount, final int instanceCount);
+  public abstract void render(@Nullable final Translucency translucency, final int startVertex, final int vertexCount, final int instanceCount);
+
+  public void render(final int startVertex, final int vertexCount) {
+    this.render(startVertex, vertexCount, 1);
+  }
+
+  public void render(@Nullable final Translucency translucency, final int startVertex, final int vertexCount) {
+    this.render(translucency, startVertex, vertexCount, 1);
+  }
 
   @Override
   public String toString() {
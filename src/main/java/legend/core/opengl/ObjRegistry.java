@@ -0,0 +1,102 @@
+package legend.core.opengl;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * Tracks every live {@link Obj} by handle so that registering and unregistering are O(1). Each obj is tagged with the scope
+ * (engine state) that was active when it was allocated. When a scope ends, any non-persistent obj still alive has outlived it
+ * and is reported as a leak and deleted.
+ */
+public final class ObjRegistry {
+  private ObjRegistry() { }
+
+  private static final Logger LOGGER = LogManager.getFormatterLogger(ObjRegistry.class);
+
+  private static final int MIB = 1024 * 1024;
+
+  private static Obj[] objs = new Obj[256];
+  /** Stack of handles below {@link #end} that have been freed */
+  private static int[] free = new int[256];
+  private static int freeCount;
+  /** One past the highest handle that has ever been used */
+  private static int end;
+  private static int count;
+
+  private static String scope = "Startup";
+
+  static int register(final Obj obj) {
+    final int handle;
+    if(freeCount != 0) {
+      handle = free[--freeCount];
+    } else {
+      if(end == objs.length) {
+        objs = Arrays.copyOf(objs, objs.length * 2);
+        free = Arrays.copyOf(free, free.length * 2);
+      }
+
+      handle = end++;
+    }
+
+    objs[handle] = obj;
+    count++;
+    return handle;
+  }
+
+  static void unregister(final int handle) {
+    objs[handle] = null;
+    free[freeCount++] = handle;
+    count--;
+  }
+
+  /** The scope that newly allocated objs are tagged with */
+  public static String getScope() {
+    return scope;
+  }
+
+  /** Number of live objs */
+  public static int getCount() {
+    return count;
+  }
+
+  /** Bytes allocated by all live meshes and textures */
+  public static long getVramBytes() {
+    return Mesh.getTotalVramBytes() + Texture.getTotalVramBytes();
+  }
+
+  /** Reports and deletes every non-persistent obj, then tags objs allocated from now on with {@code nextScope} */
+  public static void endScope(final String nextScope) {
+    int leaked = 0;
+    long leakedBytes = 0;
+
+    for(int i = 0; i < end; i++) {
+      final Obj obj = objs[i];
+
+      if(obj != null && !obj.persistent) {
+        final long bytes = obj.getVramBytes();
+        LOGGER.warn("Leaked %s allocated in %s (%d bytes)", obj, obj.scope, bytes);
+        leaked++;
+        leakedBytes += bytes;
+        obj.delete();
+      }
+    }
+
+    if(leaked != 0) {
+      LOGGER.warn("%d objs (%.2f MiB) outlived %s", leaked, (float)leakedBytes / MIB, scope);
+    }
+
+    LOGGER.info("Leaving %s with %d objs, %.2f MiB of meshes, %.2f MiB of textures", scope, count, (float)Mesh.getTotalVramBytes() / MIB, (float)Texture.getTotalVramBytes() / MIB);
+    scope = nextScope;
+  }
+
+  /** Deletes every obj, including persistent ones, without reporting them */
+  public static void clear() {
+    for(int i = 0; i < end; i++) {
+      if(objs[i] != null) {
+        objs[i].delete();
+      }
+    }
+  }
+}
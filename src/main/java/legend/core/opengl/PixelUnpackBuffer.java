@@ -0,0 +1,76 @@
+package legend.core.opengl;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.lwjgl.opengl.GL15C.GL_STREAM_DRAW;
+import static org.lwjgl.opengl.GL15C.glBindBuffer;
+import static org.lwjgl.opengl.GL15C.glBufferData;
+import static org.lwjgl.opengl.GL15C.glDeleteBuffers;
+import static org.lwjgl.opengl.GL15C.glGenBuffers;
+import static org.lwjgl.opengl.GL15C.glUnmapBuffer;
+import static org.lwjgl.opengl.GL21C.GL_PIXEL_UNPACK_BUFFER;
+import static org.lwjgl.opengl.GL30C.GL_MAP_INVALIDATE_BUFFER_BIT;
+import static org.lwjgl.opengl.GL30C.GL_MAP_WRITE_BIT;
+import static org.lwjgl.opengl.GL30C.glMapBufferRange;
+
+/**
+ * Stages texture uploads in pixel buffer objects so {@code glTexSubImage2D} returns as soon as the driver has queued the copy,
+ * rather than blocking while it reads from client memory. Uploads alternate between two buffers, and each buffer is orphaned
+ * before it's mapped, so writing the next upload never has to wait for the GPU to finish with the last one.
+ *
+ * <p>Usage: {@link #map}, write the pixels, {@link #unmap}, then upload with {@link Texture#data(int, int, int, int, long)}
+ * (or {@link Texture#dataInt(int, int, int, int, long)}) using offsets into the buffer, then {@link #unbind}.</p>
+ */
+public class PixelUnpackBuffer {
+  private static final int BUFFERS = 2;
+
+  private final int[] ids = new int[BUFFERS];
+  private final long[] capacities = new long[BUFFERS];
+  private int current;
+
+  public PixelUnpackBuffer() {
+    glGenBuffers(this.ids);
+  }
+
+  /**
+   * Binds the next buffer to {@link org.lwjgl.opengl.GL21C#GL_PIXEL_UNPACK_BUFFER} and maps {@code size} bytes of it for writing
+   *
+   * @return null if the buffer couldn't be mapped, in which case it has already been unbound
+   */
+  @Nullable
+  public ByteBuffer map(final long size) {
+    this.current = (this.current + 1) % BUFFERS;
+    glBindBuffer(GL_PIXEL_UNPACK_BUFFER, this.ids[this.current]);
+
+    // Always respecify the storage so the driver can hand back fresh memory instead of syncing with pending uploads
+    if(this.capacities[this.current] < size) {
+      this.capacities[this.current] = Math.max(size, this.capacities[this.current] * 2);
+    }
+
+    glBufferData(GL_PIXEL_UNPACK_BUFFER, this.capacities[this.current], GL_STREAM_DRAW);
+
+    final ByteBuffer mapped = glMapBufferRange(GL_PIXEL_UNPACK_BUFFER, 0L, size, GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_BUFFER_BIT);
+    if(mapped == null) {
+      this.unbind();
+      return null;
+    }
+
+    return mapped.order(ByteOrder.nativeOrder());
+  }
+
+  /** Unmaps the buffer, leaving it bound so that texture uploads read from it */
+  public void unmap() {
+    glUnmapBuffer(GL_PIXEL_UNPACK_BUFFER);
+  }
+
+  /** Must be called after uploading, otherwise later uploads from client memory would be treated as offsets into this buffer */
+  public void unbind() {
+    glBindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+  }
+
+  public void delete() {
+    glDeleteBuffers(this.ids);
+  }
+}
@@ -20,9 +20,13 @@ import static legend.core.opengl.TmdObjLoader.POS_SIZE;
 import static legend.core.opengl.TmdObjLoader.TPAGE_SIZE;
 import static legend.core.opengl.TmdObjLoader.TRANSLUCENT_FLAG;
 import static legend.core.opengl.TmdObjLoader.UV_SIZE;
+import static org.lwjgl.opengl.GL11C.GL_TRIANGLES;
 import static org.lwjgl.opengl.GL11C.GL_TRIANGLE_STRIP;
 
 public class QuadBuilder {
+  /** The corners of the two triangles that make up a quad */
+  private static final int[] TRIANGLE_CORNERS = {0, 1, 2, 2, 1, 3};
+
   private final String name;
   private Translucency translucency;
   private int flags;
@@ -227,28 +231,47 @@ public class QuadBuilder {
     return offset;
   }
 
+  /** @param corner 0: top left, 1: bottom left, 2: top right, 3: bottom right */
+  private int setCorner(final int offset, final float[] vertices, final Quad quad, final int corner) {
+    final boolean right = (corner & 0x2) != 0;
+    final boolean bottom = (corner & 0x1) != 0;
+    final float x = quad.pos.x + (right ? quad.posSize.x : 0.0f);
+    final float y = quad.pos.y + (bottom ? quad.posSize.y : 0.0f);
+    final float u = quad.uv.x + (right ? quad.uvSize.x : 0.0f);
+    final float v = quad.uv.y + (bottom ? quad.uvSize.y : 0.0f);
+    final Vector3f colour = quad.colour[corner];
+    return this.setVertex(offset, vertices, x, y, quad.pos.z, u, v, quad.vramPos.x, quad.vramPos.y, quad.clut.x, quad.clut.y, quad.bpp, colour.x, colour.y, colour.z, this.flags);
+  }
+
   private int setVertices(int offset, final float[] vertices, final Quad quad) {
-    final float x0 = quad.pos.x;
-    final float y0 = quad.pos.y;
-    final float x1 = x0 + quad.posSize.x;
-    final float y1 = y0 + quad.posSize.y;
-    final float z = quad.pos.z;
-    final float u0 = quad.uv.x;
-    final float v0 = quad.uv.y;
-    final float u1 = u0 + quad.uvSize.x;
-    final float v1 = v0 + quad.uvSize.y;
-    final int tpx = quad.vramPos.x;
-    final int tpy = quad.vramPos.y;
-    final int clx = quad.clut.x;
-    final int cly = quad.clut.y;
-
-    offset = this.setVertex(offset, vertices, x0, y0, z, u0, v0, tpx, tpy, clx, cly, quad.bpp, quad.colour[0].x, quad.colour[0].y, quad.colour[0].z, this.flags);
-    offset = this.setVertex(offset, vertices, x0, y1, z, u0, v1, tpx, tpy, clx, cly, quad.bpp, quad.colour[1].x, quad.colour[1].y, quad.colour[1].z, this.flags);
-    offset = this.setVertex(offset, vertices, x1, y0, z, u1, v0, tpx, tpy, clx, cly, quad.bpp, quad.colour[2].x, quad.colour[2].y, quad.colour[2].z, this.flags);
-    offset = this.setVertex(offset, vertices, x1, y1, z, u1, v1, tpx, tpy, clx, cly, quad.bpp, quad.colour[3].x, quad.colour[3].y, quad.colour[3].z, this.flags);
+    for(int corner = 0; corner < 4; corner++) {
+      offset = this.setCorner(offset, vertices, quad, corner);
+    }
+
     return offset;
   }
 
+  /**
+   * Appends the quads to a {@code GL_TRIANGLES} stream as two triangles each, with the same winding as {@link #build}.
+   * Meant for geometry that's only drawn for a frame or two, the range is only valid for this frame.
+   */
+  public StreamingMesh.Range stream(final StreamingMesh stream) {
+    if(stream.getMode() != GL_TRIANGLES) {
+      throw new IllegalArgumentException("Quads can only be streamed as triangles");
+    }
+
+    final int start = stream.reserve(this.quads.size() * 6);
+    final float[] vertices = stream.data();
+    int offset = start;
+    for(final Quad quad : this.quads) {
+      for(final int corner : TRIANGLE_CORNERS) {
+        offset = this.setCorner(offset, vertices, quad, corner);
+      }
+    }
+
+    return stream.range(start, this.translucency);
+  }
+
   public MeshObj build() {
     int vertexSize = POS_SIZE;
     vertexSize += NORM_SIZE;
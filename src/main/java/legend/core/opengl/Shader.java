@@ -44,7 +44,6 @@ import static org.lwjgl.opengl.GL20C.glUniform3f;
 import static org.lwjgl.opengl.GL20C.glUniform3fv;
 import static org.lwjgl.opengl.GL20C.glUniform4f;
 import static org.lwjgl.opengl.GL20C.glUniform4fv;
-import static org.lwjgl.opengl.GL20C.glUseProgram;
 import static org.lwjgl.opengl.GL30C.glBindBufferBase;
 import static org.lwjgl.opengl.GL31C.GL_INVALID_INDEX;
 import static org.lwjgl.opengl.GL31C.GL_UNIFORM_BUFFER;
@@ -56,19 +55,39 @@ public class Shader<Options extends ShaderOptions<Options>> {
 
   private final Supplier<Options> options;
   private final int shader;
+  /** True if the program was loaded from {@link ShaderCache} rather than compiled */
+  final boolean cached;
 
   public Shader(final Path vert, final Path frag, final Function<Shader<Options>, Supplier<Options>> options) throws IOException {
-    final int vsh = this.compileShader(vert, GL_VERTEX_SHADER);
-    final int fsh = this.compileShader(frag, GL_FRAGMENT_SHADER);
-    this.shader = this.linkProgram(vsh, fsh);
-    glDeleteShader(vsh);
-    glDeleteShader(fsh);
+    final String vertSource = Files.readString(vert);
+    final String fragSource = Files.readString(frag);
+
+    final boolean useCache = ShaderCache.isSupported();
+    final long cacheKey = useCache ? ShaderCache.key(vertSource, fragSource) : 0;
+    final int cachedShader = useCache ? ShaderCache.load(cacheKey) : 0;
+
+    if(cachedShader != 0) {
+      this.shader = cachedShader;
+      this.cached = true;
+    } else {
+      final int vsh = this.compileShader(vert, vertSource, GL_VERTEX_SHADER);
+      final int fsh = this.compileShader(frag, fragSource, GL_FRAGMENT_SHADER);
+      this.shader = this.linkProgram(vsh, fsh, useCache);
+      glDeleteShader(vsh);
+      glDeleteShader(fsh);
+      this.cached = false;
+
+      if(useCache && glGetProgrami(this.shader, GL_LINK_STATUS) != 0) {
+        ShaderCache.store(cacheKey, this.shader);
+      }
+    }
+
     this.options = options.apply(this);
   }
 
-  private int compileShader(final Path file, final int type) throws IOException {
+  private int compileShader(final Path file, final String source, final int type) {
     final int shader = glCreateShader(type);
-    glShaderSource(shader, Files.readString(file));
+    glShaderSource(shader, source);
     glCompileShader(shader);
 
     if(glGetShaderi(shader, GL_COMPILE_STATUS) == 0) {
@@ -78,10 +97,15 @@ public class Shader<Options extends ShaderOptions<Options>> {
     return shader;
   }
 
-  private int linkProgram(final int vsh, final int fsh) {
+  private int linkProgram(final int vsh, final int fsh, final boolean retrievable) {
     final int shader = glCreateProgram();
     glAttachShader(shader, vsh);
     glAttachShader(shader,fsh);
+
+    if(retrievable) {
+      ShaderCache.prepare(shader);
+    }
+
     glLinkProgram(shader);
 
     if(glGetProgrami(shader, GL_LINK_STATUS) == 0) {
@@ -106,7 +130,7 @@ public class Shader<Options extends ShaderOptions<Options>> {
   }
 
   public void use() {
-    glUseProgram(this.shader);
+    GlState.useProgram(this.shader);
   }
 
   public void delete() {
@@ -115,6 +139,8 @@ public class Shader<Options extends ShaderOptions<Options>> {
 
   private class Uniform {
     final int loc;
+    /** The {@link GlState} generation that the cached value was set in, the value is only trusted within one generation */
+    private int generation = -1;
 
     private Uniform(final String name) {
       this.loc = glGetUniformLocation(Shader.this.shader, name);
@@ -123,6 +149,22 @@ public class Shader<Options extends ShaderOptions<Options>> {
         LOGGER.error("Uniform {} not found in shader {}", name, Shader.this.shader);
       }
     }
+
+    /** @return true if the value is unchanged and the call can be skipped */
+    boolean unchanged(final boolean same) {
+      if(same && this.generation != -1 && this.generation == GlState.generation()) {
+        GlState.skipped();
+        return true;
+      }
+
+      this.generation = GlState.generation();
+      GlState.changed();
+      return false;
+    }
+
+    void invalidate() {
+      this.generation = -1;
+    }
   }
 
   public static class UniformBuffer {
@@ -132,9 +174,11 @@ public class Shader<Options extends ShaderOptions<Options>> {
     public static final int PROJECTION_INFO = 3;
 
     private final int id;
+    private final int binding;
 
     public UniformBuffer(final long size, final int binding) {
       this.id = glGenBuffers();
+      this.binding = binding;
 
       glBindBuffer(GL_UNIFORM_BUFFER, this.id);
       glBufferData(GL_UNIFORM_BUFFER, size, GL_DYNAMIC_DRAW);
@@ -147,6 +191,11 @@ public class Shader<Options extends ShaderOptions<Options>> {
       glDeleteBuffers(this.id);
     }
 
+    /** Binds this buffer back to its binding point, e.g. after a {@link UniformRingBuffer} has bound a range of its own */
+    public void bind() {
+      glBindBufferBase(GL_UNIFORM_BUFFER, this.binding, this.id);
+    }
+
     public void set(final FloatBuffer buffer) {
       this.set(0L, buffer);
     }
@@ -159,76 +208,116 @@ public class Shader<Options extends ShaderOptions<Options>> {
   }
 
   public class UniformVec2 extends Uniform {
+    private float x;
+    private float y;
+
     public UniformVec2(final String name) {
       super(name);
     }
 
     public void set(final FloatBuffer buffer) {
+      this.invalidate();
       glUniform2fv(this.loc, buffer);
     }
 
     public void set(final Vector2fc vec) {
-      glUniform2f(this.loc, vec.x(), vec.y());
+      this.set(vec.x(), vec.y());
     }
 
     public void set(final float x, final float y) {
-      glUniform2f(this.loc, x, y);
+      if(!this.unchanged(this.x == x && this.y == y)) {
+        this.x = x;
+        this.y = y;
+        glUniform2f(this.loc, x, y);
+      }
     }
   }
 
   public class UniformVec3 extends Uniform {
+    private float x;
+    private float y;
+    private float z;
+
     public UniformVec3(final String name) {
       super(name);
     }
 
     public void set(final FloatBuffer buffer) {
+      this.invalidate();
       glUniform3fv(this.loc, buffer);
     }
 
     public void set(final Vector3fc vec) {
-      glUniform3f(this.loc, vec.x(), vec.y(), vec.z());
+      this.set(vec.x(), vec.y(), vec.z());
     }
 
     public void set(final float x, final float y, final float z) {
-      glUniform3f(this.loc, x, y, z);
+      if(!this.unchanged(this.x == x && this.y == y && this.z == z)) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        glUniform3f(this.loc, x, y, z);
+      }
     }
   }
 
   public class UniformVec4 extends Uniform {
+    private float x;
+    private float y;
+    private float z;
+    private float w;
+
     public UniformVec4(final String name) {
       super(name);
     }
 
     public void set(final FloatBuffer buffer) {
+      this.invalidate();
       glUniform4fv(this.loc, buffer);
     }
 
     public void set(final Vector4fc vec) {
-      glUniform4f(this.loc, vec.x(), vec.y(), vec.z(), vec.w());
+      this.set(vec.x(), vec.y(), vec.z(), vec.w());
     }
 
     public void set(final float x, final float y, final float z, final float w) {
-      glUniform4f(this.loc, x, y, z, w);
+      if(!this.unchanged(this.x == x && this.y == y && this.z == z && this.w == w)) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+        glUniform4f(this.loc, x, y, z, w);
+      }
     }
   }
 
   public class UniformInt extends Uniform {
+    private int val;
+
     public UniformInt(final String name) {
       super(name);
     }
 
     public void set(final int val) {
-      glUniform1i(this.loc, val);
+      if(!this.unchanged(this.val == val)) {
+        this.val = val;
+        glUniform1i(this.loc, val);
+      }
     }
   }
 
   public class UniformFloat extends Uniform {
+    private float val;
+
     public UniformFloat(final String name) {
       super(name);
     }
 
     public void set(final float val) {
-      glUniform1f(this.loc, val);
+      if(!this.unchanged(this.val == val)) {
+        this.val = val;
+        glUniform1f(this.loc, val);
+      }
     }
   }
 }
@@ -0,0 +1,152 @@
+package legend.core.opengl;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.BufferUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+import static org.lwjgl.opengl.GL11C.GL_RENDERER;
+import static org.lwjgl.opengl.GL11C.GL_VENDOR;
+import static org.lwjgl.opengl.GL11C.GL_VERSION;
+import static org.lwjgl.opengl.GL11C.glGetInteger;
+import static org.lwjgl.opengl.GL11C.glGetString;
+import static org.lwjgl.opengl.GL20C.GL_LINK_STATUS;
+import static org.lwjgl.opengl.GL20C.glCreateProgram;
+import static org.lwjgl.opengl.GL20C.glDeleteProgram;
+import static org.lwjgl.opengl.GL20C.glGetProgrami;
+import static org.lwjgl.opengl.GL41C.GL_NUM_PROGRAM_BINARY_FORMATS;
+import static org.lwjgl.opengl.GL41C.GL_PROGRAM_BINARY_LENGTH;
+import static org.lwjgl.opengl.GL41C.GL_PROGRAM_BINARY_RETRIEVABLE_HINT;
+import static org.lwjgl.opengl.GL41C.glGetProgramBinary;
+import static org.lwjgl.opengl.GL41C.glProgramBinary;
+import static org.lwjgl.opengl.GL41C.glProgramParameteri;
+
+/**
+ * Stores linked shader programs as driver binaries so that later launches can skip compiling and linking them. Entries are
+ * keyed by a hash of the shader sources and the driver's vendor, renderer and version strings. Drivers are free to reject a
+ * binary (e.g. after an update that didn't change the version string), in which case the program is compiled from source and
+ * the entry is rewritten.
+ *
+ * <p>File layout: magic, version, binary format, binary length, then the binary.</p>
+ */
+final class ShaderCache {
+  private ShaderCache() { }
+
+  private static final Logger LOGGER = LogManager.getFormatterLogger(ShaderCache.class);
+
+  private static final Path DIR = Path.of("./cache/shaders");
+  private static final int MAGIC = 0x4853_4454; // TDSH
+  /** Must be bumped whenever the file layout changes */
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+  /** Some drivers support the API but don't offer any binary formats */
+  private static Boolean supported;
+  private static String driver;
+
+  static boolean isSupported() {
+    if(supported == null) {
+      supported = glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+      driver = glGetString(GL_VENDOR) + '\n' + glGetString(GL_RENDERER) + '\n' + glGetString(GL_VERSION);
+
+      if(!supported) {
+        LOGGER.info("Driver has no program binary formats, shaders won't be cached");
+      }
+    }
+
+    return supported;
+  }
+
+  /** A 64-bit hash of the shader sources and the driver */
+  static long key(final String vertSource, final String fragSource) {
+    final byte[] data = (driver + '\0' + vertSource + '\0' + fragSource).getBytes(StandardCharsets.UTF_8);
+
+    final CRC32 crc = new CRC32();
+    final CRC32C crcC = new CRC32C();
+    crc.update(data);
+    crcC.update(data);
+    return crc.getValue() << 32 | crcC.getValue();
+  }
+
+  /** Must be called on a program before it's linked for its binary to be stored */
+  static void prepare(final int program) {
+    glProgramParameteri(program, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, 1);
+  }
+
+  /** @return the linked program, or 0 if there's no valid entry for the key or the driver rejected it */
+  static int load(final long key) {
+    final Path file = file(key);
+
+    if(!Files.isRegularFile(file)) {
+      return 0;
+    }
+
+    final ByteBuffer data;
+    try {
+      final byte[] bytes = Files.readAllBytes(file);
+      data = BufferUtils.createByteBuffer(bytes.length).put(bytes).flip();
+    } catch(final IOException e) {
+      LOGGER.warn("Failed to read cached shader %s", file, e);
+      return 0;
+    }
+
+    if(data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getInt(4) != VERSION || data.getInt(12) != data.capacity() - HEADER_SIZE) {
+      return 0;
+    }
+
+    final int program = glCreateProgram();
+    glProgramBinary(program, data.getInt(8), data.slice(HEADER_SIZE, data.capacity() - HEADER_SIZE));
+
+    if(glGetProgrami(program, GL_LINK_STATUS) == 0) {
+      LOGGER.info("Driver rejected cached shader %s, recompiling", file);
+      glDeleteProgram(program);
+      return 0;
+    }
+
+    return program;
+  }
+
+  static void store(final long key, final int program) {
+    final int length = glGetProgrami(program, GL_PROGRAM_BINARY_LENGTH);
+
+    if(length == 0) {
+      return;
+    }
+
+    final ByteBuffer data = BufferUtils.createByteBuffer(HEADER_SIZE + length);
+    final int[] binaryLength = new int[1];
+    final int[] format = new int[1];
+    glGetProgramBinary(program, binaryLength, format, data.slice(HEADER_SIZE, length));
+    data.putInt(MAGIC).putInt(VERSION).putInt(format[0]).putInt(binaryLength[0]);
+    data.limit(HEADER_SIZE + binaryLength[0]).rewind();
+
+    final byte[] bytes = new byte[data.remaining()];
+    data.get(bytes);
+
+    final Path file = file(key);
+
+    try {
+      Files.createDirectories(DIR);
+
+      // Write to a temp file first so that a crash never leaves a truncated program in the cache
+      final Path temp = Files.createTempFile(DIR, file.getFileName().toString(), ".tmp");
+      Files.write(temp, bytes);
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch(final IOException e) {
+      // The cache is only an optimisation
+      LOGGER.warn("Failed to cache shader %s", file, e);
+    }
+  }
+
+  private static Path file(final long key) {
+    return DIR.resolve("%016x.bin".formatted(key));
+  }
+}
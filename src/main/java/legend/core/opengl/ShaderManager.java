@@ -1,24 +1,50 @@
 package legend.core.opengl;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import java.util.HashMap;
 import java.util.Map;
 
 public final class ShaderManager {
   private ShaderManager() { }
 
+  private static final Logger LOGGER = LogManager.getFormatterLogger(ShaderManager.class);
+
   private static final Map<ShaderType, Shader> shaders = new HashMap<>();
   private static final Map<String, Shader.UniformBuffer> uniformBuffers = new HashMap<>();
 
+  /** Time spent in {@link #addShader} since the last {@link #reportSetupTime} */
+  private static long setupNanos;
+  private static int setupCount;
+  private static int setupCachedCount;
+
   public static <Options extends ShaderOptions<Options>> Shader<Options> getShader(final ShaderType<Options> type) {
     return shaders.get(type);
   }
 
   public static <Options extends ShaderOptions<Options>> Shader<Options> addShader(final ShaderType<Options> type) {
+    final long start = System.nanoTime();
     final Shader<Options> shader = type.shaderConstructor.apply(type.optionsConstructor);
+    setupNanos += System.nanoTime() - start;
+    setupCount++;
+
+    if(shader.cached) {
+      setupCachedCount++;
+    }
+
     shaders.put(type, shader);
     return shader;
   }
 
+  /** Logs how long the shaders added since the last call took to set up */
+  public static void reportSetupTime() {
+    LOGGER.info("Set up %d shaders (%d from cache) in %.2fms", setupCount, setupCachedCount, setupNanos / 1_000_000.0f);
+    setupNanos = 0;
+    setupCount = 0;
+    setupCachedCount = 0;
+  }
+
   public static Shader.UniformBuffer getUniformBuffer(final String name) {
     return uniformBuffers.get(name);
   }
@@ -0,0 +1,99 @@
+package legend.core.opengl;
+
+import legend.game.types.Translucency;
+import org.lwjgl.BufferUtils;
+
+import javax.annotation.Nullable;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import static legend.core.opengl.TmdObjLoader.VERTEX_SIZE;
+
+/**
+ * One dynamic vertex buffer that transient geometry is appended to every frame, so that geometry which only lives for a frame
+ * (or for the few frames an effect runs) never allocates its own VAO and VBO. Builders append their vertices with
+ * {@link #reserve} and get back a {@link Range} to queue. Everything appended during a frame is uploaded at once by
+ * {@link #upload}, which orphans the previous frame's storage, and discarded by {@link #reset}. Ranges are only valid for the
+ * frame they were appended in.
+ *
+ * <p>Vertices use the same layout as {@link TmdObjLoader}. All of a stream's vertices share one primitive mode.</p>
+ */
+public class StreamingMesh {
+  private final int mode;
+  private final Mesh mesh;
+  /** One obj per translucency (index 0 is opaque) that all render from the same mesh */
+  private final MeshObj[] objs = new MeshObj[Translucency.values().length + 1];
+
+  private float[] vertices = new float[1024 * VERTEX_SIZE];
+  private int length;
+  private FloatBuffer buffer = BufferUtils.createFloatBuffer(0);
+
+  public StreamingMesh(final String name, final int mode) {
+    this.mode = mode;
+    this.mesh = new Mesh(mode);
+    TmdObjLoader.setAttributes(this.mesh);
+
+    for(int i = 0; i < this.objs.length; i++) {
+      final Mesh[] meshes = new Mesh[this.objs.length];
+      meshes[i] = this.mesh;
+      this.objs[i] = new MeshObj(name + ' ' + (i == 0 ? "opaque" : Translucency.values()[i - 1]), meshes);
+      this.objs[i].persistent = true;
+    }
+  }
+
+  public int getMode() {
+    return this.mode;
+  }
+
+  /**
+   * Makes room for {@code vertexCount} more vertices, which must be written to {@link #data} before the next call
+   *
+   * @return the float offset in {@link #data} to write the vertices at
+   */
+  public int reserve(final int vertexCount) {
+    final int offset = this.length;
+    final int required = offset + vertexCount * VERTEX_SIZE;
+
+    if(required > this.vertices.length) {
+      this.vertices = Arrays.copyOf(this.vertices, Math.max(required, this.vertices.length * 2));
+    }
+
+    this.length = required;
+    return offset;
+  }
+
+  /** The backing array, which is replaced when {@link #reserve} grows it */
+  public float[] data() {
+    return this.vertices;
+  }
+
+  /** A range covering the vertices from float offset {@code offset} to the end of the stream */
+  public Range range(final int offset, @Nullable final Translucency translucency) {
+    final MeshObj obj = this.objs[translucency == null ? 0 : translucency.ordinal() + 1];
+    return new Range(obj, offset / VERTEX_SIZE, (this.length - offset) / VERTEX_SIZE);
+  }
+
+  /** Uploads this frame's vertices, must be called before anything queued from the stream is rendered */
+  public void upload() {
+    if(this.length == 0) {
+      return;
+    }
+
+    if(this.buffer.capacity() < this.length) {
+      this.buffer = BufferUtils.createFloatBuffer(this.vertices.length);
+    }
+
+    this.buffer.clear();
+    this.buffer.put(this.vertices, 0, this.length);
+    this.buffer.flip();
+    this.mesh.data(this.buffer, this.length / VERTEX_SIZE);
+  }
+
+  /** Discards this frame's vertices */
+  public void reset() {
+    this.length = 0;
+  }
+
+  /** Vertices of a stream to draw with {@link legend.core.RenderEngine.QueuedModel#vertices} */
+  public record Range(Obj obj, int startVertex, int vertexCount) { }
+}
@@ -23,13 +23,18 @@ public class TextObj extends Obj {
   }
 
   @Override
-  public void render(final int startVertex, final int vertexCount) {
-    this.mesh.draw(startVertex, vertexCount);
+  public void render(final int startVertex, final int vertexCount, final int instanceCount) {
+    this.mesh.draw(startVertex, vertexCount, instanceCount);
   }
 
   @Override
-  public void render(@Nullable final Translucency translucency, final int startVertex, final int vertexCount) {
-    this.mesh.draw(startVertex, vertexCount);
+  public void render(@Nullable final Translucency translucency, final int startVertex, final int vertexCount, final int instanceCount) {
+    this.mesh.draw(startVertex, vertexCount, instanceCount);
+  }
+
+  @Override
+  public long getVramBytes() {
+    return this.mesh.getVramBytes();
   }
 
   @Override
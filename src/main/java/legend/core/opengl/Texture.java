@@ -41,6 +41,7 @@ import static org.lwjgl.opengl.GL12C.GL_UNSIGNED_INT_8_8_8_8_REV;
 import static org.lwjgl.opengl.GL13C.GL_TEXTURE0;
 import static org.lwjgl.opengl.GL13C.glActiveTexture;
 import static org.lwjgl.opengl.GL21C.GL_SRGB_ALPHA;
+import static org.lwjgl.opengl.GL30C.GL_RGBA16F;
 import static org.lwjgl.opengl.GL30C.glGenerateMipmap;
 import static org.lwjgl.stb.STBImage.stbi_failure_reason;
 import static org.lwjgl.stb.STBImage.stbi_load_from_memory;
@@ -111,6 +112,21 @@ public final class Texture {
   }
 
   private static final int[] currentTextures = new int[32];
+  private static long totalVramBytes;
+
+  /** Approximate bytes allocated by every live texture */
+  public static long getTotalVramBytes() {
+    return totalVramBytes;
+  }
+
+  /** Drivers may pad or compress, so this is only an estimate */
+  private static int bytesPerPixel(final int internalFormat) {
+    if(internalFormat == GL_RGBA16F) {
+      return 8;
+    }
+
+    return 4;
+  }
 
   final int id;
 
@@ -118,6 +134,7 @@ public final class Texture {
   public final int height;
 
   private final int dataFormat;
+  private final long vramBytes;
 
   private boolean deleted;
 
@@ -150,6 +167,29 @@ public final class Texture {
         mipmaps.forEach(MipmapBuilder::use);
       }
     }
+
+    long vramBytes = (long)w * h * bytesPerPixel(internalFormat);
+    if(generateMipmaps) {
+      // A full mip chain adds a third
+      vramBytes += vramBytes / 3;
+    } else {
+      for(final MipmapBuilder mipmap : mipmaps) {
+        vramBytes += (long)mipmap.w * mipmap.h * bytesPerPixel(mipmap.dataFormat);
+      }
+    }
+
+    this.vramBytes = vramBytes;
+    totalVramBytes += vramBytes;
+  }
+
+  /** The GL texture name */
+  public int getId() {
+    return this.id;
+  }
+
+  /** Approximate bytes allocated by this texture */
+  public long getVramBytes() {
+    return this.vramBytes;
   }
 
   public void data(final int x, final int y, final int w, final int h, final ByteBuffer data) {
@@ -182,6 +222,28 @@ public final class Texture {
     }
   }
 
+  /** Uploads from the bound {@link PixelUnpackBuffer}, {@code offset} is in bytes */
+  public void data(final int x, final int y, final int w, final int h, final long offset) {
+    this.use();
+    glTexSubImage2D(GL_TEXTURE_2D, 0, x, y, w, h, this.dataFormat, GL_UNSIGNED_INT_8_8_8_8_REV, offset);
+
+    final int error = glGetError();
+    if(error != GL_NO_ERROR) {
+      throw new RuntimeException("Failed to upload data, rect: (" + x + ", " + y + ", " + w + ", " + h + "), glError: " + Long.toString(error, 16));
+    }
+  }
+
+  /** Uploads from the bound {@link PixelUnpackBuffer}, {@code offset} is in bytes */
+  public void dataInt(final int x, final int y, final int w, final int h, final long offset) {
+    this.use();
+    glTexSubImage2D(GL_TEXTURE_2D, 0, x, y, w, h, this.dataFormat, GL_UNSIGNED_INT, offset);
+
+    final int error = glGetError();
+    if(error != GL_NO_ERROR) {
+      throw new RuntimeException("Failed to upload data, rect: (" + x + ", " + y + ", " + w + ", " + h + "), glError: " + Long.toString(error, 16));
+    }
+  }
+
   public void use(final int activeTexture) {
     if(this.deleted) {
       LOGGER.warn("Tried to use texture %d after it was deleted", this.id);
@@ -192,6 +254,9 @@ public final class Texture {
       currentTextures[activeTexture] = this.id;
       glActiveTexture(GL_TEXTURE0 + activeTexture);
       glBindTexture(GL_TEXTURE_2D, this.id);
+      GlState.changed();
+    } else {
+      GlState.skipped();
     }
   }
 
@@ -200,8 +265,13 @@ public final class Texture {
   }
 
   public void delete() {
+    if(this.deleted) {
+      return;
+    }
+
     this.deleted = true;
     glDeleteTextures(this.id);
+    totalVramBytes -= this.vramBytes;
   }
 
   public static class Builder {
@@ -26,6 +26,8 @@ public final class TmdObjLoader {
   public static final int TPAGE_SIZE = 1;
   public static final int CLUT_SIZE = 1;
   public static final int FLAGS_SIZE = 1;
+  /** Floats per vertex of the layout above, shared by every builder and stream that produces meshes in this layout */
+  static final int VERTEX_SIZE = POS_SIZE + NORM_SIZE + UV_SIZE + TPAGE_SIZE + CLUT_SIZE + COLOUR_SIZE + FLAGS_SIZE;
 
   public static final int LIT_FLAG = 0x1;
   public static final int TEXTURED_FLAG = 0x2;
@@ -66,6 +68,18 @@ public final class TmdObjLoader {
   }
 
   public static MeshObj fromObjTable(final String name, final TmdObjTable1c objTable, final int specialFlags, final int textureWidth, final int textureHeight) {
+    final long cacheKey = MeshCache.key(objTable, specialFlags, textureWidth, textureHeight);
+    MeshObj obj = MeshCache.load(name, cacheKey);
+
+    if(obj == null) {
+      obj = convertObjTable(name, objTable, specialFlags, textureWidth, textureHeight, cacheKey);
+    }
+
+    setBounds(obj, objTable.vert_top_00);
+    return obj;
+  }
+
+  private static MeshObj convertObjTable(final String name, final TmdObjTable1c objTable, final int specialFlags, final int textureWidth, final int textureHeight, final long cacheKey) {
     final int translucencyCount = Translucency.values().length + 1;
     final float[][] allVertices = new float[translucencyCount][];
     final int[][] allIndices = new int[translucencyCount][];
@@ -74,12 +88,6 @@ public final class TmdObjLoader {
     final int[] vertexOffsets = new int[translucencyCount];
     final int[] indexOffsets = new int[translucencyCount];
 
-    int vertexSize = POS_SIZE;
-    vertexSize += NORM_SIZE;
-    vertexSize += UV_SIZE + TPAGE_SIZE + CLUT_SIZE;
-    vertexSize += COLOUR_SIZE;
-    vertexSize += FLAGS_SIZE;
-
     // Backface culling is on by default for opaque primitives. LOD sets some untextured primitives to translucent
     // even though the translucency settings can only come from textures in order to disable backface culling
     boolean backfaceCulling = true;
@@ -281,39 +289,66 @@ public final class TmdObjLoader {
     for(int i = 0; i < translucencyCount; i++) {
       if(vertexOffsets[i] != 0) {
         final Mesh mesh = new Mesh(GL_TRIANGLES, allVertices[i], allIndices[i]);
+        setAttributes(mesh);
+        meshes[i] = mesh;
+      }
+    }
+
+    MeshCache.store(cacheKey, allVertices, vertexOffsets, allIndices, indexOffsets, backfaceCulling);
+    return new MeshObj(name, meshes, backfaceCulling);
+  }
 
-        mesh.attribute(0, 0L, 3, vertexSize);
+  static void setAttributes(final Mesh mesh) {
+    mesh.attribute(0, 0L, 3, VERTEX_SIZE);
 
-        int meshIndex = 1;
-        int meshOffset = 3;
+    int meshIndex = 1;
+    int meshOffset = 3;
 
-        mesh.attribute(meshIndex, meshOffset, NORM_SIZE, vertexSize);
-        meshIndex++;
-        meshOffset += NORM_SIZE;
+    mesh.attribute(meshIndex, meshOffset, NORM_SIZE, VERTEX_SIZE);
+    meshIndex++;
+    meshOffset += NORM_SIZE;
 
-        mesh.attribute(meshIndex, meshOffset, UV_SIZE, vertexSize);
-        meshIndex++;
-        meshOffset += UV_SIZE;
+    mesh.attribute(meshIndex, meshOffset, UV_SIZE, VERTEX_SIZE);
+    meshIndex++;
+    meshOffset += UV_SIZE;
 
-        mesh.attribute(meshIndex, meshOffset, TPAGE_SIZE, vertexSize);
-        meshIndex++;
-        meshOffset += TPAGE_SIZE;
+    mesh.attribute(meshIndex, meshOffset, TPAGE_SIZE, VERTEX_SIZE);
+    meshIndex++;
+    meshOffset += TPAGE_SIZE;
 
-        mesh.attribute(meshIndex, meshOffset, CLUT_SIZE, vertexSize);
-        meshIndex++;
-        meshOffset += CLUT_SIZE;
+    mesh.attribute(meshIndex, meshOffset, CLUT_SIZE, VERTEX_SIZE);
+    meshIndex++;
+    meshOffset += CLUT_SIZE;
 
-        mesh.attribute(meshIndex, meshOffset, COLOUR_SIZE, vertexSize);
-        meshIndex++;
-        meshOffset += COLOUR_SIZE;
+    mesh.attribute(meshIndex, meshOffset, COLOUR_SIZE, VERTEX_SIZE);
+    meshIndex++;
+    meshOffset += COLOUR_SIZE;
 
-        mesh.attribute(meshIndex, meshOffset, FLAGS_SIZE, vertexSize);
+    mesh.attribute(meshIndex, meshOffset, FLAGS_SIZE, VERTEX_SIZE);
+  }
 
-        meshes[i] = mesh;
-      }
+  /** Fits a bounding sphere around the vertices, centred on their bounding box */
+  private static void setBounds(final Obj obj, final Vector3f[] vertices) {
+    if(vertices.length == 0) {
+      return;
     }
 
-    return new MeshObj(name, meshes, backfaceCulling);
+    final Vector3f min = new Vector3f(Float.POSITIVE_INFINITY);
+    final Vector3f max = new Vector3f(Float.NEGATIVE_INFINITY);
+
+    for(final Vector3f vertex : vertices) {
+      min.min(vertex);
+      max.max(vertex);
+    }
+
+    final Vector3f centre = min.add(max).mul(0.5f);
+    float radiusSquared = 0.0f;
+
+    for(final Vector3f vertex : vertices) {
+      radiusSquared = Math.max(radiusSquared, centre.distanceSquared(vertex));
+    }
+
+    obj.setBounds(centre, (float)Math.sqrt(radiusSquared));
   }
 
   private static void getTranslucencySizes(final TmdObjTable1c objTable, final int specialFlags, final float[][] vertices, final int[][] indices) {
@@ -1,27 +1,20 @@
 package legend.core.opengl;
 
 import legend.game.types.Translucency;
-import org.joml.Vector2f;
 import org.joml.Vector3f;
 
 public class TmdShaderOptions implements ShaderOptions<TmdShaderOptions> {
   private final Shader<TmdShaderOptions>.UniformFloat modelIndex;
-  private final Shader<TmdShaderOptions>.UniformVec3 colourUniform;
-  private final Shader<TmdShaderOptions>.UniformVec2 uvOffsetUniform;
-  private final Shader<TmdShaderOptions>.UniformVec2 clutUniform;
-  private final Shader<TmdShaderOptions>.UniformVec2 tpageUniform;
+  private final Shader<TmdShaderOptions>.UniformFloat colourScale;
   private final Shader<TmdShaderOptions>.UniformFloat translucency;
   private final Shader<TmdShaderOptions>.UniformFloat discardTranslucency;
   private final Shader<TmdShaderOptions>.UniformInt tmdTranslucency;
   private final Shader<TmdShaderOptions>.UniformInt ctmdFlags;
   private final Shader<TmdShaderOptions>.UniformVec3 battleColour;
 
-  public TmdShaderOptions(final Shader<TmdShaderOptions>.UniformFloat modelIndex, final Shader<TmdShaderOptions>.UniformVec3 colourUniform, final Shader<TmdShaderOptions>.UniformVec2 uvOffsetUniform, final Shader<TmdShaderOptions>.UniformVec2 clutUniform, final Shader<TmdShaderOptions>.UniformVec2 tpageUniform, final Shader<TmdShaderOptions>.UniformFloat translucency, final Shader<TmdShaderOptions>.UniformFloat discardTranslucency, final Shader<TmdShaderOptions>.UniformInt tmdTranslucency, final Shader<TmdShaderOptions>.UniformInt ctmdFlags, final Shader<TmdShaderOptions>.UniformVec3 battleColour) {
+  public TmdShaderOptions(final Shader<TmdShaderOptions>.UniformFloat modelIndex, final Shader<TmdShaderOptions>.UniformFloat colourScale, final Shader<TmdShaderOptions>.UniformFloat translucency, final Shader<TmdShaderOptions>.UniformFloat discardTranslucency, final Shader<TmdShaderOptions>.UniformInt tmdTranslucency, final Shader<TmdShaderOptions>.UniformInt ctmdFlags, final Shader<TmdShaderOptions>.UniformVec3 battleColour) {
     this.modelIndex = modelIndex;
-    this.colourUniform = colourUniform;
-    this.uvOffsetUniform = uvOffsetUniform;
-    this.clutUniform = clutUniform;
-    this.tpageUniform = tpageUniform;
+    this.colourScale = colourScale;
     this.translucency = translucency;
     this.discardTranslucency = discardTranslucency;
     this.tmdTranslucency = tmdTranslucency;
@@ -34,23 +27,9 @@ public class TmdShaderOptions implements ShaderOptions<TmdShaderOptions> {
     return this;
   }
 
-  public TmdShaderOptions colour(final Vector3f colour) {
-    this.colourUniform.set(colour);
-    return this;
-  }
-
-  public TmdShaderOptions uvOffset(final Vector2f colour) {
-    this.uvOffsetUniform.set(colour);
-    return this;
-  }
-
-  public TmdShaderOptions clut(final Vector2f clut) {
-    this.clutUniform.set(clut);
-    return this;
-  }
-
-  public TmdShaderOptions tpage(final Vector2f tpage) {
-    this.tpageUniform.set(tpage);
+  /** Multiplies every instance's colour, which is otherwise read from the per-model transforms */
+  public TmdShaderOptions colourScale(final float scale) {
+    this.colourScale.set(scale);
     return this;
   }
 
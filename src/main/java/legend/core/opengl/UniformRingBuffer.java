@@ -0,0 +1,142 @@
+package legend.core.opengl;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL11C.glGetInteger;
+import static org.lwjgl.opengl.GL15C.glBindBuffer;
+import static org.lwjgl.opengl.GL15C.glDeleteBuffers;
+import static org.lwjgl.opengl.GL15C.glGenBuffers;
+import static org.lwjgl.opengl.GL30C.GL_MAP_WRITE_BIT;
+import static org.lwjgl.opengl.GL30C.glBindBufferRange;
+import static org.lwjgl.opengl.GL30C.glMapBufferRange;
+import static org.lwjgl.opengl.GL31C.GL_UNIFORM_BUFFER;
+import static org.lwjgl.opengl.GL31C.GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT;
+import static org.lwjgl.opengl.GL32C.GL_SYNC_FLUSH_COMMANDS_BIT;
+import static org.lwjgl.opengl.GL32C.GL_SYNC_GPU_COMMANDS_COMPLETE;
+import static org.lwjgl.opengl.GL32C.GL_WAIT_FAILED;
+import static org.lwjgl.opengl.GL32C.GL_TIMEOUT_EXPIRED;
+import static org.lwjgl.opengl.GL32C.glClientWaitSync;
+import static org.lwjgl.opengl.GL32C.glDeleteSync;
+import static org.lwjgl.opengl.GL32C.glFenceSync;
+import static org.lwjgl.opengl.GL44C.GL_MAP_COHERENT_BIT;
+import static org.lwjgl.opengl.GL44C.GL_MAP_PERSISTENT_BIT;
+import static org.lwjgl.opengl.GL44C.glBufferStorage;
+
+/**
+ * A uniform buffer that stays mapped for its whole life and is split into one segment per frame in flight. Everything a frame
+ * needs is written straight into its segment and bound with {@link #bind}, rather than uploaded with {@code glBufferSubData}
+ * before every draw. A fence guards each segment so that the CPU never overwrites data the GPU hasn't finished reading.
+ */
+public class UniformRingBuffer {
+  private static final Logger LOGGER = LogManager.getFormatterLogger(UniformRingBuffer.class);
+
+  private static final int FRAMES = 3;
+
+  private final int id;
+  private final int binding;
+  private final long segmentSize;
+  private final int alignment;
+  private final ByteBuffer mapped;
+  private final long[] fences = new long[FRAMES];
+
+  private int segment;
+  private long position;
+
+  /** Persistent mapping needs {@code glBufferStorage}, which is core in 4.4 and otherwise an extension */
+  public static boolean isSupported() {
+    final GLCapabilities caps = GL.getCapabilities();
+    return caps.OpenGL44 || caps.GL_ARB_buffer_storage;
+  }
+
+  public UniformRingBuffer(final long segmentSize, final int binding) {
+    this.alignment = glGetInteger(GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT);
+    this.segmentSize = this.align(segmentSize);
+    this.binding = binding;
+
+    final int flags = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+    this.id = glGenBuffers();
+    glBindBuffer(GL_UNIFORM_BUFFER, this.id);
+    glBufferStorage(GL_UNIFORM_BUFFER, this.segmentSize * FRAMES, flags);
+    this.mapped = glMapBufferRange(GL_UNIFORM_BUFFER, 0L, this.segmentSize * FRAMES, flags).order(ByteOrder.nativeOrder());
+    glBindBuffer(GL_UNIFORM_BUFFER, 0);
+  }
+
+  public int getAlignment() {
+    return this.alignment;
+  }
+
+  /** Moves on to the next frame's segment, waiting for the GPU if it's still reading from it */
+  public void beginFrame() {
+    this.segment = (this.segment + 1) % FRAMES;
+    this.position = 0;
+
+    final long fence = this.fences[this.segment];
+    if(fence != 0) {
+      int result;
+      do {
+        result = glClientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, 1_000_000L);
+      } while(result == GL_TIMEOUT_EXPIRED);
+
+      if(result == GL_WAIT_FAILED) {
+        LOGGER.warn("Failed to wait for uniform ring buffer fence");
+      }
+
+      glDeleteSync(fence);
+      this.fences[this.segment] = 0;
+    }
+  }
+
+  /** Must be called once all of this frame's draws that read from the buffer have been issued */
+  public void endFrame() {
+    this.fences[this.segment] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+  }
+
+  /**
+   * Reserves space in this frame's segment
+   *
+   * @return the offset of the space, suitably aligned for {@link #bind}, or -1 if the segment is full
+   */
+  public long allocate(final long size) {
+    final long aligned = this.align(size);
+
+    if(this.position + aligned > this.segmentSize) {
+      return -1;
+    }
+
+    final long offset = this.segment * this.segmentSize + this.position;
+    this.position += aligned;
+    return offset;
+  }
+
+  /** A view of {@code size} bytes of the mapped buffer at {@code offset} */
+  public FloatBuffer floats(final long offset, final long size) {
+    return this.mapped.slice((int)offset, (int)size).order(ByteOrder.nativeOrder()).asFloatBuffer();
+  }
+
+  /** Binds a range of the buffer to this buffer's binding point, {@code offset} must be a multiple of the alignment */
+  public void bind(final long offset, final long size) {
+    glBindBufferRange(GL_UNIFORM_BUFFER, this.binding, this.id, offset, size);
+  }
+
+  public void delete() {
+    for(int i = 0; i < FRAMES; i++) {
+      if(this.fences[i] != 0) {
+        glDeleteSync(this.fences[i]);
+        this.fences[i] = 0;
+      }
+    }
+
+    glDeleteBuffers(this.id);
+  }
+
+  private long align(final long size) {
+    return (size + this.alignment - 1) / this.alignment * this.alignment;
+  }
+}
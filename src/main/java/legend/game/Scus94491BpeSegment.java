@@ -6,16 +6,16 @@ import javafx.application.Application;
 import javafx.application.Platform;
 import legend.core.Config;
 import legend.core.DebugHelper;
+import legend.core.FrameProfiler;
 import legend.core.MathHelper;
 import legend.core.gpu.Bpp;
 import legend.core.gpu.Gpu;
 import legend.core.gpu.GpuCommandPoly;
-import legend.core.gpu.GpuCommandQuad;
 import legend.core.gpu.GpuCommandSetMaskBit;
 import legend.core.gpu.Rect4i;
 import legend.core.memory.Method;
 import legend.core.opengl.MatrixStack;
-import legend.core.opengl.Obj;
+import legend.core.opengl.ObjRegistry;
 import legend.core.opengl.ScissorStack;
 import legend.core.spu.Voice;
 import legend.game.combat.Battle;
@@ -49,6 +49,7 @@ import legend.game.types.BattleReportOverlayList10;
 import legend.game.types.TextboxBorderMetrics0c;
 import legend.game.types.Translucency;
 import legend.game.unpacker.FileData;
+import legend.game.unpacker.LoadPriority;
 import legend.game.unpacker.Unpacker;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -56,6 +57,7 @@ import org.apache.logging.log4j.Logger;
 import javax.annotation.Nullable;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -387,6 +389,12 @@ public final class Scus94491BpeSegment {
 
     legacyUi = true;
 
+    final FrameProfiler.CpuSection overlayProfile = RENDERER.profiler.cpu("Load overlay");
+    final FrameProfiler.CpuSection uiProfile = RENDERER.profiler.cpu("Render UI");
+    final FrameProfiler.CpuSection engineStateProfile = RENDERER.profiler.cpu("Engine state tick");
+    final FrameProfiler.CpuSection screensProfile = RENDERER.profiler.cpu("Screens");
+    final FrameProfiler.CpuSection scriptsProfile = RENDERER.profiler.cpu("Scripts");
+
     RENDERER.setRenderCallback(() -> {
       if(legacyUi) {
         GPU.startFrame();
@@ -399,19 +407,29 @@ public final class Scus94491BpeSegment {
       final int frames = Math.max(1, vsyncMode_8007a3b8);
       RENDERER.window().setFpsLimit((60 / frames) * Config.getGameSpeedMultiplier());
 
+      overlayProfile.begin();
       loadQueuedOverlay();
+      overlayProfile.end();
 
+      uiProfile.begin();
       renderUi();
+      uiProfile.end();
 
       if(currentEngineState_8004dd04 != null) {
+        engineStateProfile.begin();
         currentEngineState_8004dd04.tick();
+        engineStateProfile.end();
       }
 
       EVENTS.postEvent(RENDER_EVENT);
 
+      screensProfile.begin();
       SCREENS.render(RENDERER, matrixStack, scissorStack);
+      screensProfile.end();
 
+      scriptsProfile.begin();
       SCRIPTS.tick();
+      scriptsProfile.end();
 
       if(currentEngineState_8004dd04 != null) {
         currentEngineState_8004dd04.postScriptTick();
@@ -517,7 +535,11 @@ public final class Scus94491BpeSegment {
       return;
     }
 
-    Obj.clearObjList(false);
+    ObjRegistry.endScope(engineState.name());
+
+    // Speculative loads were for the state we're leaving
+    Unpacker.cancelLoads(LoadPriority.LOW);
+    Unpacker.cancelPrefetch();
 
     //LAB_80012ad8
     currentEngineState_8004dd04 = overlay.constructor_00.get();
@@ -783,7 +805,7 @@ public final class Scus94491BpeSegment {
       final int x0 = x * 40;
       final int y0 = y * 40;
 
-      GPU.queueCommand(30, new GpuCommandPoly(4)
+      GPU.queueCommand(30, GPU.commands.poly(4)
         .rgb(cos, cos, cos)
         .pos(0, x0 - (sin - 20) - centreScreenX_1f8003dc, y0 - (sin - 20) - centreScreenY_1f8003de)
         .pos(1, x0 - (centreScreenX_1f8003dc - 40), y0 - centreScreenY_1f8003de)
@@ -817,7 +839,7 @@ public final class Scus94491BpeSegment {
     Unpacker.loadDirectory(dir, onCompletion);
   }
 
-  public static void loadDrgnFiles(int drgnBinIndex, final Consumer<List<FileData>> onCompletion, final String... files) {
+  public static CompletableFuture<List<FileData>> loadDrgnFiles(int drgnBinIndex, final Consumer<List<FileData>> onCompletion, final String... files) {
     if(drgnBinIndex >= 2) {
       drgnBinIndex = 20 + drgnBinIndex_800bc058;
     }
@@ -830,18 +852,18 @@ public final class Scus94491BpeSegment {
       paths[i] = "SECT/DRGN%d.BIN/%s".formatted(drgnBinIndex, files[i]);
     }
 
-    Unpacker.loadFiles(onCompletion, paths);
+    return Unpacker.loadFiles(onCompletion, paths);
   }
 
-  public static void loadDrgnFile(final int drgnBinIndex, final int file, final Consumer<FileData> onCompletion) {
-    loadDrgnFile(drgnBinIndex, String.valueOf(file), onCompletion);
+  public static CompletableFuture<FileData> loadDrgnFile(final int drgnBinIndex, final int file, final Consumer<FileData> onCompletion) {
+    return loadDrgnFile(drgnBinIndex, String.valueOf(file), onCompletion);
   }
 
   public static void loadDrgnFileSync(final int drgnBinIndex, final int file, final Consumer<FileData> onCompletion) {
     loadDrgnFileSync(drgnBinIndex, String.valueOf(file), onCompletion);
   }
 
-  public static void loadDrgnFile(int drgnBinIndex, final String file, final Consumer<FileData> onCompletion) {
+  public static CompletableFuture<FileData> loadDrgnFile(int drgnBinIndex, final String file, final Consumer<FileData> onCompletion) {
     if(drgnBinIndex >= 2) {
       drgnBinIndex = 20 + drgnBinIndex_800bc058;
     }
@@ -849,7 +871,7 @@ public final class Scus94491BpeSegment {
     final StackWalker.StackFrame frame = DebugHelper.getCallerFrame();
     LOGGER.info("Loading DRGN%d %s from %s.%s(%s:%d)", drgnBinIndex, file, frame.getClassName(), frame.getMethodName(), frame.getFileName(), frame.getLineNumber());
 
-    Unpacker.loadFile("SECT/DRGN%d.BIN/%s".formatted(drgnBinIndex, file), onCompletion);
+    return Unpacker.loadFile("SECT/DRGN%d.BIN/%s".formatted(drgnBinIndex, file), onCompletion);
   }
 
   public static void loadDrgnFileSync(int drgnBinIndex, final String file, final Consumer<FileData> onCompletion) {
@@ -863,7 +885,11 @@ public final class Scus94491BpeSegment {
     onCompletion.accept(Unpacker.loadFile("SECT/DRGN%d.BIN/%s".formatted(drgnBinIndex, file)));
   }
 
-  public static void loadDrgnDir(int drgnBinIndex, final int directory, final Consumer<List<FileData>> onCompletion) {
+  public static CompletableFuture<List<FileData>> loadDrgnDir(final int drgnBinIndex, final int directory, final Consumer<List<FileData>> onCompletion) {
+    return loadDrgnDir(drgnBinIndex, directory, LoadPriority.NORMAL, onCompletion);
+  }
+
+  public static CompletableFuture<List<FileData>> loadDrgnDir(int drgnBinIndex, final int directory, final LoadPriority priority, final Consumer<List<FileData>> onCompletion) {
     if(drgnBinIndex >= 2) {
       drgnBinIndex = 20 + drgnBinIndex_800bc058;
     }
@@ -871,7 +897,7 @@ public final class Scus94491BpeSegment {
     final StackWalker.StackFrame frame = DebugHelper.getCallerFrame();
     LOGGER.info("Loading DRGN%d dir %d from %s.%s(%s:%d)", drgnBinIndex, directory, frame.getClassName(), frame.getMethodName(), frame.getFileName(), frame.getLineNumber());
 
-    Unpacker.loadDirectory("SECT/DRGN%d.BIN/%d".formatted(drgnBinIndex, directory), onCompletion);
+    return Unpacker.loadDirectory("SECT/DRGN%d.BIN/%d".formatted(drgnBinIndex, directory), priority, onCompletion);
   }
 
   public static void loadDrgnDirSync(int drgnBinIndex, final String directory, final Consumer<List<FileData>> onCompletion) {
@@ -896,7 +922,7 @@ public final class Scus94491BpeSegment {
     onCompletion.accept(Unpacker.loadDirectory("SECT/DRGN%d.BIN/%d".formatted(drgnBinIndex, directory)));
   }
 
-  public static void loadDrgnDir(int drgnBinIndex, final String directory, final Consumer<List<FileData>> onCompletion) {
+  public static CompletableFuture<List<FileData>> loadDrgnDir(int drgnBinIndex, final String directory, final Consumer<List<FileData>> onCompletion) {
     if(drgnBinIndex >= 2) {
       drgnBinIndex = 20 + drgnBinIndex_800bc058;
     }
@@ -904,7 +930,7 @@ public final class Scus94491BpeSegment {
     final StackWalker.StackFrame frame = DebugHelper.getCallerFrame();
     LOGGER.info("Loading DRGN%d dir %s from %s.%s(%s:%d)", drgnBinIndex, directory, frame.getClassName(), frame.getMethodName(), frame.getFileName(), frame.getLineNumber());
 
-    Unpacker.loadDirectory("SECT/DRGN%d.BIN/%s".formatted(drgnBinIndex, directory), onCompletion);
+    return Unpacker.loadDirectory("SECT/DRGN%d.BIN/%s".formatted(drgnBinIndex, directory), onCompletion);
   }
 
   @ScriptDescription("Does nothing")
@@ -1145,7 +1171,7 @@ public final class Scus94491BpeSegment {
     for(int chunkX = 0; chunkX < width; chunkX += 16) {
       //LAB_80018380
       for(int chunkY = 0; chunkY < height; chunkY += 16) {
-        GPU.queueCommand(z, new GpuCommandQuad()
+        GPU.queueCommand(z, GPU.commands.quad()
           .bpp(Bpp.BITS_4)
           .clut(clutX, clutY)
           .vramPos(vramX, vramY)
@@ -1977,7 +2003,7 @@ public final class Scus94491BpeSegment {
             final int top = sp14 + v + s2 + sp24;
 
             //LAB_8001b734
-            final GpuCommandPoly cmd = new GpuCommandPoly(4)
+            final GpuCommandPoly cmd = GPU.commands.poly(4)
               .bpp(Bpp.BITS_15)
               .translucent(Translucency.HALF_B_PLUS_HALF_F)
               .monochrome(dissolveDarkening_800bd700.brightnessAccumulator_08 >> 8)
@@ -2017,10 +2043,10 @@ public final class Scus94491BpeSegment {
     final int top = -height / 2;
     final int bottom = height / 2;
 
-    GPU.queueCommand(6, new GpuCommandQuad().monochrome(1).pos(left - 32, top - 32, width + 64, 36));
-    GPU.queueCommand(6, new GpuCommandQuad().monochrome(1).pos(left - 32, bottom - 4, width + 64, 36));
-    GPU.queueCommand(6, new GpuCommandQuad().monochrome(1).pos(left - 32, top, 36, height));
-    GPU.queueCommand(6, new GpuCommandQuad().monochrome(1).pos(right - 4, top, 36, height));
+    GPU.queueCommand(6, GPU.commands.quad().monochrome(1).pos(left - 32, top - 32, width + 64, 36));
+    GPU.queueCommand(6, GPU.commands.quad().monochrome(1).pos(left - 32, bottom - 4, width + 64, 36));
+    GPU.queueCommand(6, GPU.commands.quad().monochrome(1).pos(left - 32, top, 36, height));
+    GPU.queueCommand(6, GPU.commands.quad().monochrome(1).pos(right - 4, top, 36, height));
   }
 
   /** The game doesn't continue rendering when battles are loading, this basically continues rendering the last frame that was rendered, but slightly darker each time */
@@ -2028,7 +2054,7 @@ public final class Scus94491BpeSegment {
   public static void renderBattleStartingScreenDarkening(final int x, final int y) {
     renderBattleStartingBorders();
 
-    GPU.queueCommand(6, new GpuCommandPoly(4)
+    GPU.queueCommand(6, GPU.commands.poly(4)
       .bpp(Bpp.BITS_15)
       .monochrome(MathHelper.clamp((int)(dissolveDarkening_800bd700.brightnessAccumulator_08 * 1.1f) >> 8, 0x80 - 2 * vsyncMode_8007a3b8, 0x80))
       .pos(0, x, y)
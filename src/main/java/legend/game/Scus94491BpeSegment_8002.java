@@ -2,7 +2,6 @@ package legend.game;
 
 import legend.core.MathHelper;
 import legend.core.gpu.Bpp;
-import legend.core.gpu.GpuCommandCopyVramToVram;
 import legend.core.gpu.Rect4i;
 import legend.core.gte.GsCOORDINATE2;
 import legend.core.gte.MV;
@@ -463,7 +462,7 @@ public final class Scus94491BpeSegment_8002 {
       }
 
       //LAB_800ddf8c
-      GPU.queueCommand(1, new GpuCommandCopyVramToVram(x, y + sourceYOffset, x, y + smallerStruct.sa_18[index], 16, 1));
+      GPU.queueCommand(1, GPU.commands.copyVramToVram(x, y + sourceYOffset, x, y + smallerStruct.sa_18[index], 16, 1));
     }
     //LAB_800ddff4
   }
@@ -685,7 +684,7 @@ public final class Scus94491BpeSegment_8002 {
       final short x2 = (short)(model.animationMetrics_d0[index][metricsIndex++] + vramX);
       final short y2 = (short)(model.animationMetrics_d0[index][metricsIndex++] + vramY);
 
-      GPU.queueCommand(1, new GpuCommandCopyVramToVram(x2, y2, destX & 0xffff, destY & 0xffff, w, h));
+      GPU.queueCommand(1, GPU.commands.copyVramToVram(x2, y2, destX & 0xffff, destY & 0xffff, w, h));
 
       model.usArr_ac[index]++;
 
@@ -729,18 +728,18 @@ public final class Scus94491BpeSegment_8002 {
       return;
     }
 
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(960, 256, x & 0xffff, y & 0xffff, w, h));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(960, 256, x & 0xffff, y & 0xffff, w, h));
 
     secondaryYOffsetH /= 16;
     h -= secondaryYOffsetH;
 
     if((short)copyMode == 0) {
-      GPU.queueCommand(1, new GpuCommandCopyVramToVram(x, y + h, 960, 256, w, secondaryYOffsetH));
-      GPU.queueCommand(1, new GpuCommandCopyVramToVram(x, y, 960, secondaryYOffsetH + 256, w, h));
+      GPU.queueCommand(1, GPU.commands.copyVramToVram(x, y + h, 960, 256, w, secondaryYOffsetH));
+      GPU.queueCommand(1, GPU.commands.copyVramToVram(x, y, 960, secondaryYOffsetH + 256, w, h));
     } else {
       //LAB_80022358
-      GPU.queueCommand(1, new GpuCommandCopyVramToVram(x, y, 960, h + 256, w, secondaryYOffsetH));
-      GPU.queueCommand(1, new GpuCommandCopyVramToVram(x, y + secondaryYOffsetH, 960, 256, w, h));
+      GPU.queueCommand(1, GPU.commands.copyVramToVram(x, y, 960, h + 256, w, secondaryYOffsetH));
+      GPU.queueCommand(1, GPU.commands.copyVramToVram(x, y + secondaryYOffsetH, 960, 256, w, h));
     }
     //LAB_80022440
   }
@@ -3248,6 +3247,8 @@ public final class Scus94491BpeSegment_8002 {
 
     int nudgeX = 0;
 
+    RENDERER.textBatcher.begin();
+
     //LAB_80028328
     //LAB_80028348
     for(int i = 0; i < textboxText.chars_1c * (textboxText.lines_1e + 1); i++) {
@@ -3290,14 +3291,8 @@ public final class Scus94491BpeSegment_8002 {
 
           //LAB_80028544
           //LAB_80028564
-          final int height = 12 - scrollH;
-
-          textboxText.transforms.identity();
-          textboxText.transforms.transfer.set(GPU.getOffsetX() + (int)x, GPU.getOffsetY() + (int)y - scrollH, textboxText.z_0c * 4.0f);
-          RENDERER.queueOrthoModel(RENDERER.chars, textboxText.transforms)
-            .vertices(chr.char_06 * 4, 4)
-            .colour(chr.colour_04.r / 255.0f, chr.colour_04.g / 255.0f, chr.colour_04.b / 255.0f)
-            .scissor(GPU.getOffsetX() + (int)x, GPU.getOffsetY() + (int)y + height, 8, height);
+          // The top scrollH rows are clipped, this used to be a scissor around the bottom 12 - scrollH rows of each glyph
+          RENDERER.textBatcher.glyph(chr.char_06, (int)x, (int)y - scrollH, scrollH, chr.colour_04.r / 255.0f, chr.colour_04.g / 255.0f, chr.colour_04.b / 255.0f);
         }
 
         nudgeX += getCharWidth(chr.char_06);
@@ -3305,6 +3300,9 @@ public final class Scus94491BpeSegment_8002 {
     }
 
     //LAB_800287f8
+    textboxText.transforms.identity();
+    textboxText.transforms.transfer.set(GPU.getOffsetX(), GPU.getOffsetY(), textboxText.z_0c * 4.0f);
+    RENDERER.textBatcher.queue(textboxText.transforms);
   }
 
   @Method(0x80028828L)
@@ -3410,15 +3408,37 @@ public final class Scus94491BpeSegment_8002 {
    * @param trim Positive trims top, negative trims bottom
    */
   @Method(0x80029300L)
-  public static void renderText(final LodString text, final float x, float y, final TextColour colour, int trim) {
-    final int length = textLength(text);
-
+  public static void renderText(final LodString text, final float x, final float y, final TextColour colour, int trim) {
     trim = MathHelper.clamp(trim, -12, 12);
 
     if(trim != 0) {
       LOGGER.warn("Trim not supported yet");
     }
 
+    RENDERER.textBatcher.begin();
+    batchText(text, 0, 0, colour);
+    textTransforms.transfer.set(x, y, textZ_800bdf00 * 4.0f);
+    RENDERER.textBatcher.queue(textTransforms);
+  }
+
+  /** Renders text with a shadow one pixel below and to the right of it, the text and its shadow are drawn as a single model */
+  public static void renderShadowedText(final LodString text, final float x, final float y, final TextColour colour, final TextColour shadowColour) {
+    RENDERER.textBatcher.begin();
+    batchText(text, 0, 0, colour);
+    batchText(text, 0, 1, shadowColour);
+    batchText(text, 1, 0, shadowColour);
+    batchText(text, 1, 1, shadowColour);
+    textTransforms.transfer.set(x, y, textZ_800bdf00 * 4.0f);
+    RENDERER.textBatcher.queue(textTransforms);
+  }
+
+  /** Adds the glyphs of a string to the current text batch */
+  private static void batchText(final LodString text, final int x, int y, final TextColour colour) {
+    final int length = textLength(text);
+    final float r = colour.r / 255.0f;
+    final float g = colour.g / 255.0f;
+    final float b = colour.b / 255.0f;
+
     int lineIndex = 0;
     int glyphNudge = 0;
 
@@ -3442,10 +3462,7 @@ public final class Scus94491BpeSegment_8002 {
           glyphNudge -= 3;
         }
 
-        textTransforms.transfer.set(x + lineIndex * 8 - glyphNudge, y, textZ_800bdf00 * 4.0f);
-        RENDERER.queueOrthoModel(RENDERER.chars, textTransforms)
-          .vertices(c * 4, 4)
-          .colour(colour.r / 255.0f, colour.g / 255.0f, colour.b / 255.0f);
+        RENDERER.textBatcher.glyph(c, x + lineIndex * 8 - glyphNudge, y, r, g, b);
 
         glyphNudge += switch(c) {
           case 0x5, 0x23, 0x24, 0x2a, 0x37, 0x38, 0x3a, 0x3b, 0x3c, 0x3d, 0x3f, 0x40, 0x43, 0x46, 0x47, 0x48, 0x49, 0x4a, 0x4b, 0x4d, 0x4e, 0x51, 0x52 -> 1;
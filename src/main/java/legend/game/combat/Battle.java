@@ -4,8 +4,6 @@ import legend.core.Config;
 import legend.core.MathHelper;
 import legend.core.Random;
 import legend.core.gpu.Bpp;
-import legend.core.gpu.GpuCommandCopyVramToVram;
-import legend.core.gpu.GpuCommandQuad;
 import legend.core.gpu.Rect4i;
 import legend.core.gte.GsCOORDINATE2;
 import legend.core.gte.MV;
@@ -3977,7 +3975,7 @@ public class Battle extends EngineState {
   @ScriptParam(direction = ScriptParam.Direction.IN, type = ScriptParam.Type.INT, name = "translucency", description = "The translucency mode")
   @Method(0x800cef00L)
   public FlowControl scriptRenderColouredQuad(final RunningScript<?> script) {
-    GPU.queueCommand(30, new GpuCommandQuad()
+    GPU.queueCommand(30, GPU.commands.quad()
       .translucent(Translucency.of(script.params_20[3].get() + 1))
       .rgb(script.params_20[0].get(), script.params_20[1].get(), script.params_20[2].get())
       .pos(-160, -120, 320, 280)
@@ -6841,9 +6839,9 @@ public class Battle extends EngineState {
 
   @Method(0x800ead44L)
   public void applyTextureAnimation(final Rect4i rect, final int h) {
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(960, 256, rect.x, rect.y + rect.h - h, rect.w, h));
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(rect.x, rect.y + h, rect.x, rect.y, rect.w, rect.h - h));
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(rect.x, rect.y, 960, 256, rect.w, h));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(960, 256, rect.x, rect.y + rect.h - h, rect.w, h));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(rect.x, rect.y + h, rect.x, rect.y, rect.w, rect.h - h));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(rect.x, rect.y, 960, 256, rect.w, h));
   }
 
   @Method(0x800eaec8L)
@@ -7059,11 +7057,11 @@ public class Battle extends EngineState {
   /** Used in Dart transform */
   @Method(0x800eb554L)
   public void applyRedEyeDragoonTransformationFlameArmorEffectTextureAnimations(final Rect4i a0, final Vector2i a1, final int height) {
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(960, 256, a1.x, a1.y + a0.h - height, a0.w, height));
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(a1.x, a1.y + height, a1.x, a1.y, a0.w, a0.h - height));
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(a1.x, a1.y, a0.x, a0.y + a0.h - height, a0.w, height));
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(a0.x, a0.y + height, a0.x, a0.y, a0.w, a0.h - height));
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(a0.x, a0.y, 960, 256, a0.w, height));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(960, 256, a1.x, a1.y + a0.h - height, a0.w, height));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(a1.x, a1.y + height, a1.x, a1.y, a0.w, a0.h - height));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(a1.x, a1.y, a0.x, a0.y + a0.h - height, a0.w, height));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(a0.x, a0.y + height, a0.x, a0.y, a0.w, a0.h - height));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(a0.x, a0.y, 960, 256, a0.w, height));
   }
 
   @Method(0x800eb7c4L)
@@ -7227,16 +7225,16 @@ public class Battle extends EngineState {
       if(t1 == 0) {
         s6 = 256 + s1;
 
-        GPU.queueCommand(1, new GpuCommandCopyVramToVram(960, 256, x, y, w, h));
-        GPU.queueCommand(1, new GpuCommandCopyVramToVram(x, y + s4, 960, 256, w, s1));
-        GPU.queueCommand(1, new GpuCommandCopyVramToVram(x, y, 960, s6, w, s4));
+        GPU.queueCommand(1, GPU.commands.copyVramToVram(960, 256, x, y, w, h));
+        GPU.queueCommand(1, GPU.commands.copyVramToVram(x, y + s4, 960, 256, w, s1));
+        GPU.queueCommand(1, GPU.commands.copyVramToVram(x, y, 960, s6, w, s4));
       } else {
         //LAB_800ebf88
         s6 = 256 + s4;
 
-        GPU.queueCommand(1, new GpuCommandCopyVramToVram(960, 256, x, y, w, h));
-        GPU.queueCommand(1, new GpuCommandCopyVramToVram(x, y, 960, s6, w, s1));
-        GPU.queueCommand(1, new GpuCommandCopyVramToVram(x, y + s1, 960, 256, w, s4));
+        GPU.queueCommand(1, GPU.commands.copyVramToVram(960, 256, x, y, w, h));
+        GPU.queueCommand(1, GPU.commands.copyVramToVram(x, y, 960, s6, w, s1));
+        GPU.queueCommand(1, GPU.commands.copyVramToVram(x, y + s1, 960, 256, w, s4));
       }
     }
 
@@ -7388,7 +7386,7 @@ public class Battle extends EngineState {
   @ScriptParam(direction = ScriptParam.Direction.IN, type = ScriptParam.Type.INT, name = "sourceY", description = "The source Y coordinate")
   @Method(0x800ee210L)
   public FlowControl scriptCopyVram(final RunningScript<?> script) {
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(script.params_20[4].get(), script.params_20[5].get(), script.params_20[0].get(), script.params_20[1].get(), script.params_20[2].get() / 4, (short)script.params_20[3].get()));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(script.params_20[4].get(), script.params_20[5].get(), script.params_20[0].get(), script.params_20[1].get(), script.params_20[2].get() / 4, (short)script.params_20[3].get()));
     return FlowControl.CONTINUE;
   }
 
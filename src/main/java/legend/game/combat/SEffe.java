@@ -8,9 +8,7 @@ import legend.core.gpu.Bpp;
 import legend.core.gpu.Gpu;
 import legend.core.gpu.GpuCommand;
 import legend.core.gpu.GpuCommandCopyDisplayBufferToVram;
-import legend.core.gpu.GpuCommandLine;
 import legend.core.gpu.GpuCommandPoly;
-import legend.core.gpu.GpuCommandQuad;
 import legend.core.gpu.GpuCommandSetMaskBit;
 import legend.core.gpu.Rect4i;
 import legend.core.gte.GsCOORDINATE2;
@@ -628,7 +626,7 @@ public final class SEffe {
       final float sx3 = GTE.getScreenX(2);
       final float sy3 = GTE.getScreenY(2);
 
-      final GpuCommandPoly cmd = new GpuCommandPoly(4)
+      final GpuCommandPoly cmd = GPU.commands.poly(4)
         .clut(spriteEffect.clutX_10, spriteEffect.clutY_12)
         .vramPos((spriteEffect.tpage_0c & 0b1111) * 64, (spriteEffect.tpage_0c & 0b10000) != 0 ? 256 : 0)
         .rgb(spriteEffect.r_14, spriteEffect.g_15, spriteEffect.b_16)
@@ -680,7 +678,7 @@ public final class SEffe {
         final float sin = MathHelper.sin(spriteEffect.angle_20);
         final float cos = MathHelper.cos(spriteEffect.angle_20);
 
-        final GpuCommandPoly cmd = new GpuCommandPoly(4)
+        final GpuCommandPoly cmd = GPU.commands.poly(4)
           .clut(spriteEffect.clutX_10, spriteEffect.clutY_12)
           .vramPos((spriteEffect.tpage_0c & 0b1111) * 64, (spriteEffect.tpage_0c & 0b10000) != 0 ? 256 : 0)
           .rgb(spriteEffect.r_14, spriteEffect.g_15, spriteEffect.b_16)
@@ -1305,7 +1303,7 @@ public final class SEffe {
    */
   @Method(0x80102f7cL)
   public static void renderSegmentGradient(final Vector3i colour1, final Vector3i colour2, final Vector2f[] xy, final float a3, final int a4, final Translucency translucency) {
-    final GpuCommandPoly cmd = new GpuCommandPoly(4)
+    final GpuCommandPoly cmd = GPU.commands.poly(4)
       .translucent(translucency)
       .pos(0, xy[0].x, xy[0].y)
       .pos(1, xy[1].x, xy[1].y)
@@ -1440,7 +1438,7 @@ public final class SEffe {
               }
 
               //LAB_80103834
-              final GpuCommandPoly cmd = new GpuCommandPoly(3)
+              final GpuCommandPoly cmd = GPU.commands.poly(3)
                 .translucent(translucency)
                 .pos(0, baseX0, baseY0)
                 .pos(1, centerLineOriginX, centerLineOriginY)
@@ -3121,7 +3119,7 @@ public final class SEffe {
     //LAB_80108e84
     for(int i = 0; i < effect.count_00; i++) {
       if(Math.abs(Math.abs(rainArray[i].y0_04 + rainArray[i].x0_02) - Math.abs(rainArray[i].y1_08 + rainArray[i].x1_06)) <= 180) {
-        GPU.queueCommand(30, new GpuCommandLine()
+        GPU.queueCommand(30, GPU.commands.line()
           .translucent(Translucency.of(data.params_10.flags_00 >>> 28 & 3))
           .monochrome(0, 0)
           .rgb(1, data.params_10.colour_1c.x, data.params_10.colour_1c.y, data.params_10.colour_1c.z)
@@ -3216,7 +3214,7 @@ public final class SEffe {
           final int x = (int)(MathHelper.sin(angle2) * sp30);
           final int y = (int)(s5 + s6 * s3);
 
-          GPU.queueCommand(30, new GpuCommandQuad()
+          GPU.queueCommand(30, GPU.commands.quad()
             .bpp(Bpp.BITS_15)
             .translucent(Translucency.of(data.params_10.flags_00 >>> 28 & 3))
             .rgb(data.params_10.colour_1c)
@@ -3238,7 +3236,7 @@ public final class SEffe {
 
   @Method(0x801097e0L)
   public static void renderScreenDistortionBlurEffect(final ScriptState<EffectManagerData6c<EffectManagerParams.VoidType>> state, final EffectManagerData6c<EffectManagerParams.VoidType> data) {
-    GPU.queueCommand(30, new GpuCommandQuad()
+    GPU.queueCommand(30, GPU.commands.quad()
       .bpp(Bpp.BITS_15)
       .translucent(Translucency.of(data.params_10.flags_00 >>> 28 & 3))
       .rgb(data.params_10.colour_1c)
@@ -3554,7 +3552,7 @@ public final class SEffe {
     //LAB_8010ab34
     final float z = RotTransPers4(sp0x38, sp0x40, sp0x48, sp0x50, xy0, xy1, xy2, xy3);
     if(z >= effect.projectionPlaneDistanceDiv4_20) {
-      final GpuCommandPoly cmd = new GpuCommandPoly(4)
+      final GpuCommandPoly cmd = GPU.commands.poly(4)
         .translucent(Translucency.B_PLUS_F);
 
       if(effect.type_1c == 1) {
@@ -3765,7 +3763,7 @@ public final class SEffe {
 
     //LAB_8010b764
     for(int i = 0; i < 8; i++) {
-      final GpuCommandPoly cmd = new GpuCommandPoly(3)
+      final GpuCommandPoly cmd = GPU.commands.poly(3)
         .rgb(rgb.x, rgb.y, rgb.z);
 
       switch(i) {
@@ -3875,7 +3873,7 @@ public final class SEffe {
           final int v = (i >> 1) * 64;
           final ScreenCaptureEffectMetrics8 metrics = effect.metrics_00;
 
-          GPU.queueCommand(z / 4.0f, new GpuCommandPoly(4)
+          GPU.queueCommand(z / 4.0f, GPU.commands.poly(4)
             .bpp(Bpp.BITS_15)
             .vramPos(metrics.u_00 & 0x3c0, (metrics.v_02 & 0x1) != 0 ? 256 : 0)
             .rgb(rgb.x, rgb.y, rgb.z)
@@ -3965,7 +3963,7 @@ public final class SEffe {
 
       final ScreenCaptureEffectMetrics8 metrics = effect.metrics_00;
 
-      GPU.queueCommand(z / 4.0f, new GpuCommandPoly(4)
+      GPU.queueCommand(z / 4.0f, GPU.commands.poly(4)
         .bpp(Bpp.BITS_15)
         .vramPos(metrics.u_00 & 0x3c0, (metrics.v_02 & 0x1) != 0 ? 256 : 0)
         .rgb(rgb.x, rgb.y, rgb.z)
@@ -4184,7 +4182,7 @@ public final class SEffe {
               sp0x48[3][0] = inst.x_04 - halfW + x + (w * inst.widthScale_2e >> 12);
               sp0x48[3][1] = inst.y_06 - halfH + y + (h * inst.heightScale_30 >> 12);
 
-              final GpuCommandPoly cmd = new GpuCommandPoly(4)
+              final GpuCommandPoly cmd = GPU.commands.poly(4)
                 .bpp(Bpp.BITS_4)
                 .clut(clutX, clutY)
                 .vramPos((tpage & 0b1111) * 64, (tpage & 0b10000) != 0 ? 256 : 0)
@@ -4213,7 +4211,7 @@ public final class SEffe {
             final int w2 = w * inst.widthScale_2e >> 12;
             final int h2 = h * inst.heightScale_30 >> 12;
 
-            final GpuCommandPoly cmd = new GpuCommandPoly(4)
+            final GpuCommandPoly cmd = GPU.commands.poly(4)
               .bpp(Bpp.BITS_4)
               .clut(clutX, clutY)
               .vramPos((tpage & 0b1111) * 64, (tpage & 0b10000) != 0 ? 256 : 0)
@@ -4627,7 +4625,7 @@ public final class SEffe {
       final int x = meteor.centerOffsetX_02 - w / 2;
       final int y = meteor.centerOffsetY_04 - h / 2;
 
-      final GpuCommandPoly cmd = new GpuCommandPoly(4)
+      final GpuCommandPoly cmd = GPU.commands.poly(4)
         .bpp(Bpp.BITS_4)
         .clut(clutX, clutY)
         .vramPos(vramX, vramY)
@@ -7281,7 +7279,7 @@ public final class SEffe {
         final float sinB = b * sin;
         final float cosB = b * cos;
 
-        final GpuCommandPoly cmd = new GpuCommandPoly(4)
+        final GpuCommandPoly cmd = GPU.commands.poly(4)
           .clut((clut & 0b111111) * 16, clut >>> 6)
           .vramPos(effect.metrics_54.u_00 & 0x3c0, (effect.metrics_54.v_02 & 0x100) != 0 ? 256 : 0)
           .rgb(manager.params_10.colour_1c)
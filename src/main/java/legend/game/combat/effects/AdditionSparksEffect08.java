@@ -96,7 +96,7 @@ public class AdditionSparksEffect08 implements Effect {
             a3 = 0xffe - s7;
           }
 
-          final GpuCommandLine cmd = new GpuCommandLine()
+          final GpuCommandLine cmd = GPU.commands.line()
             .translucent(Translucency.B_PLUS_F)
             .rgb(0, inst.r_40 >>> 8, inst.g_42 >>> 8, inst.b_44 >>> 8)
             .rgb(1, inst.r_40 >>> 9, inst.g_42 >>> 9, inst.b_44 >>> 9)
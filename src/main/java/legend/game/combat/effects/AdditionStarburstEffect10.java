@@ -1,7 +1,6 @@
 package legend.game.combat.effects;
 
 import legend.core.MathHelper;
-import legend.core.gpu.GpuCommandPoly;
 import legend.core.memory.Method;
 import legend.game.scripting.ScriptState;
 import legend.game.types.Translucency;
@@ -124,7 +123,7 @@ public class AdditionStarburstEffect10 implements Effect {
         x3 += translation.x;
         y3 += translation.y;
 
-        GPU.queueCommand(30, new GpuCommandPoly(4)
+        GPU.queueCommand(30, GPU.commands.poly(4)
           .translucent(Translucency.B_PLUS_F)
           .monochrome(0, 0)
           .rgb(1, manager.params_10.colour_1c)
@@ -171,7 +170,7 @@ public class AdditionStarburstEffect10 implements Effect {
           yArray[j] = sin * translationScale + translation.y;
         }
 
-        GPU.queueCommand(30, new GpuCommandPoly(3)
+        GPU.queueCommand(30, GPU.commands.poly(3)
           .translucent(Translucency.B_PLUS_F)
           .monochrome(0, 0)
           .monochrome(1, 0)
@@ -1,6 +1,5 @@
 package legend.game.combat.effects;
 
-import legend.core.gpu.GpuCommandQuad;
 import legend.core.memory.Method;
 import legend.game.scripting.ScriptState;
 import legend.game.types.Translucency;
@@ -40,7 +39,7 @@ public class FullScreenOverlayEffect0e implements Effect {
 
   @Method(0x800ceb28L)
   public void renderFullScreenOverlay(final ScriptState<EffectManagerData6c<EffectManagerParams.VoidType>> state, final EffectManagerData6c<EffectManagerParams.VoidType> manager) {
-    GPU.queueCommand(30, new GpuCommandQuad()
+    GPU.queueCommand(30, GPU.commands.quad()
       .translucent(Translucency.of(manager.params_10.flags_00 >>> 28 & 0b11))
       .rgb(this.r_00 >> 8, this.g_02 >> 8, this.b_04 >> 8)
       .pos(-160, -120, 320, 280)
@@ -1,8 +1,6 @@
 package legend.game.combat.effects;
 
 import legend.core.MathHelper;
-import legend.core.gpu.GpuCommandLine;
-import legend.core.gpu.GpuCommandPoly;
 import legend.core.memory.Method;
 import legend.game.scripting.ScriptState;
 import legend.game.types.Translucency;
@@ -70,7 +68,7 @@ public class GuardEffect06 implements Effect {
 
         //LAB_800d2bc0
         // Main part of shield effect
-        GPU.queueCommand((effectZ + managerZ) / 4.0f, new GpuCommandPoly(3)
+        GPU.queueCommand((effectZ + managerZ) / 4.0f, GPU.commands.poly(3)
           .translucent(Translucency.B_PLUS_F)
           .pos(0, pos[i + 1].x, pos[i + 1].y)
           .pos(1, pos[i + 2].x, pos[i + 2].y)
@@ -120,7 +118,7 @@ public class GuardEffect06 implements Effect {
 
           //LAB_800d2ee8
           // Radiant lines of shield effect
-          GPU.queueCommand((effectZ + managerZ) / 4.0f, new GpuCommandLine()
+          GPU.queueCommand((effectZ + managerZ) / 4.0f, GPU.commands.line()
             .translucent(Translucency.B_PLUS_F)
             .pos(0, pos[n + 1].x, pos[n + 1].y)
             .pos(1, pos[n + 2].x, pos[n + 2].y)
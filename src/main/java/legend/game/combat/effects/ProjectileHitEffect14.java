@@ -1,6 +1,5 @@
 package legend.game.combat.effects;
 
-import legend.core.gpu.GpuCommandLine;
 import legend.core.memory.Method;
 import legend.game.scripting.ScriptState;
 import legend.game.types.Translucency;
@@ -107,7 +106,7 @@ public class ProjectileHitEffect14 implements Effect {
             }
 
             //LAB_800d0444
-            GPU.queueCommand((s1_0 + a2_0) / 4.0f, new GpuCommandLine()
+            GPU.queueCommand((s1_0 + a2_0) / 4.0f, GPU.commands.line()
               .translucent(Translucency.B_PLUS_F)
               .monochrome(0, 0)
               .rgb(1, s4.r_34 >>> 8, s4.g_36 >>> 8, s4.b_38 >>> 8)
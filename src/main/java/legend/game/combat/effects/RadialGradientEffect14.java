@@ -1,6 +1,5 @@
 package legend.game.combat.effects;
 
-import legend.core.gpu.GpuCommandPoly;
 import legend.core.memory.Method;
 import legend.core.memory.types.QuadConsumer;
 import legend.game.scripting.ScriptState;
@@ -40,7 +39,7 @@ public class RadialGradientEffect14 implements Effect {
   @Method(0x800d1d3cL)
   private void renderDiscGradientEffect(final EffectManagerData6c<EffectManagerParams.RadialGradientType> manager, final int angle, final Vector2f[] vertices, final Translucency translucency) {
     if(manager.params_10.flags_00 >= 0) {
-      GPU.queueCommand((this.z_04 + manager.params_10.z_22) / 4.0f, new GpuCommandPoly(3)
+      GPU.queueCommand((this.z_04 + manager.params_10.z_22) / 4.0f, GPU.commands.poly(3)
         .translucent(translucency)
         .rgb(0, manager.params_10.colour_1c)
         .rgb(1, this.r_0c, this.g_0d, this.b_0e)
@@ -83,7 +82,7 @@ public class RadialGradientEffect14 implements Effect {
       final Vector2f screenVert1 = new Vector2f();
       FUN_800cfb14(manager, sp0x30, screenVert1);
 
-      GPU.queueCommand((this.z_04 + manager.params_10.z_22) / 4.0f, new GpuCommandPoly(4)
+      GPU.queueCommand((this.z_04 + manager.params_10.z_22) / 4.0f, GPU.commands.poly(4)
         .translucent(translucency)
         .rgb(0, manager.params_10.colour_1c)
         .rgb(1, manager.params_10.colour_1c)
@@ -134,7 +134,7 @@ public class WeaponTrailEffect3c implements Effect {
         transformWorldspaceToScreenspace(segment.endpointCoords_04[1], v3);
         renderCoordThresholdExceeded = renderCoordThresholdExceeded || Math.abs(v3.x) > renderCoordThreshold || Math.abs(v3.y) > renderCoordThreshold;
 
-        final GpuCommandPoly cmd = new GpuCommandPoly(4)
+        final GpuCommandPoly cmd = GPU.commands.poly(4)
           .translucent(Translucency.B_PLUS_F)
           .pos(0, v0.x, v0.y)
           .pos(1, v1.x, v1.y)
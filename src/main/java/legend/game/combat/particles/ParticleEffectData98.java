@@ -5,6 +5,7 @@ import legend.core.gte.TmdObjTable1c;
 import legend.core.memory.types.QuadConsumer;
 import legend.core.memory.types.TriConsumer;
 import legend.core.opengl.Obj;
+import legend.core.opengl.QuadBuilder;
 import legend.game.combat.effects.Effect;
 import legend.game.combat.effects.EffectManagerData6c;
 import legend.game.combat.effects.EffectManagerParams;
@@ -62,6 +63,8 @@ public class ParticleEffectData98 implements Effect {
   public ParticleEffectData98 next_94;
 
   public Obj obj;
+  /** Quad particles are streamed every frame rather than built into {@link #obj} */
+  public QuadBuilder quad;
   public final MV transforms = new MV();
 
   public ParticleEffectData98(final int count) {
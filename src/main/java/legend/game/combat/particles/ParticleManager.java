@@ -3,9 +3,7 @@ package legend.game.combat.particles;
 import legend.core.MathHelper;
 import legend.core.RenderEngine;
 import legend.core.gpu.Bpp;
-import legend.core.gpu.GpuCommandLine;
 import legend.core.gpu.GpuCommandPoly;
-import legend.core.gpu.GpuCommandQuad;
 import legend.core.gte.MV;
 import legend.core.gte.ModelPart10;
 import legend.core.gte.TmdObjTable1c;
@@ -15,6 +13,7 @@ import legend.core.memory.types.QuadConsumer;
 import legend.core.memory.types.TriConsumer;
 import legend.core.opengl.Obj;
 import legend.core.opengl.QuadBuilder;
+import legend.core.opengl.StreamingMesh;
 import legend.core.opengl.TmdObjLoader;
 import legend.game.combat.Battle;
 import legend.game.combat.bent.BattleEntity27c;
@@ -156,7 +155,7 @@ public class ParticleManager {
   @Method(0x800fce10L)
   private void renderLineParticles(final EffectManagerData6c<EffectManagerParams.ParticleType> manager, final ParticleMetrics48 particleMetrics) {
     if(particleMetrics.flags_00 >= 0) {
-      GPU.queueCommand((particleMetrics.z_04 + manager.params_10.z_22) / 4.0f, new GpuCommandLine()
+      GPU.queueCommand((particleMetrics.z_04 + manager.params_10.z_22) / 4.0f, GPU.commands.line()
         .translucent(Translucency.B_PLUS_F)
         .rgb(0, (int)(particleMetrics.colour0_40.x * 0xff), (int)(particleMetrics.colour0_40.y * 0xff), (int)(particleMetrics.colour0_40.z * 0xff))
         .rgb(1, (int)(particleMetrics.colour1_44.x * 0xff), (int)(particleMetrics.colour1_44.y * 0xff), (int)(particleMetrics.colour1_44.z * 0xff))
@@ -1153,7 +1152,7 @@ public class ParticleManager {
 
           //LAB_800fdf44
           // gp0 command 68h, which is an opaque dot (1x1)
-          GPU.queueCommand((z + manager.params_10.z_22) / 4.0f, new GpuCommandQuad()
+          GPU.queueCommand((z + manager.params_10.z_22) / 4.0f, GPU.commands.quad()
             .rgb((int)(colour.x * 0xff), (int)(colour.y * 0xff), (int)(colour.z * 0xff))
             .pos(ref.x, ref.y, 1, 1)
           );
@@ -1176,8 +1175,8 @@ public class ParticleManager {
 
     effect.countFramesRendered_52++;
 
-    if(effect.obj == null) {
-      final QuadBuilder builder = new QuadBuilder("Particle")
+    if(effect.quad == null) {
+      effect.quad = new QuadBuilder("Particle")
         .bpp(Bpp.BITS_4)
         .clut((effect.clut_5c & 0b111111) * 16, effect.clut_5c >>> 6)
         .vramPos(effect.u_58 & 0x3c0, effect.v_5a < 256 ? 0 : 256)
@@ -1186,12 +1185,13 @@ public class ParticleManager {
         .size(effect.w_5e, effect.h_5f);
 
       if((manager.params_10.flags_00 & 1 << 30) != 0) {
-        builder.translucency(Translucency.of(manager.params_10.flags_00 >>> 28 & 0b11));
+        effect.quad.translucency(Translucency.of(manager.params_10.flags_00 >>> 28 & 0b11));
       }
-
-      effect.obj = builder.build();
     }
 
+    // Every particle this frame shares the one streamed quad
+    final StreamingMesh.Range quad = effect.quad.stream(RENDERER.streamingTriangles);
+
     final Vector3f colour = new Vector3f();
     final Vector3f colourMod = new Vector3f();
     final Vector3f colourStep = new Vector3f();
@@ -1233,7 +1233,7 @@ public class ParticleManager {
         //LAB_800fe300
         MathHelper.clamp(colour.add(colourMod), 0.0f, 0.5f);
 
-        final GpuCommandPoly cmd1 = new GpuCommandPoly(4)
+        final GpuCommandPoly cmd1 = GPU.commands.poly(4)
           .clut((effect.clut_5c & 0b111111) * 16, effect.clut_5c >>> 6)
           .vramPos(effect.u_58 & 0x3c0, effect.v_5a < 256 ? 0 : 256)
           .rgb((int)(colour.x * 0xff), (int)(colour.y * 0xff), (int)(colour.z * 0xff))
@@ -1259,7 +1259,8 @@ public class ParticleManager {
           effect.transforms.transfer.x += GPU.getOffsetX();
           effect.transforms.transfer.y += GPU.getOffsetY();
           effect.transforms.transfer.z = effectZ * 4.0f;
-          RENDERER.queueOrthoModel(effect.obj, effect.transforms)
+          RENDERER.queueOrthoModel(quad.obj(), effect.transforms)
+            .vertices(quad.startVertex(), quad.vertexCount())
             .colour(colour);
         }
 
@@ -1287,7 +1288,7 @@ public class ParticleManager {
                 effectZ = 4094 - instZ;
               }
 
-              final GpuCommandPoly cmd2 = new GpuCommandPoly(cmd1);
+              final GpuCommandPoly cmd2 = GPU.commands.poly(cmd1);
 
               particleSub = particle.particleInstanceSubArray_80[k];
 
@@ -1831,7 +1832,7 @@ public class ParticleManager {
 
       if(v1 == 0) {
         //LAB_801011a0
-        final GpuCommandPoly cmd = new GpuCommandPoly(4);
+        final GpuCommandPoly cmd = GPU.commands.poly(4);
 
         //LAB_801011d8
         for(int i = 0; i < effect.countParticleSub_54; i++) {
@@ -737,7 +737,7 @@ public class BattleHud {
               final int right = left + spBarW;
               final int bottom = top + 3;
 
-              final GpuCommandPoly cmd = new GpuCommandPoly(4)
+              final GpuCommandPoly cmd = GPU.commands.poly(4)
                 .pos(0, left, top)
                 .pos(1, right, top)
                 .pos(2, left, bottom)
@@ -3014,7 +3014,7 @@ public class BattleHud {
 
   @Method(0x800f9ee8L)
   private void drawLine(final int x1, final int y1, final int x2, final int y2, final int r, final int g, final int b, final boolean translucent) {
-    final GpuCommandLine cmd = new GpuCommandLine()
+    final GpuCommandLine cmd = GPU.commands.line()
       .rgb(0, r, g, b)
       .rgb(1, r, g, b)
       .pos(0, x1, y1)
@@ -705,7 +705,7 @@ public final class Fmv {
 
     final int offset = archiveIndex == 3 ? 4 : 16;
 
-    final byte[] fileData = Unpacker.loadFile(System.getProperty("user.dir") + "\\files\\XA\\LODXA0" + archiveIndex + ".XA").data();
+    final byte[] fileData = Unpacker.loadFile("XA/LODXA0" + archiveIndex + ".XA").getBytes();
     sector = 0;
 
     try {
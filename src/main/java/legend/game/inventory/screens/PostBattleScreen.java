@@ -557,7 +557,7 @@ public class PostBattleScreen extends MenuScreen {
     x -= 8 + displayWidth_1f8003e0 / 2;
     y -= 120;
 
-    final GpuCommandPoly cmd = new GpuCommandPoly(4)
+    final GpuCommandPoly cmd = GPU.commands.poly(4)
       .pos(0, x, y)
       .pos(1, x + w, y)
       .pos(2, x, y + h)
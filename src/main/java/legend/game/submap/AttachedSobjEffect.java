@@ -467,7 +467,7 @@ public class AttachedSobjEffect {
         final int tpage = segment.tpage_04;
 
         //LAB_800f0b04
-        final GpuCommandPoly cmd = new GpuCommandPoly(4)
+        final GpuCommandPoly cmd = GPU.commands.poly(4)
           .translucent(Translucency.of(tpage >>> 5 & 0b11))
           .pos(0, screenOffsetX + segment.originVerts01_24.vert0_00.x, screenOffsetY + segment.originVerts01_24.vert0_00.y)
           .pos(1, screenOffsetX + segment.originVerts01_24.vert1_08.x, screenOffsetY + segment.originVerts01_24.vert1_08.y)
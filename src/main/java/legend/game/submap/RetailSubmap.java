@@ -2,6 +2,8 @@ package legend.game.submap;
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import legend.core.RenderEngine;
 import legend.core.gpu.Bpp;
 import legend.core.gpu.Rect4i;
@@ -16,6 +18,7 @@ import legend.core.opengl.Obj;
 import legend.core.opengl.QuadBuilder;
 import legend.core.opengl.Texture;
 import legend.core.opengl.TmdObjLoader;
+import legend.game.combat.environment.EncounterData38;
 import legend.game.modding.events.submap.SubmapEnvironmentTextureEvent;
 import legend.game.modding.events.submap.SubmapObjectTextureEvent;
 import legend.game.scripting.ScriptFile;
@@ -28,6 +31,7 @@ import legend.game.types.MoonMusic08;
 import legend.game.types.NewRootStruct;
 import legend.game.types.TmdAnimationFile;
 import legend.game.unpacker.FileData;
+import legend.game.unpacker.LoadPriority;
 import legend.game.unpacker.Unpacker;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -39,6 +43,7 @@ import org.joml.Vector3f;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -171,7 +176,9 @@ public class RetailSubmap extends Submap {
     this.newRoot.getDrgnFile(this.cut, drgnIndex, fileIndex);
 
     drgnBinIndex_800bc058 = drgnIndex.get();
-    loadDrgnDir(2, fileIndex.get(), files -> {
+
+    // Nothing can be drawn without the environment, so don't let the sobj asset loads get ahead of it
+    loadDrgnDir(2, fileIndex.get(), LoadPriority.HIGH, files -> {
       this.loadBackground("DRGN2%d/%d".formatted(drgnIndex.get(), fileIndex.get()), files);
       onLoaded.run();
     });
@@ -246,6 +253,70 @@ public class RetailSubmap extends Submap {
         }, prepareMapAndComplete));
       }
     }
+
+    this.prefetchNeighbours();
+  }
+
+  /**
+   * Warms the file cache with the battle stages and monsters of this cut's random encounters, and the assets of every cut that
+   * this one transitions to, so that they're ready by the time the player gets there.
+   */
+  private void prefetchNeighbours() {
+    if(this.cut < encounterData_800f64c4.length && encounterData_800f64c4[this.cut].rate_02 != 0) {
+      final SubmapEncounterData_04 encounterData = encounterData_800f64c4[this.cut];
+      final int[] encounterIds = sceneEncounterIds_800f74c4[encounterData.scene_00];
+
+      Unpacker.prefetch("SECT/DRGN0.BIN/" + (2497 + encounterData.stage_03), "SECT/DRGN0.BIN/" + (2497 + encounterData.stage_03) + "/0");
+
+      // The monsters are listed in the encounter file, which is read on the prefetch thread
+      Unpacker.prefetch(() -> {
+        final byte[] encounters = Unpacker.loadFile("encounters").getBytes();
+        final Set<String> paths = new LinkedHashSet<>();
+
+        for(final int encounterId : encounterIds) {
+          paths.add("SECT/DRGN0.BIN/" + (2625 + encounterId));
+
+          final EncounterData38 encounter = new EncounterData38(encounters, encounterId * 0x38);
+          for(final short enemyIndex : encounter.enemyIndices_00) {
+            if((enemyIndex & 0x1ff) != 0x1ff) {
+              paths.add("SECT/DRGN0.BIN/" + (3137 + (enemyIndex & 0x1ff)));
+              paths.add("SECT/DRGN1.BIN/" + ((enemyIndex & 0x1ff) + 1));
+            }
+          }
+        }
+
+        return paths;
+      });
+    }
+
+    final SubmapCutInfo entry = this.newRoot.submapCutInfo_0000[this.cut];
+    final short offset = entry.collisionAndTransitionOffset_04;
+
+    if(offset < 0) {
+      return;
+    }
+
+    final IntSet cuts = new IntOpenHashSet();
+    for(int i = 0; i < entry.collisionAndTransitionCount_06; i++) {
+      final int collisionAndTransitionInfo = this.newRoot.collisionAndTransitions_2000[offset / 4 + i];
+      final int cut = collisionAndTransitionInfo >>> 22;
+
+      if((collisionAndTransitionInfo & 0x10) != 0 && cut != this.cut && cut < smapFileIndices_800f982c.length && cuts.add(cut)) {
+        final IntRef drgnIndex = new IntRef();
+        final IntRef fileIndex = new IntRef();
+        this.newRoot.getDrgnFile(cut, drgnIndex, fileIndex);
+
+        if(drgnIndex.get() >= 1 && drgnIndex.get() <= 4) {
+          final String dir = "SECT/DRGN2%d.BIN/".formatted(drgnIndex.get());
+          Unpacker.prefetch(dir + fileIndex.get(), dir + (fileIndex.get() + 1), dir + (fileIndex.get() + 2), dir + (fileIndex.get() + 1) + "/textures");
+
+          final int cutFileIndex = smapFileIndices_800f982c[cut];
+          if(cutFileIndex != 0) {
+            Unpacker.prefetch("SECT/DRGN0.BIN/" + cutFileIndex, "SECT/DRGN0.BIN/" + (cutFileIndex + 1));
+          }
+        }
+      }
+    }
   }
 
   @Override
@@ -359,6 +430,9 @@ public class RetailSubmap extends Submap {
   public void unload() {
     previousSubmapCut_800bda08 = this.cut;
 
+    // Anything that hasn't been prefetched by now was predicted for the submap we're leaving
+    Unpacker.cancelPrefetch();
+
     if(this.theEnd_800d4bd0 != null) {
       this.theEnd_800d4bd0.deallocate();
       this.theEnd_800d4bd0 = null;
@@ -5,9 +5,6 @@ import legend.core.IoHelper;
 import legend.core.MathHelper;
 import legend.core.RenderEngine;
 import legend.core.gpu.Bpp;
-import legend.core.gpu.GpuCommandCopyVramToVram;
-import legend.core.gpu.GpuCommandLine;
-import legend.core.gpu.GpuCommandPoly;
 import legend.core.gte.GsCOORDINATE2;
 import legend.core.gte.MV;
 import legend.core.gte.ModelPart10;
@@ -2644,7 +2641,7 @@ public class SMap extends EngineState {
   }
 
   private void queueCollisionRectPacket(final Vector2f v0, final Vector2f v1, final int colour) {
-    GPU.queueCommand(37, new GpuCommandPoly(4)
+    GPU.queueCommand(37, GPU.commands.poly(4)
       .translucent(Translucency.B_PLUS_F)
       .rgb(colour)
       .pos(0, v0.x, v0.y)
@@ -2655,7 +2652,7 @@ public class SMap extends EngineState {
   }
 
   private void queueMovementLinePacket(final Vector2f v0, final Vector2f v1, final int colour) {
-    GPU.queueCommand(37, new GpuCommandLine()
+    GPU.queueCommand(37, GPU.commands.line()
       .translucent(Translucency.B_PLUS_F)
       .rgb(colour)
       .pos(0, v0.x, v0.y)
@@ -4869,8 +4866,8 @@ public class SMap extends EngineState {
     animateModel(model, 4 / vsyncMode_8007a3b8);
     this.renderSmapModel(model, null);
 
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(984, 288 + this._800f9ea0, 992, 288, 8, 64 - this._800f9ea0));
-    GPU.queueCommand(1, new GpuCommandCopyVramToVram(984, 288, 992, 352 - this._800f9ea0, 8, this._800f9ea0));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(984, 288 + this._800f9ea0, 992, 288, 8, 64 - this._800f9ea0));
+    GPU.queueCommand(1, GPU.commands.copyVramToVram(984, 288, 992, 352 - this._800f9ea0, 8, this._800f9ea0));
 
     this._800f9ea0 = this._800f9ea0 + 1 & 0x3f;
 
@@ -5305,7 +5302,7 @@ public class SMap extends EngineState {
     if(loadMode == 0) {
       //LAB_800f4660
       this.loadMiscTextures(11);
-      GPU.queueCommand(1, new GpuCommandCopyVramToVram(992, 288, 984, 288, 8, 64)); // Copies the save point texture beside itself
+      GPU.queueCommand(1, GPU.commands.copyVramToVram(992, 288, 984, 288, 8, 64)); // Copies the save point texture beside itself
       this.submapEffectsLoadMode_800f9ea8++;
       this.submapEffectsState_800f9eac = 1;
     } else if(loadMode == 1) {
@@ -1018,7 +1018,7 @@ public class Ttle extends EngineState {
     final int colour = rsin(this.logoFlashColour) * 160 >> 12;
 
     // GP0.66 Textured quad, variable size, translucent, blended
-    final GpuCommandQuad cmd = new GpuCommandQuad()
+    final GpuCommandQuad cmd = GPU.commands.quad()
       .translucent(Translucency.B_PLUS_F)
       .bpp(Bpp.BITS_15)
       .monochrome(colour)
@@ -129,7 +129,7 @@ public final class Renderer {
       }
       // ---
 
-      final GpuCommandPoly cmd = new GpuCommandPoly(vertexCount);
+      final GpuCommandPoly cmd = GPU.commands.poly(vertexCount);
 
       if(textured) {
         cmd.clut((poly.clut & 0b111111) * 16, poly.clut >>> 6);
@@ -1,14 +1,14 @@
 package legend.game.types;
 
+import legend.core.opengl.GlState;
+
 import javax.annotation.Nonnull;
 
 import static org.lwjgl.opengl.GL11C.GL_ONE;
 import static org.lwjgl.opengl.GL11C.GL_ONE_MINUS_SRC_ALPHA;
 import static org.lwjgl.opengl.GL11C.GL_SRC_ALPHA;
-import static org.lwjgl.opengl.GL11C.glBlendFunc;
 import static org.lwjgl.opengl.GL14C.GL_FUNC_ADD;
 import static org.lwjgl.opengl.GL14C.GL_FUNC_REVERSE_SUBTRACT;
-import static org.lwjgl.opengl.GL14C.glBlendEquation;
 
 public enum Translucency {
   /** 0.5 x background + 0.5 x foreground */
@@ -51,18 +51,18 @@ public enum Translucency {
   public void setGlState() {
     switch(this) {
       case HALF_B_PLUS_HALF_F -> {
-        glBlendEquation(GL_FUNC_ADD);
-        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        GlState.blendEquation(GL_FUNC_ADD);
+        GlState.blendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
       }
 
       case B_PLUS_F -> {
-        glBlendEquation(GL_FUNC_ADD);
-        glBlendFunc(GL_ONE, GL_ONE);
+        GlState.blendEquation(GL_FUNC_ADD);
+        GlState.blendFunc(GL_ONE, GL_ONE);
       }
 
       case B_MINUS_F -> {
-        glBlendEquation(GL_FUNC_REVERSE_SUBTRACT);
-        glBlendFunc(GL_ONE, GL_ONE);
+        GlState.blendEquation(GL_FUNC_REVERSE_SUBTRACT);
+        GlState.blendFunc(GL_ONE, GL_ONE);
       }
 
       default -> throw new RuntimeException(this + " not yet supported");
@@ -0,0 +1,179 @@
+package legend.game.unpacker;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static legend.game.unpacker.Unpacker.LOGGER;
+
+/**
+ * Runs asynchronous loads on a fixed pool of threads, highest {@link LoadPriority} first. Every load returns a future that
+ * completes once its callback has run, and that may be cancelled while it's still queued.
+ */
+public class AssetLoader {
+  private final ThreadPoolExecutor executor;
+  private final AtomicLong sequence = new AtomicLong();
+  private final Map<LoadPriority, Metrics> metrics = new EnumMap<>(LoadPriority.class);
+
+  public AssetLoader(final int threads) {
+    final AtomicInteger threadIndex = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), runnable -> new Thread(runnable, "Loader-" + threadIndex.getAndIncrement()));
+
+    // Otherwise the first few loads would skip the queue and bypass their priority
+    this.executor.prestartAllCoreThreads();
+
+    for(final LoadPriority priority : LoadPriority.values()) {
+      this.metrics.put(priority, new Metrics());
+    }
+  }
+
+  /**
+   * @param onFinished run once the load and its callback have finished, or once it has been cancelled, but not if it failed
+   */
+  public <T> CompletableFuture<T> submit(final LoadPriority priority, final String name, final Supplier<T> load, final Consumer<T> onCompletion, final Runnable onFinished) {
+    final LoadTask<T> task = new LoadTask<>(priority, this.sequence.getAndIncrement(), name, load, onCompletion, onFinished);
+
+    task.future.whenComplete((result, e) -> {
+      // Cancelled before it started running, pull it out of the queue
+      if(task.future.isCancelled() && task.claimed.compareAndSet(false, true)) {
+        this.executor.remove(task);
+
+        final Metrics metrics = this.metrics.get(priority);
+        metrics.queued.decrementAndGet();
+        metrics.cancelled.increment();
+        onFinished.run();
+      }
+    });
+
+    this.metrics.get(priority).queued.incrementAndGet();
+    this.executor.execute(task);
+    return task.future;
+  }
+
+  /** Cancels every queued load of the given priority. Loads that have already started will still finish. */
+  public void cancel(final LoadPriority priority) {
+    final List<LoadTask<?>> cancelled = new ArrayList<>();
+
+    for(final Runnable runnable : this.executor.getQueue()) {
+      if(runnable instanceof final LoadTask<?> task && task.priority == priority) {
+        cancelled.add(task);
+      }
+    }
+
+    for(final LoadTask<?> task : cancelled) {
+      task.future.cancel(false);
+    }
+
+    if(!cancelled.isEmpty()) {
+      LOGGER.info("Cancelled %d %s priority loads", cancelled.size(), priority);
+    }
+  }
+
+  /** Number of loads of the given priority waiting to start */
+  public int getQueueDepth(final LoadPriority priority) {
+    return this.metrics.get(priority).queued.get();
+  }
+
+  /** Average time that loads of the given priority spent waiting to start, in milliseconds */
+  public float getAverageWaitTime(final LoadPriority priority) {
+    final Metrics metrics = this.metrics.get(priority);
+    final long started = metrics.started.sum();
+    return started == 0 ? 0.0f : metrics.waitNanos.sum() / (float)started / 1_000_000.0f;
+  }
+
+  public void shutdown() {
+    this.executor.shutdown();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("Loader");
+
+    for(final var entry : this.metrics.entrySet()) {
+      final Metrics metrics = entry.getValue();
+      sb.append(" | %s: %d queued, %d started, %d cancelled, wait avg %.2fms max %.2fms".formatted(entry.getKey(), metrics.queued.get(), metrics.started.sum(), metrics.cancelled.sum(), this.getAverageWaitTime(entry.getKey()), metrics.maxWaitNanos.get() / 1_000_000.0f));
+    }
+
+    return sb.toString();
+  }
+
+  private static final class Metrics {
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+  }
+
+  private final class LoadTask<T> implements Runnable, Comparable<LoadTask<?>> {
+    private final LoadPriority priority;
+    private final long sequence;
+    private final String name;
+    private final Supplier<T> load;
+    private final Consumer<T> onCompletion;
+    private final Runnable onFinished;
+    private final long queueTime = System.nanoTime();
+
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    /** Set by whichever of running and cancelling gets to the task first */
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    private LoadTask(final LoadPriority priority, final long sequence, final String name, final Supplier<T> load, final Consumer<T> onCompletion, final Runnable onFinished) {
+      this.priority = priority;
+      this.sequence = sequence;
+      this.name = name;
+      this.load = load;
+      this.onCompletion = onCompletion;
+      this.onFinished = onFinished;
+    }
+
+    @Override
+    public void run() {
+      if(!this.claimed.compareAndSet(false, true)) {
+        return;
+      }
+
+      final Metrics metrics = AssetLoader.this.metrics.get(this.priority);
+      final long wait = System.nanoTime() - this.queueTime;
+      metrics.queued.decrementAndGet();
+      metrics.started.increment();
+      metrics.waitNanos.add(wait);
+      metrics.maxWaitNanos.accumulateAndGet(wait, Math::max);
+
+      final T result;
+      try {
+        result = this.load.get();
+        this.onCompletion.accept(result);
+      } catch(final Throwable e) {
+        LOGGER.error("Failed to load " + this.name, e);
+        this.future.completeExceptionally(e);
+        return;
+      }
+
+      this.onFinished.run();
+      this.future.complete(result);
+    }
+
+    @Override
+    public int compareTo(final LoadTask<?> other) {
+      final int priority = this.priority.compareTo(other.priority);
+
+      if(priority != 0) {
+        return priority;
+      }
+
+      return Long.compare(this.sequence, other.sequence);
+    }
+  }
+}
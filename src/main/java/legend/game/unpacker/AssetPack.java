@@ -0,0 +1,396 @@
+package legend.game.unpacker;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A single memory-mapped archive holding every unpacked file.
+ *
+ * <p>Packs are named {@code files.<generation>.pack}. A new pack is always written to the next generation rather than over
+ * the current one since a mapped file can't be replaced on Windows until its mappings are garbage collected. Older
+ * generations are deleted once the newest one is opened, or on a later start if they're still mapped.
+ *
+ * <pre>
+ * 0x00 int  magic "PACK"
+ * 0x04 int  version
+ * 0x08 int  entry count
+ * 0x0c      entries, sorted by path: ushort path length, UTF-8 path, long offset, int size, int flags
+ *           file data, each file contained entirely within one {@link #MAPPING_SIZE} mapping
+ * </pre>
+ */
+public class AssetPack {
+  private static final Logger LOGGER = LogManager.getFormatterLogger(AssetPack.class);
+
+  public static final int MAGIC = 0x4b434150;
+  public static final int VERSION = 1;
+
+  private static final int FLAG_DIRECTORY = 0x1;
+
+  private static final String PREFIX = "files.";
+  private static final String EXTENSION = ".pack";
+
+  /** Files never straddle two mappings, the writer pads to the next mapping if one would */
+  private static final long MAPPING_SIZE = 1L << 30;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final MappedByteBuffer[] mappings;
+
+  private final String[] paths;
+  private final long[] offsets;
+  private final int[] sizes;
+  private final int[] flags;
+
+  /** @return the generation of a pack file, or -1 if the file isn't a pack */
+  private static long getGeneration(final Path path) {
+    final String name = path.getFileName().toString();
+
+    if(!name.startsWith(PREFIX) || !name.endsWith(EXTENSION) || name.length() <= PREFIX.length() + EXTENSION.length()) {
+      return -1;
+    }
+
+    try {
+      return Long.parseLong(name, PREFIX.length(), name.length() - EXTENSION.length(), 10);
+    } catch(final NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /** @return the newest pack in {@code directory}, or null if there isn't one */
+  @Nullable
+  public static Path findLatest(final Path directory) throws IOException {
+    Path latest = null;
+    long latestGeneration = -1;
+
+    try(final DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+      for(final Path child : children) {
+        final long generation = getGeneration(child);
+
+        if(generation > latestGeneration && Files.isRegularFile(child)) {
+          latest = child;
+          latestGeneration = generation;
+        }
+      }
+    }
+
+    return latest;
+  }
+
+  /** @return the path the next pack in {@code directory} should be written to */
+  public static Path getNextPath(final Path directory) throws IOException {
+    final Path latest = findLatest(directory);
+    return directory.resolve(PREFIX + (latest != null ? getGeneration(latest) + 1 : 0) + EXTENSION);
+  }
+
+  /** Deletes every pack in {@code directory} older than {@code current}, leaving any that are still mapped for next time */
+  public static void deleteOldGenerations(final Path directory, final Path current) throws IOException {
+    final long currentGeneration = getGeneration(current);
+
+    try(final DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+      for(final Path child : children) {
+        final long generation = getGeneration(child);
+
+        if(generation != -1 && generation < currentGeneration) {
+          try {
+            Files.deleteIfExists(child);
+          } catch(final IOException e) {
+            LOGGER.warn("Failed to delete old asset pack %s, it will be deleted on the next start", child);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes a new pack containing {@code nodes} and the {@code carriedOver} paths copied from {@code previous}. {@code path}
+   * must not be the previous pack, see {@link #getNextPath}. Nodes take priority over carried over files with the same path.
+   */
+  public static void write(final Path path, final Collection<PathNode> nodes, final FileData emptyDirectorySentinel, @Nullable final AssetPack previous, final Set<String> carriedOver) throws IOException {
+    if(previous != null && path.equals(previous.path)) {
+      throw new IllegalArgumentException("Can't write over the previous pack " + path);
+    }
+
+    final List<Entry> entries = new ArrayList<>();
+    final Set<String> written = new HashSet<>();
+    for(final PathNode node : nodes) {
+      // Virtual files are resolved through their MRG map and are never written
+      if(node.data.realFileIndex() == -1) {
+        if(!written.add(node.fullPath)) {
+          throw new UnpackerException("Duplicate path " + node.fullPath + " in asset pack");
+        }
+
+        final boolean directory = node.data == emptyDirectorySentinel;
+        entries.add(new Entry(node.fullPath, directory ? 0 : node.data.size(), directory ? FLAG_DIRECTORY : 0, node.data, -1));
+      }
+    }
+
+    if(previous != null) {
+      for(final String carriedOverPath : carriedOver) {
+        final int index = previous.indexOf(carriedOverPath);
+
+        if(index >= 0 && written.add(carriedOverPath)) {
+          entries.add(new Entry(carriedOverPath, previous.sizes[index], previous.flags[index], null, index));
+        }
+      }
+    }
+
+    entries.sort(Comparator.comparing(Entry::path));
+
+    final byte[][] pathBytes = new byte[entries.size()][];
+    int indexSize = 0xc;
+    for(int i = 0; i < entries.size(); i++) {
+      pathBytes[i] = entries.get(i).path.getBytes(StandardCharsets.UTF_8);
+      indexSize += 2 + pathBytes[i].length + 16;
+    }
+
+    final ByteBuffer index = ByteBuffer.allocate(indexSize).order(ByteOrder.LITTLE_ENDIAN);
+    index.putInt(MAGIC);
+    index.putInt(VERSION);
+    index.putInt(entries.size());
+
+    long offset = indexSize;
+    final long[] offsets = new long[entries.size()];
+    for(int i = 0; i < entries.size(); i++) {
+      final Entry entry = entries.get(i);
+
+      if(offset % MAPPING_SIZE + entry.size > MAPPING_SIZE) {
+        offset = (offset / MAPPING_SIZE + 1) * MAPPING_SIZE;
+      }
+
+      offsets[i] = offset;
+
+      index.putShort((short)pathBytes[i].length);
+      index.put(pathBytes[i]);
+      index.putLong(offset);
+      index.putInt(entry.size);
+      index.putInt(entry.flags);
+
+      offset += entry.size;
+    }
+
+    // Write to a temp file first so that a cancelled unpack never leaves a truncated pack behind
+    final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+    try(final FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      index.flip();
+      while(index.hasRemaining()) {
+        out.write(index);
+      }
+
+      for(int i = 0; i < entries.size(); i++) {
+        final Entry entry = entries.get(i);
+
+        if(entry.size == 0) {
+          continue;
+        }
+
+        final ByteBuffer data;
+        if(entry.data != null) {
+          data = ByteBuffer.wrap(entry.data.data(), entry.data.offset(), entry.data.size());
+        } else {
+          data = previous.slice(entry.previousIndex);
+        }
+
+        long position = offsets[i];
+        while(data.hasRemaining()) {
+          position += out.write(data, position);
+        }
+      }
+    }
+
+    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  public AssetPack(final Path path) throws IOException {
+    this.path = path;
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+    final long size = this.channel.size();
+    this.mappings = new MappedByteBuffer[(int)((size + MAPPING_SIZE - 1) / MAPPING_SIZE)];
+
+    for(int i = 0; i < this.mappings.length; i++) {
+      final long start = i * MAPPING_SIZE;
+      this.mappings[i] = this.channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAPPING_SIZE, size - start));
+      this.mappings[i].order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    final ByteBuffer header = this.mappings[0].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+    if(header.getInt() != MAGIC) {
+      throw new IOException("Invalid asset pack " + path);
+    }
+
+    final int version = header.getInt();
+    if(version != VERSION) {
+      throw new IOException("Unsupported asset pack version " + version + " in " + path);
+    }
+
+    final int count = header.getInt();
+    this.paths = new String[count];
+    this.offsets = new long[count];
+    this.sizes = new int[count];
+    this.flags = new int[count];
+
+    for(int i = 0; i < count; i++) {
+      final byte[] pathBytes = new byte[header.getShort() & 0xffff];
+      header.get(pathBytes);
+      this.paths[i] = new String(pathBytes, StandardCharsets.UTF_8);
+      this.offsets[i] = header.getLong();
+      this.sizes[i] = header.getInt();
+      this.flags[i] = header.getInt();
+    }
+  }
+
+  public void close() throws IOException {
+    this.channel.close();
+  }
+
+  public int getCount() {
+    return this.paths.length;
+  }
+
+  private int indexOf(final String path) {
+    return Arrays.binarySearch(this.paths, path);
+  }
+
+  public boolean exists(final String path) {
+    return this.isFile(path) || this.isDirectory(path);
+  }
+
+  public boolean isFile(final String path) {
+    final int index = this.indexOf(path);
+    return index >= 0 && (this.flags[index] & FLAG_DIRECTORY) == 0;
+  }
+
+  public boolean isDirectory(final String path) {
+    final int index = this.indexOf(path);
+
+    if(index >= 0) {
+      return (this.flags[index] & FLAG_DIRECTORY) != 0;
+    }
+
+    // Directories are implied by the paths of their children, which sort directly after the directory prefix
+    final String prefix = path + '/';
+    final int insertion = -this.indexOf(prefix) - 1;
+    return insertion >= 0 && insertion < this.paths.length && this.paths[insertion].startsWith(prefix);
+  }
+
+  /** Names of the files (not directories) directly inside of a directory */
+  public Set<String> listFiles(final String directory) {
+    final String prefix = directory.isEmpty() ? "" : directory + '/';
+    final Set<String> files = new LinkedHashSet<>();
+
+    int index = this.indexOf(prefix);
+    if(index < 0) {
+      index = -index - 1;
+    }
+
+    for(; index < this.paths.length && this.paths[index].startsWith(prefix); index++) {
+      final String name = this.paths[index].substring(prefix.length());
+
+      if(name.indexOf('/') == -1 && (this.flags[index] & FLAG_DIRECTORY) == 0) {
+        files.add(name);
+      }
+    }
+
+    return files;
+  }
+
+  @Nullable
+  public FileData load(final String path) {
+    final int index = this.indexOf(path);
+
+    if(index < 0 || (this.flags[index] & FLAG_DIRECTORY) != 0) {
+      return null;
+    }
+
+    final byte[] data = new byte[this.sizes[index]];
+    this.copy(index, data, 0);
+    return new FileData(data);
+  }
+
+  /**
+   * Loads several files into a single shared array with one copy out of the mapping, returning slices of that array.
+   * Missing files are returned as null.
+   */
+  public List<FileData> load(final List<String> paths) {
+    final int[] indices = new int[paths.size()];
+    long totalSize = 0;
+
+    for(int i = 0; i < indices.length; i++) {
+      indices[i] = this.indexOf(paths.get(i));
+
+      if(indices[i] >= 0 && (this.flags[indices[i]] & FLAG_DIRECTORY) == 0) {
+        totalSize += this.sizes[indices[i]];
+      } else {
+        indices[i] = -1;
+      }
+    }
+
+    if(totalSize > Integer.MAX_VALUE - 8) {
+      throw new UnpackerException("Batch of " + paths.size() + " files is too large to load at once (" + totalSize + " bytes)");
+    }
+
+    final byte[] data = new byte[(int)totalSize];
+    final List<FileData> files = new ArrayList<>();
+
+    int offset = 0;
+    for(final int index : indices) {
+      if(index == -1) {
+        files.add(null);
+        continue;
+      }
+
+      this.copy(index, data, offset);
+      files.add(new FileData(data, offset, this.sizes[index]));
+      offset += this.sizes[index];
+    }
+
+    return files;
+  }
+
+  private ByteBuffer slice(final int index) {
+    final long offset = this.offsets[index];
+    return this.mappings[(int)(offset / MAPPING_SIZE)].slice((int)(offset % MAPPING_SIZE), this.sizes[index]);
+  }
+
+  private void copy(final int index, final byte[] dest, final int destOffset) {
+    if(this.sizes[index] == 0) {
+      return;
+    }
+
+    final long offset = this.offsets[index];
+
+    // Absolute bulk get does not touch the buffer's position so concurrent loads don't interfere with each other
+    this.mappings[(int)(offset / MAPPING_SIZE)].get((int)(offset % MAPPING_SIZE), dest, destOffset, this.sizes[index]);
+  }
+
+  @Override
+  public String toString() {
+    return "Asset pack " + this.path;
+  }
+
+  /** An entry to be written, either from an unpacked node or copied from a previous pack */
+  private record Entry(String path, int size, int flags, @Nullable FileData data, int previousIndex) { }
+}
@@ -0,0 +1,122 @@
+package legend.game.unpacker;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of loaded files, keyed by path and bounded by the total size of the cached data. The cache holds
+ * its own copy of every file and hands out copies, since callers are free to patch the data they're given in place.
+ *
+ * <p>Both copies are deliberate. Loaded files are modified in place, e.g. {@code TmdObjTable1c} rewrites the packet lengths
+ * of every TMD it parses. A read-only view can't be handed out instead since {@link FileData} is a record that exposes its
+ * backing array through {@link FileData#data} and {@link FileData#getBytes}, so nothing would stop a caller from writing
+ * through it and corrupting every later load of that file. The copy is still far cheaper than the disk or pack read it
+ * replaces.</p>
+ */
+public class FileCache {
+  private final long budget;
+  /** Access-ordered, the eldest entry is the least recently used */
+  private final Map<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /** @param budget the maximum total size of the cached files in bytes, 0 disables the cache */
+  public FileCache(final long budget) {
+    this.budget = budget;
+  }
+
+  @Nullable
+  public FileData get(final String path) {
+    if(this.budget == 0) {
+      return null;
+    }
+
+    final byte[] data;
+    synchronized(this) {
+      data = this.entries.get(path);
+
+      if(data == null) {
+        this.misses++;
+        return null;
+      }
+
+      this.hits++;
+    }
+
+    // The caller owns what it's given, see the class docs for why this can't be shared
+    return new FileData(data.clone());
+  }
+
+  /** Checks for a file without counting a hit or miss or marking it as used */
+  public synchronized boolean contains(final String path) {
+    return this.entries.containsKey(path);
+  }
+
+  public void put(final String path, final FileData file) {
+    // Never let a single file flush the whole cache
+    if(file.size() > this.budget / 4) {
+      return;
+    }
+
+    // The caller keeps using the file it loaded, and files from a batch load are slices of one shared array which must not be
+    // kept alive by a single cached entry
+    final byte[] data = new byte[file.size()];
+    file.copyFrom(data);
+
+    synchronized(this) {
+      final byte[] previous = this.entries.put(path, data);
+
+      if(previous != null) {
+        this.size -= previous.length;
+      }
+
+      this.size += data.length;
+
+      final Iterator<byte[]> it = this.entries.values().iterator();
+      while(this.size > this.budget && it.hasNext()) {
+        this.size -= it.next().length;
+        it.remove();
+        this.evictions++;
+      }
+    }
+  }
+
+  public synchronized void invalidate(final String path) {
+    final byte[] data = this.entries.remove(path);
+
+    if(data != null) {
+      this.size -= data.length;
+    }
+  }
+
+  public synchronized void invalidateAll() {
+    this.entries.clear();
+    this.size = 0;
+  }
+
+  public synchronized long getSize() {
+    return this.size;
+  }
+
+  public synchronized long getHits() {
+    return this.hits;
+  }
+
+  public synchronized long getMisses() {
+    return this.misses;
+  }
+
+  public synchronized long getEvictions() {
+    return this.evictions;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "File cache %d/%d KiB, %d entries, %d hits, %d misses, %d evictions".formatted(this.size / 1024, this.budget / 1024, this.entries.size(), this.hits, this.misses, this.evictions);
+  }
+}
@@ -1,94 +1,131 @@
 package legend.game.unpacker;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
+/**
+ * Reads raw-mode (2352 bytes per sector) disk images. The image is memory-mapped so that {@link #readSectors} is lock-free and may
+ * be called from any number of threads at once. The sequential {@link #seekSector}/{@link #read} API still has a shared position
+ * and must be synchronized externally.
+ */
 public class IsoReader {
   public static final int SECTOR_SIZE = 2352;
   public static final int SYNC_PATTER_SIZE = 12;
 
+  private static final int SECTOR_DATA_SIZE = 0x800;
+  private static final int SECTOR_HEADER_SIZE = 24;
+
+  /** Each mapping covers a whole number of sectors so that a sector never straddles two mappings */
+  private static final int SECTORS_PER_MAPPING = Integer.MAX_VALUE / SECTOR_SIZE;
+
   private final Path path;
-  private final RandomAccessFile file;
+  private final FileChannel channel;
+  private final MappedByteBuffer[] mappings;
+  private long pos;
 
   public final int lba;
 
   public IsoReader(final Path path) throws IOException {
     this.path = path;
-    this.file = new RandomAccessFile(path.toFile(), "r");
-    this.lba = (int)(this.file.length() / SECTOR_SIZE);
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+    final long size = this.channel.size();
+    this.lba = (int)(size / SECTOR_SIZE);
+
+    final long mappingSize = (long)SECTORS_PER_MAPPING * SECTOR_SIZE;
+    this.mappings = new MappedByteBuffer[(int)((size + mappingSize - 1) / mappingSize)];
+
+    for(int i = 0; i < this.mappings.length; i++) {
+      final long start = i * mappingSize;
+      this.mappings[i] = this.channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(mappingSize, size - start));
+    }
   }
 
-  public long getPos() throws IOException {
-    return this.file.getFilePointer();
+  public Path getPath() {
+    return this.path;
   }
 
-  public void setPos(final long pos) throws IOException {
-    this.file.seek(pos);
+  public long getPos() {
+    return this.pos;
   }
 
-  public void seekSector(final long sector) throws IOException {
-    this.file.seek(sector * SECTOR_SIZE + SYNC_PATTER_SIZE);
+  public void setPos(final long pos) {
+    this.pos = pos;
   }
 
-  public void seekSectorRaw(final long sector) throws IOException {
-    this.file.seek(sector * SECTOR_SIZE);
+  public void seekSector(final long sector) {
+    this.pos = sector * SECTOR_SIZE + SYNC_PATTER_SIZE;
   }
 
-  public void advance(final int amount) throws IOException {
-    final int skipped = this.file.skipBytes(amount);
+  public void seekSectorRaw(final long sector) {
+    this.pos = sector * SECTOR_SIZE;
+  }
 
-    if(skipped != amount) {
-      throw new RuntimeException("Skipped the wrong number of bytes. End of file? Negative amount? (requested: " + amount + ", actual: " + skipped + ')');
+  public void advance(final int amount) throws IOException {
+    if(amount < 0 || this.pos + amount > this.channel.size()) {
+      throw new RuntimeException("Skipped the wrong number of bytes. End of file? Negative amount? (requested: " + amount + ", position: " + this.pos + ')');
     }
+
+    this.pos += amount;
   }
 
   public void read(final byte[] out) throws IOException {
-    this.file.read(out);
+    this.read(out, 0, out.length);
   }
 
   public void read(final byte[] out, final int offset, final int length) throws IOException {
-    this.file.read(out, offset, length);
-  }
-
-  public byte[] readSectors(int sector, final int length, final boolean raw) {
-    int sectorsRead = 0;
-    int dataRead = 0;
-    boolean endOfRecord = false;
-    final int sectorCount = (length + 0x7ff) / 0x800;
-
-    try {
-      final byte[] sectorData = new byte[0x930];
+    final ByteBuffer buffer = ByteBuffer.wrap(out, offset, length);
 
-      int sectorSize = 0;
-      byte[] data = null;
+    while(buffer.hasRemaining()) {
+      final int read = this.channel.read(buffer, this.pos);
 
-      while(!endOfRecord) {
-        this.seekSectorRaw(sector);
-        this.read(sectorData);
+      if(read == -1) {
+        break;
+      }
 
-        if(data == null) {
-          sectorSize = raw || ((sectorData[16 + 2] >>> 5) & 1) != 0 ? 0x930 : 0x800;
-          data = new byte[raw ? sectorSize * sectorCount : length];
-        }
+      this.pos += read;
+    }
+  }
 
-        endOfRecord = sectorsRead >= sectorCount - 1;
+  /**
+   * Reads a file starting at the given sector. In non-raw mode, the sync pattern, header, and subheader are stripped from every
+   * sector and only the user data is returned. This does not touch the shared read position and is safe to call concurrently.
+   */
+  public byte[] readSectors(final int sector, final int length, final boolean raw) {
+    final int sectorCount = Math.max(1, (length + SECTOR_DATA_SIZE - 1) / SECTOR_DATA_SIZE);
 
-        if(raw) {
-          System.arraycopy(sectorData, 0, data, dataRead, sectorSize);
-        } else {
-          System.arraycopy(sectorData, 24, data, dataRead, Math.min(sectorSize, length - dataRead));
-        }
+    // Form 2 sectors (bit 5 of the submode byte) carry 0x914 bytes of user data, we pass them through whole like the raw sectors
+    final int sectorSize = raw || (this.readSectorByte(sector, 16 + 2) >>> 5 & 1) != 0 ? 0x930 : SECTOR_DATA_SIZE;
+    final byte[] data = new byte[raw ? sectorSize * sectorCount : length];
 
-        dataRead += sectorSize;
-        sector++;
-        sectorsRead++;
+    int dataRead = 0;
+    for(int i = 0; i < sectorCount; i++) {
+      if(raw) {
+        this.copySector(sector + i, 0, data, dataRead, sectorSize);
+      } else {
+        this.copySector(sector + i, SECTOR_HEADER_SIZE, data, dataRead, Math.min(sectorSize, length - dataRead));
       }
 
-      return data;
-    } catch(final IOException e) {
-      throw new RuntimeException(e);
+      dataRead += sectorSize;
     }
+
+    return data;
+  }
+
+  private byte readSectorByte(final int sector, final int offset) {
+    return this.mappings[sector / SECTORS_PER_MAPPING].get((sector % SECTORS_PER_MAPPING) * SECTOR_SIZE + offset);
+  }
+
+  private void copySector(final int sector, final int sectorOffset, final byte[] dest, final int destOffset, final int length) {
+    final MappedByteBuffer mapping = this.mappings[sector / SECTORS_PER_MAPPING];
+    final int start = (sector % SECTORS_PER_MAPPING) * SECTOR_SIZE + sectorOffset;
+
+    // Absolute bulk get does not touch the buffer's position so concurrent readers don't interfere with each other
+    mapping.get(start, dest, destOffset, Math.min(length, mapping.limit() - start));
   }
 
   @Override
@@ -0,0 +1,10 @@
+package legend.game.unpacker;
+
+/** Queued loads run in priority order, and in the order they were queued within a priority */
+public enum LoadPriority {
+  /** Something is waiting on this load right now, e.g. the frame can't be drawn without it */
+  HIGH,
+  NORMAL,
+  /** Speculative loads, these are cancelled whenever the engine state changes */
+  LOW,
+}
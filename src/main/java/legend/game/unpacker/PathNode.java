@@ -2,10 +2,9 @@ package legend.game.unpacker;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PathNode {
   public final String fullPath;
@@ -13,14 +12,23 @@ public class PathNode {
   public final FileData data;
   @Nullable
   public final PathNode parent;
-  public final Map<String, PathNode> children = new HashMap<>();
-  public final Set<String> flags = new HashSet<>();
+  /** The file read from the disks that this node was produced from, if any */
+  @Nullable
+  public final String source;
+  /** Concurrent so that transformers running on different threads can add to the tree without locking */
+  public final Map<String, PathNode> children = new ConcurrentHashMap<>();
+  public final Set<String> flags = ConcurrentHashMap.newKeySet();
 
   public PathNode(final String fullPath, final String pathSegment, final FileData data, @Nullable final PathNode parent) {
+    this(fullPath, pathSegment, data, parent, parent != null ? parent.source : null);
+  }
+
+  public PathNode(final String fullPath, final String pathSegment, final FileData data, @Nullable final PathNode parent, @Nullable final String source) {
     this.fullPath = fullPath;
     this.pathSegment = pathSegment;
     this.data = data;
     this.parent = parent;
+    this.source = source;
   }
 
   public PathNode addChild(final PathNode node) {
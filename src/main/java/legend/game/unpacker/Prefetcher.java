@@ -0,0 +1,93 @@
+package legend.game.unpacker;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static legend.game.unpacker.Unpacker.LOGGER;
+
+/**
+ * Warms the file cache in the background with files that the engine is likely to ask for soon. Prefetches are resolved one at a
+ * time on a single low-priority thread, which waits for the loader to be idle before handing each file to it, so they never
+ * hold up a real load.
+ */
+public class Prefetcher {
+  private final Consumer<String> loader;
+  private final BooleanSupplier loaderBusy;
+
+  private final BlockingDeque<Supplier<Collection<String>>> queue = new LinkedBlockingDeque<>();
+  /** Incremented on cancel, anything queued under an older generation is dropped */
+  private final AtomicInteger generation = new AtomicInteger();
+  private final AtomicInteger prefetchedCount = new AtomicInteger();
+
+  /**
+   * @param loader loads a file or directory into the cache, blocking until it's done
+   * @param loaderBusy true while real loads are in progress
+   */
+  public Prefetcher(final Consumer<String> loader, final BooleanSupplier loaderBusy) {
+    this.loader = loader;
+    this.loaderBusy = loaderBusy;
+
+    final Thread thread = new Thread(this::run, "Prefetcher");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    thread.start();
+  }
+
+  public void prefetch(final String path) {
+    this.prefetch(() -> List.of(path));
+  }
+
+  /** The paths are resolved on the prefetch thread, so they may be read from other files */
+  public void prefetch(final Supplier<Collection<String>> paths) {
+    this.queue.add(paths);
+  }
+
+  /** Drops every queued prefetch. A file that's already being read finishes loading into the cache. */
+  public void cancel() {
+    this.generation.incrementAndGet();
+    this.queue.clear();
+  }
+
+  public int getPrefetchedCount() {
+    return this.prefetchedCount.get();
+  }
+
+  private void run() {
+    while(true) {
+      try {
+        final Supplier<Collection<String>> request = this.queue.take();
+        final int generation = this.generation.get();
+
+        this.waitForIdleLoader();
+
+        for(final String path : request.get()) {
+          this.waitForIdleLoader();
+
+          if(this.generation.get() != generation) {
+            break;
+          }
+
+          this.loader.accept(path);
+          this.prefetchedCount.incrementAndGet();
+        }
+      } catch(final InterruptedException e) {
+        return;
+      } catch(final Throwable e) {
+        // A failed prefetch is only a missed opportunity, the real load will report the problem
+        LOGGER.warn("Prefetch failed", e);
+      }
+    }
+  }
+
+  private void waitForIdleLoader() throws InterruptedException {
+    while(this.loaderBusy.getAsBoolean()) {
+      Thread.sleep(5);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package legend.game.unpacker;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static legend.game.unpacker.Unpacker.LOGGER;
+
+/**
+ * Runs an action over a set of nodes on a work-stealing pool. Nodes scheduled from inside of an action (e.g. the outputs of a
+ * transformer) are pushed onto the current worker's own queue and run straight away rather than waiting for a batch to finish,
+ * idle workers steal from the other end of busy workers' queues.
+ */
+public class TransformationScheduler {
+  private final ForkJoinPool pool;
+  private final int parallelism;
+
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final LongAdder busyNanos = new LongAdder();
+  private final LongAdder taskCount = new LongAdder();
+  private volatile Consumer<PathNode> action;
+
+  public TransformationScheduler(final int parallelism) {
+    this.parallelism = parallelism;
+
+    final AtomicInteger threadIndex = new AtomicInteger();
+    this.pool = new ForkJoinPool(parallelism, pool -> {
+      final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("Unpacker-" + threadIndex.getAndIncrement());
+      return thread;
+    }, null, false);
+  }
+
+  /** Queues a node to have the current action run on it */
+  public void schedule(final PathNode node) {
+    final Task task = new Task(node);
+
+    if(ForkJoinTask.getPool() == this.pool) {
+      task.fork();
+    } else {
+      this.pool.execute(task);
+    }
+  }
+
+  /**
+   * Runs {@code action} over {@code nodes} and every node scheduled while doing so, returning once the pool is idle.
+   *
+   * @param stage the name of this stage, for logging
+   */
+  public void run(final String stage, final Collection<PathNode> nodes, final Consumer<PathNode> action) {
+    this.action = action;
+    this.failure.set(null);
+    this.busyNanos.reset();
+    this.taskCount.reset();
+    final long stealCount = this.pool.getStealCount();
+    final long start = System.nanoTime();
+
+    for(final PathNode node : nodes) {
+      this.schedule(node);
+    }
+
+    while(!this.pool.awaitQuiescence(100, TimeUnit.MILLISECONDS)) {
+      // Keep waiting, tasks bail out by themselves once one fails
+    }
+
+    final long wallNanos = System.nanoTime() - start;
+    LOGGER.info("%s: %d tasks on %d workers, workers busy %.1f%% of %fs, %d steals", stage, this.taskCount.sum(), this.parallelism, this.getUtilisation(wallNanos) * 100.0f, wallNanos / 1_000_000_000.0f, this.pool.getStealCount() - stealCount);
+
+    final Throwable failure = this.failure.get();
+    if(failure instanceof final RuntimeException e) {
+      throw e;
+    }
+
+    if(failure instanceof final Error e) {
+      throw e;
+    }
+
+    if(failure != null) {
+      throw new UnpackerException(failure);
+    }
+  }
+
+  /** Fraction of the available worker time that was spent running tasks */
+  private float getUtilisation(final long wallNanos) {
+    if(wallNanos == 0) {
+      return 0.0f;
+    }
+
+    return (float)((double)this.busyNanos.sum() / ((double)wallNanos * this.parallelism));
+  }
+
+  public void shutdown() {
+    this.pool.shutdown();
+  }
+
+  private final class Task extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final transient PathNode node;
+
+    private Task(final PathNode node) {
+      this.node = node;
+    }
+
+    @Override
+    protected void compute() {
+      if(TransformationScheduler.this.failure.get() != null) {
+        return;
+      }
+
+      final long start = System.nanoTime();
+
+      try {
+        TransformationScheduler.this.action.accept(this.node);
+      } catch(final Throwable e) {
+        TransformationScheduler.this.failure.compareAndSet(null, e);
+      } finally {
+        TransformationScheduler.this.busyNanos.add(System.nanoTime() - start);
+        TransformationScheduler.this.taskCount.increment();
+      }
+    }
+  }
+}
@@ -1,26 +1,39 @@
 package legend.game.unpacker;
 
-import java.util.Queue;
+import javax.annotation.Nullable;
+import java.util.function.Consumer;
 
 public class Transformations {
   private final PathNode root;
-  private final Queue<PathNode> transformationQueue;
+  /** Called with every node that should be transformed again */
+  private final Consumer<PathNode> scheduler;
+  private final UnpackManifest manifest;
 
-  public Transformations(final PathNode root, final Queue<PathNode> transformationQueue) {
-    this.root = root;
-    this.transformationQueue = transformationQueue;
+  /** The transformer making changes through this view, if any */
+  @Nullable
+  private final String transformerId;
+  /** The source that changes made through this view are attributed to. If null, new nodes inherit the source of their closest existing ancestor. */
+  @Nullable
+  private final String source;
+
+  public Transformations(final PathNode root, final Consumer<PathNode> scheduler, final UnpackManifest manifest) {
+    this(root, scheduler, manifest, null, null);
   }
 
-  public PathNode poll() {
-    synchronized(this.transformationQueue) {
-      return this.transformationQueue.poll();
-    }
+  private Transformations(final PathNode root, final Consumer<PathNode> scheduler, final UnpackManifest manifest, @Nullable final String transformerId, @Nullable final String source) {
+    this.root = root;
+    this.scheduler = scheduler;
+    this.manifest = manifest;
+    this.transformerId = transformerId;
+    this.source = source;
   }
 
-  public boolean isEmpty() {
-    synchronized(this.transformationQueue) {
-      return this.transformationQueue.isEmpty();
-    }
+  /**
+   * A view of these transformations for a transformer. Every node it adds is attributed to the source of {@code node}, or to the
+   * source of the node's closest existing ancestor if {@code node} is null (i.e. for branch transformers).
+   */
+  public Transformations forTransformer(final String transformerId, @Nullable final PathNode node) {
+    return new Transformations(this.root, this.scheduler, this.manifest, transformerId, node != null ? node.source : null);
   }
 
   public void addNode(final PathNode node) {
@@ -28,10 +41,7 @@ public class Transformations {
   }
 
   public void addNode(final String fullPath, final FileData data) {
-    synchronized(this.transformationQueue) {
-      final PathNode node = this.insert(fullPath, data);
-      this.transformationQueue.add(node);
-    }
+    this.scheduler.accept(this.insert(fullPath, data));
   }
 
   public void replaceNode(final PathNode node, final FileData newData) {
@@ -39,18 +49,14 @@ public class Transformations {
   }
 
   public PathNode addChild(final PathNode parent, final String pathSegment, final FileData data) {
-    synchronized(this.transformationQueue) {
-      final PathNode node = this.insert(parent.fullPath + '/' + pathSegment, data);
-      this.transformationQueue.add(node);
-      return node;
-    }
+    final PathNode node = this.insert(parent.fullPath + '/' + pathSegment, data);
+    this.scheduler.accept(node);
+    return node;
   }
 
   /** File will not be placed into the transformation queue */
   public void addUntransformableChild(final PathNode parent, final String pathSegment, final FileData data) {
-    synchronized(this.transformationQueue) {
-      this.insert(parent.fullPath + '/' + pathSegment, data);
-    }
+    this.insert(parent.fullPath + '/' + pathSegment, data);
   }
 
   private PathNode insert(String path, final FileData data) {
@@ -61,16 +67,23 @@ public class Transformations {
     int previousSlash = 0;
     while((slash = path.indexOf('/', previousSlash + 1)) != -1) {
       final String pathSegment = path.substring(previousSlash == 0 ? 0 : previousSlash + 1, slash);
-      if(!current.children.containsKey(pathSegment)) {
-        final String fullPath = current.fullPath.isEmpty() ? "" : current.fullPath + '/';
-        current = current.addChild(new PathNode(fullPath + pathSegment, pathSegment, slash == path.length() - 1 ? data : null, current));
-      } else {
-        current = current.children.get(pathSegment);
-      }
+      final PathNode parent = current;
+      final boolean leaf = slash == path.length() - 1;
+
+      // Atomic so that two transformers creating the same directory at once both end up with the same node
+      current = parent.children.computeIfAbsent(pathSegment, segment -> {
+        final String fullPath = parent.fullPath.isEmpty() ? "" : parent.fullPath + '/';
+        final String source = this.source != null ? this.source : parent.source;
+        return new PathNode(fullPath + segment, segment, leaf ? data : null, parent, source);
+      });
 
       previousSlash = slash;
     }
 
+    if(this.transformerId != null) {
+      this.manifest.recordProducer(current.source, current.fullPath, this.transformerId);
+    }
+
     return current;
   }
 }
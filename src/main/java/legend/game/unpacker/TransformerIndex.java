@@ -0,0 +1,98 @@
+package legend.game.unpacker;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the transformers that may apply to a node by hashing its path, path prefixes, file name, extension, and magic numbers,
+ * rather than running every discriminator. Transformers registered without any {@link TransformerKey}s are candidates for
+ * every node. Candidates are always returned in registration order.
+ */
+public class TransformerIndex<T> {
+  private final List<Entry<T>> fallback = new ArrayList<>();
+  private final Map<String, List<Entry<T>>> paths = new HashMap<>();
+  private final Map<String, List<Entry<T>>> prefixes = new HashMap<>();
+  private final Map<String, List<Entry<T>>> names = new HashMap<>();
+  private final Map<String, List<Entry<T>>> extensions = new HashMap<>();
+  /** Magic numbers by offset, then by value */
+  private final Int2ObjectMap<Int2ObjectMap<List<Entry<T>>>> magics = new Int2ObjectOpenHashMap<>();
+  private int count;
+
+  public void add(final T value, final List<TransformerKey> keys) {
+    final Entry<T> entry = new Entry<>(this.count++, value);
+
+    if(keys.isEmpty()) {
+      this.fallback.add(entry);
+      return;
+    }
+
+    for(final TransformerKey key : keys) {
+      switch(key.type()) {
+        case PATH -> this.paths.computeIfAbsent(key.value(), k -> new ArrayList<>()).add(entry);
+        case PREFIX -> this.prefixes.computeIfAbsent(key.value(), k -> new ArrayList<>()).add(entry);
+        case NAME -> this.names.computeIfAbsent(key.value(), k -> new ArrayList<>()).add(entry);
+        case EXTENSION -> this.extensions.computeIfAbsent(key.value(), k -> new ArrayList<>()).add(entry);
+        case MAGIC -> this.magics.computeIfAbsent(key.offset(), k -> new Int2ObjectOpenHashMap<>()).computeIfAbsent(key.magic(), k -> new ArrayList<>()).add(entry);
+      }
+    }
+  }
+
+  public int size() {
+    return this.count;
+  }
+
+  /** The transformers that may apply to {@code node}, in registration order */
+  public List<T> candidates(final PathNode node) {
+    final List<Entry<T>> entries = new ArrayList<>(this.fallback);
+
+    addAll(entries, this.paths.get(node.fullPath));
+    addAll(entries, this.names.get(node.pathSegment));
+
+    for(int slash = node.fullPath.indexOf('/'); slash != -1; slash = node.fullPath.indexOf('/', slash + 1)) {
+      addAll(entries, this.prefixes.get(node.fullPath.substring(0, slash + 1)));
+    }
+
+    final int dot = node.pathSegment.lastIndexOf('.');
+    if(dot != -1) {
+      addAll(entries, this.extensions.get(node.pathSegment.substring(dot + 1)));
+    }
+
+    if(node.data != null) {
+      for(final Int2ObjectMap.Entry<Int2ObjectMap<List<Entry<T>>>> magic : this.magics.int2ObjectEntrySet()) {
+        final int offset = magic.getIntKey();
+
+        if(node.data.size() >= offset + 4) {
+          addAll(entries, magic.getValue().get(node.data.readInt(offset)));
+        }
+      }
+    }
+
+    entries.sort(Comparator.comparingInt(Entry::ordinal));
+
+    final List<T> candidates = new ArrayList<>(entries.size());
+    int previous = -1;
+    for(final Entry<T> entry : entries) {
+      // A transformer may be found through more than one of its keys
+      if(entry.ordinal != previous) {
+        candidates.add(entry.value);
+        previous = entry.ordinal;
+      }
+    }
+
+    return candidates;
+  }
+
+  private static <T> void addAll(final List<Entry<T>> entries, final List<Entry<T>> matches) {
+    if(matches != null) {
+      entries.addAll(matches);
+    }
+  }
+
+  private record Entry<T>(int ordinal, T value) { }
+}
@@ -0,0 +1,44 @@
+package legend.game.unpacker;
+
+/**
+ * A cheap precondition for a transformer, used by {@link TransformerIndex} to skip transformers that can't possibly apply to a
+ * node. A transformer's discriminator is still run on every node that passes one of its keys.
+ */
+public record TransformerKey(Type type, String value, int offset, int magic) {
+  public enum Type {
+    /** The node's full path equals {@link #value} */
+    PATH,
+    /** The node's full path starts with {@link #value}, which must end in a slash */
+    PREFIX,
+    /** The node's file name equals {@link #value} */
+    NAME,
+    /** The node's file name ends with a dot followed by {@link #value} */
+    EXTENSION,
+    /** The node's data contains the int {@link #magic} at {@link #offset} */
+    MAGIC,
+  }
+
+  public static TransformerKey path(final String path) {
+    return new TransformerKey(Type.PATH, path, 0, 0);
+  }
+
+  public static TransformerKey prefix(final String prefix) {
+    if(!prefix.endsWith("/")) {
+      throw new IllegalArgumentException("Path prefix must end with a slash: " + prefix);
+    }
+
+    return new TransformerKey(Type.PREFIX, prefix, 0, 0);
+  }
+
+  public static TransformerKey name(final String name) {
+    return new TransformerKey(Type.NAME, name, 0, 0);
+  }
+
+  public static TransformerKey extension(final String extension) {
+    return new TransformerKey(Type.EXTENSION, extension, 0, 0);
+  }
+
+  public static TransformerKey magic(final int offset, final int magic) {
+    return new TransformerKey(Type.MAGIC, null, offset, magic);
+  }
+}
@@ -0,0 +1,266 @@
+package legend.game.unpacker;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Records, for every file read from the disks (the "source"), a hash of its contents, the version of every transformer whose
+ * discriminator was run on it or its descendants, and every file that was written as a result along with the transformer
+ * that produced it. This lets the unpacker regenerate only the sources whose inputs or transformers have changed.
+ *
+ * <p>Transformers that were checked but didn't apply are recorded too, so bumping the version of a transformer whose
+ * discriminator now matches more files regenerates the sources it was checked against. Sources are only hashed when the disk
+ * images themselves have changed.</p>
+ *
+ * <pre>
+ * T &lt;transformer id&gt; &lt;version&gt;                 one line per registered transformer
+ * D &lt;disk&gt; &lt;size&gt; &lt;last modified&gt;            one line per disk image
+ * S &lt;source&gt; &lt;crc32&gt; &lt;id&gt;=&lt;version&gt;,...    one line per source, followed by
+ * O &lt;output&gt; [&lt;id&gt;=&lt;version&gt;]              one line per file written from that source, and the transformer that wrote it
+ * </pre>
+ */
+public class UnpackManifest {
+  private static final char SEPARATOR = '\t';
+
+  /** All registered transformers and their versions at the time of the unpack */
+  private final Map<String, Integer> transformers = new TreeMap<>();
+  /** Size and last modified time of each disk image, by disk number */
+  private final Map<Integer, String> disks = new TreeMap<>();
+  private final Map<String, Source> sources = new ConcurrentHashMap<>();
+
+  public static int hash(final FileData data) {
+    final CRC32 crc32 = new CRC32();
+    crc32.update(data.data(), data.offset(), data.size());
+    return (int)crc32.getValue();
+  }
+
+  @Nullable
+  public static UnpackManifest load(final Path file) throws IOException {
+    if(!Files.isRegularFile(file)) {
+      return null;
+    }
+
+    final UnpackManifest manifest = new UnpackManifest();
+
+    try(final BufferedReader reader = Files.newBufferedReader(file)) {
+      Source source = null;
+      String line;
+      while((line = reader.readLine()) != null) {
+        if(line.isEmpty()) {
+          continue;
+        }
+
+        final String[] parts = line.split(String.valueOf(SEPARATOR));
+
+        switch(parts[0]) {
+          case "T" -> manifest.transformers.put(parts[1], Integer.parseInt(parts[2]));
+          case "D" -> manifest.disks.put(Integer.parseInt(parts[1]), parts[2] + SEPARATOR + parts[3]);
+          case "S" -> {
+            source = manifest.addSource(parts[1], Integer.parseUnsignedInt(parts[2], 16));
+
+            if(parts.length > 3) {
+              for(final String transformer : parts[3].split(",")) {
+                final int equals = transformer.indexOf('=');
+                source.transformers.put(transformer.substring(0, equals), Integer.parseInt(transformer.substring(equals + 1)));
+              }
+            }
+          }
+          case "O" -> {
+            if(source == null) {
+              throw new IOException("Output without a source in unpack manifest: " + line);
+            }
+
+            source.outputs.add(parts[1]);
+
+            if(parts.length > 2) {
+              final int equals = parts[2].indexOf('=');
+              source.producers.put(parts[1], new Producer(parts[2].substring(0, equals), Integer.parseInt(parts[2].substring(equals + 1))));
+            }
+          }
+          default -> throw new IOException("Invalid unpack manifest entry: " + line);
+        }
+      }
+    } catch(final RuntimeException e) {
+      throw new IOException("Failed to parse unpack manifest", e);
+    }
+
+    return manifest;
+  }
+
+  public void save(final Path file) throws IOException {
+    final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+    try(final BufferedWriter writer = Files.newBufferedWriter(temp)) {
+      for(final var transformer : this.transformers.entrySet()) {
+        writer.append('T').append(SEPARATOR).append(transformer.getKey()).append(SEPARATOR).append(String.valueOf(transformer.getValue())).append('\n');
+      }
+
+      for(final var disk : this.disks.entrySet()) {
+        writer.append('D').append(SEPARATOR).append(String.valueOf(disk.getKey())).append(SEPARATOR).append(disk.getValue()).append('\n');
+      }
+
+      for(final Source source : new TreeMap<>(this.sources).values()) {
+        writer.append('S').append(SEPARATOR).append(source.path).append(SEPARATOR).append(Integer.toHexString(source.hash)).append(SEPARATOR);
+
+        boolean first = true;
+        for(final var transformer : new TreeMap<>(source.transformers).entrySet()) {
+          if(!first) {
+            writer.append(',');
+          }
+
+          writer.append(transformer.getKey()).append('=').append(String.valueOf(transformer.getValue()));
+          first = false;
+        }
+
+        writer.append('\n');
+
+        for(final String output : new TreeSet<>(source.outputs)) {
+          writer.append('O').append(SEPARATOR).append(output);
+
+          final Producer producer = source.producers.get(output);
+          if(producer != null) {
+            writer.append(SEPARATOR).append(producer.id).append('=').append(String.valueOf(producer.version));
+          }
+
+          writer.append('\n');
+        }
+      }
+    }
+
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  public void registerTransformer(final String id, final int version) {
+    if(this.transformers.put(id, version) != null) {
+      throw new IllegalArgumentException("Duplicate transformer ID " + id);
+    }
+  }
+
+  /** True if exactly the same set of transformers at the same versions were registered */
+  public boolean hasSameTransformers(final UnpackManifest other) {
+    return this.transformers.equals(other.transformers);
+  }
+
+  /** True if the set of registered transformers differs other than by version, in which case any file may be affected */
+  public boolean hasDifferentTransformerIds(final UnpackManifest other) {
+    return !this.transformers.keySet().equals(other.transformers.keySet());
+  }
+
+  public void registerDisk(final int disk, final long size, final long lastModified) {
+    this.disks.put(disk, Long.toString(size) + SEPARATOR + lastModified);
+  }
+
+  /** True if every disk image has the same size and last modified time, so the sources don't need to be hashed again */
+  public boolean hasSameDisks(final UnpackManifest other) {
+    return this.disks.equals(other.disks);
+  }
+
+  public Source addSource(final String path, final int hash) {
+    final Source source = new Source(path, hash);
+    this.sources.put(path, source);
+    return source;
+  }
+
+  /** Carries a source over from a previous unpack whose outputs are still up-to-date */
+  public void copySource(final Source source) {
+    this.sources.put(source.path, source);
+  }
+
+  @Nullable
+  public Source getSource(final String path) {
+    return this.sources.get(path);
+  }
+
+  public Iterable<Source> sources() {
+    return this.sources.values();
+  }
+
+  /** Records that the discriminator of transformer {@code id} was run on a node from {@code source}, whether it matched or not */
+  public void recordTransformer(@Nullable final String source, final String id) {
+    if(source != null) {
+      final Source entry = this.sources.get(source);
+
+      if(entry != null) {
+        entry.transformers.put(id, this.transformers.get(id));
+      }
+    }
+  }
+
+  /** Records that {@code path} was last written by transformer {@code id}, it only becomes an output once {@link #recordOutput recorded} */
+  public void recordProducer(@Nullable final String source, final String path, final String id) {
+    if(source != null) {
+      final Source entry = this.sources.get(source);
+
+      if(entry != null) {
+        entry.producers.put(path, new Producer(id, this.transformers.get(id)));
+      }
+    }
+  }
+
+  public void recordOutput(@Nullable final String source, final String output) {
+    if(source != null) {
+      final Source entry = this.sources.get(source);
+
+      if(entry != null) {
+        entry.outputs.add(output);
+      }
+    }
+  }
+
+  /**
+   * True if the outputs of this source from a previous unpack can be kept, assuming its input is unchanged. Every transformer
+   * that was checked against it and every transformer that produced one of its outputs must still be registered at the same
+   * version.
+   */
+  public boolean isUpToDate(final Source previous) {
+    for(final var transformer : previous.transformers.entrySet()) {
+      if(!transformer.getValue().equals(this.transformers.get(transformer.getKey()))) {
+        return false;
+      }
+    }
+
+    for(final String output : previous.outputs) {
+      final Producer producer = previous.producers.get(output);
+
+      if(producer != null && !Integer.valueOf(producer.version).equals(this.transformers.get(producer.id))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  public static final class Source {
+    public final String path;
+    public final int hash;
+    /** Every transformer that was checked against this source's nodes, and its version */
+    public final Map<String, Integer> transformers = new ConcurrentHashMap<>();
+    public final Set<String> outputs = ConcurrentHashMap.newKeySet();
+    /** The transformer that wrote each output, outputs that are copied straight from the disk have none */
+    private final Map<String, Producer> producers = new ConcurrentHashMap<>();
+
+    private Source(final String path, final int hash) {
+      this.path = path;
+      this.hash = hash;
+    }
+
+    @Nullable
+    public String getProducer(final String output) {
+      final Producer producer = this.producers.get(output);
+      return producer != null ? producer.id : null;
+    }
+  }
+
+  private record Producer(String id, int version) { }
+}
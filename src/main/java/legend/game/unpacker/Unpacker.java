@@ -2,6 +2,8 @@ package legend.game.unpacker;
 
 import it.unimi.dsi.fastutil.ints.Int2IntArrayMap;
 import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import legend.core.IoHelper;
 import legend.core.MathHelper;
 import legend.core.Tuple;
@@ -10,38 +12,38 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.Deque;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import static legend.game.Scus94491BpeSegment.getCharacterName;
+import static legend.game.unpacker.TransformerKey.magic;
+import static legend.game.unpacker.TransformerKey.name;
+import static legend.game.unpacker.TransformerKey.path;
+import static legend.game.unpacker.TransformerKey.prefix;
 
 public final class Unpacker {
   private static final Pattern MRG_ENTRY = Pattern.compile("[=;]");
@@ -56,8 +58,11 @@ public final class Unpacker {
   private static final Pattern DRGN0_FILE = Pattern.compile("^SECT/DRGN0.BIN/\\d+/.*");
   private static final Pattern ITEM_SCRIPT = Pattern.compile("^SECT/DRGN0.BIN/\\d+/1.*");
 
-  /** Update this any time we make a breaking change */
-  private static final int VERSION = 3;
+  /**
+   * Update this any time we make a breaking change that isn't covered by a transformer's version, all files will be regenerated.
+   * Changes to a single transformer should bump its version in {@link #registerTransformer} instead.
+   */
+  private static final int VERSION = 4;
 
   static {
     System.setProperty("log4j.skipJansi", "false");
@@ -70,62 +75,107 @@ public final class Unpacker {
 
   private static final FileData EMPTY_DIRECTORY_SENTINEL = new FileData(new byte[0]);
 
+  /** When set, unpacked files are written to a single {@link AssetPack} instead of one loose file per node */
+  private static final boolean PACK_FILES = Boolean.parseBoolean(System.getProperty("lod.unpacker.pack", "false"));
+  private static final String MANIFEST_FILE = "manifest";
+  private static final Object PACK_LOCK = new Object();
+  @Nullable
+  private static volatile AssetPack pack;
+  /** Set once the files directory has been searched for a pack, so a missing pack isn't searched for on every load */
+  private static volatile boolean packSearched;
+
+  /** Size of the in-memory cache of loaded files in MiB, 0 to disable it */
+  private static final long FILE_CACHE_SIZE = Long.getLong("lod.unpacker.cacheSize", 128);
+  private static final FileCache FILE_CACHE = new FileCache(FILE_CACHE_SIZE * 1024 * 1024);
+
   private static final int availableProcessors = Runtime.getRuntime().availableProcessors();
-  private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(availableProcessors);
+  private static final AssetLoader LOADER = new AssetLoader(availableProcessors);
   private static final AtomicInteger loadingCount = new AtomicInteger();
+  /** Synchronous loads that are reading from disk right now, on any thread. Queued async loads are counted by {@link #loadingCount}. */
+  private static final AtomicInteger readingCount = new AtomicInteger();
+  private static final Prefetcher PREFETCHER = new Prefetcher(Unpacker::prefetchPath, () -> loadingCount.get() != 0 || readingCount.get() != 0);
+
+  /** Dictionaries and the unresolved byte stack for {@link #decompress}, allocated once per thread */
+  private static final ThreadLocal<BpeScratch> BPE_SCRATCH = ThreadLocal.withInitial(BpeScratch::new);
 
   /**
    * Note: the transformation pipeline is recursive and after a transformation, the file will be placed back into the transformation queue
    * until no more transformers apply to it. Discriminators must be able to recognize their own changes and return false, or the file will
    * be transformed infinitely.
    */
-  private static final Map<Discriminator, Transformer> transformers = new LinkedHashMap<>();
+  private static final List<TransformerRegistration> transformers = new ArrayList<>();
+  private static final TransformerIndex<TransformerRegistration> transformerIndex = new TransformerIndex<>();
   static {
-    transformers.put(Unpacker::decompressDiscriminator, Unpacker::decompress);
-    transformers.put(Unpacker::mrgDiscriminator, Unpacker::unmrg);
-    transformers.put(Unpacker::deffDiscriminator, Unpacker::undeff);
+    registerTransformer("decompress", 1, List.of(magic(0x4, 0x1a455042)), Unpacker::decompressDiscriminator, Unpacker::decompress);
+    registerTransformer("mrg", 1, List.of(magic(0x0, MrgArchive.MAGIC)), Unpacker::mrgDiscriminator, Unpacker::unmrg);
+    registerTransformer("deff", 1, List.of(magic(0x0, 0x46464544)), Unpacker::deffDiscriminator, Unpacker::undeff);
 
-    transformers.put(Unpacker::engineOverlayDiscriminator, Unpacker::engineOverlayExtractor);
+    registerTransformer("engineOverlay", 1, List.of(name("SCUS_944.91")), Unpacker::engineOverlayDiscriminator, Unpacker::engineOverlayExtractor);
 
-    transformers.put(Unpacker::drgn21_402_3_patcherDiscriminator, Unpacker::drgn21_402_3_patcher);
-    transformers.put(Unpacker::drgn21_693_0_patcherDiscriminator, Unpacker::drgn21_693_0_patcher);
-    transformers.put(Unpacker::drgn0_142_animPatcherDiscriminator, Unpacker::drgn0_142_animPatcher);
+    registerTransformer("drgn21_402_3_patcher", 1, List.of(path("SECT/DRGN21.BIN/402/3"), path("SECT/DRGN22.BIN/402/3")), Unpacker::drgn21_402_3_patcherDiscriminator, Unpacker::drgn21_402_3_patcher);
+    registerTransformer("drgn21_693_0_patcher", 1, List.of(path("SECT/DRGN21.BIN/693/0")), Unpacker::drgn21_693_0_patcherDiscriminator, Unpacker::drgn21_693_0_patcher);
+    registerTransformer("drgn0_142_animPatcher", 1, List.of(path("SECT/DRGN0.BIN/142")), Unpacker::drgn0_142_animPatcherDiscriminator, Unpacker::drgn0_142_animPatcher);
 
     // Item, equipment, spells, XP, and TIMs from lod_engine
-    transformers.put(Unpacker::lodEngineDiscriminator, Unpacker::lodEngineExtractor);
-    transformers.put(Unpacker::equipmentAndXpDiscriminator, Unpacker::equipmentAndXpExtractor);
-    transformers.put(Unpacker::spellsDiscriminator, Unpacker::spellsExtractor);
+    registerTransformer("lodEngine", 1, List.of(path("lod_engine")), Unpacker::lodEngineDiscriminator, Unpacker::lodEngineExtractor);
+    registerTransformer("equipmentAndXp", 1, List.of(path("OVL/S_ITEM.OV_")), Unpacker::equipmentAndXpDiscriminator, Unpacker::equipmentAndXpExtractor);
+    registerTransformer("spells", 1, List.of(path("OVL/BTTL.OV_")), Unpacker::spellsDiscriminator, Unpacker::spellsExtractor);
 
     // Savepoint etc. from SMAP
-    transformers.put(Unpacker::smapAssetDiscriminator, Unpacker::smapAssetExtractor);
+    registerTransformer("smapAsset", 1, List.of(path("OVL/SMAP.OV_")), Unpacker::smapAssetDiscriminator, Unpacker::smapAssetExtractor);
 
     // Give Dart his hand back during oof
-    transformers.put(Unpacker::drgn0_5546_1_patcherDiscriminator, Unpacker::drgn0_5546_1_patcher);
+    registerTransformer("drgn0_5546_1_patcher", 1, List.of(path("SECT/DRGN0.BIN/5546/1")), Unpacker::drgn0_5546_1_patcherDiscriminator, Unpacker::drgn0_5546_1_patcher);
 
     // Yes there are 3 different magma fish files to patch
-    transformers.put(Unpacker::drgn0_3667_16_animPatcherDiscriminator, Unpacker::drgn0_3667_16_animPatcher);
-    transformers.put(Unpacker::drgn0_3667_17_animPatcherDiscriminator, Unpacker::drgn0_3667_17_animPatcher);
-    transformers.put(Unpacker::drgn0_3750_16_animPatcherDiscriminator, Unpacker::drgn0_3750_16_animPatcher);
-
-    transformers.put(Unpacker::drgn1_343_patcherDiscriminator, Unpacker::drgn1_343_patcher);
-    transformers.put(Unpacker::playerCombatSoundEffectsDiscriminator, Unpacker::playerCombatSoundEffectsTransformer);
-    transformers.put(Unpacker::playerCombatModelsAndTexturesDiscriminator, Unpacker::playerCombatModelsAndTexturesTransformer);
-    transformers.put(Unpacker::dragoonCombatModelsAndTexturesDiscriminator, Unpacker::dragoonCombatModelsAndTexturesTransformer);
-    transformers.put(Unpacker::skipPartyPermutationsDiscriminator, Unpacker::skipPartyPermutationsTransformer);
-    transformers.put(Unpacker::extractBtldDataDiscriminator, Unpacker::extractBtldDataTransformer);
-    transformers.put(Unpacker::uiPatcherDiscriminator, Unpacker::uiPatcherTransformer);
-    transformers.put(CtmdTransformer::ctmdDiscriminator, CtmdTransformer::ctmdTransformer);
+    registerTransformer("drgn0_3667_16_animPatcher", 1, List.of(path("SECT/DRGN0.BIN/3667/16")), Unpacker::drgn0_3667_16_animPatcherDiscriminator, Unpacker::drgn0_3667_16_animPatcher);
+    registerTransformer("drgn0_3667_17_animPatcher", 1, List.of(path("SECT/DRGN0.BIN/3667/17")), Unpacker::drgn0_3667_17_animPatcherDiscriminator, Unpacker::drgn0_3667_17_animPatcher);
+    registerTransformer("drgn0_3750_16_animPatcher", 1, List.of(path("SECT/DRGN0.BIN/3750/16")), Unpacker::drgn0_3750_16_animPatcherDiscriminator, Unpacker::drgn0_3750_16_animPatcher);
+
+    registerTransformer("drgn1_343_patcher", 1, List.of(path("SECT/DRGN1.BIN/343")), Unpacker::drgn1_343_patcherDiscriminator, Unpacker::drgn1_343_patcher);
+    registerTransformer("playerCombatSoundEffects", 1, List.of(prefix("SECT/DRGN0.BIN/")), Unpacker::playerCombatSoundEffectsDiscriminator, Unpacker::playerCombatSoundEffectsTransformer);
+    registerTransformer("playerCombatModelsAndTextures", 1, List.of(prefix("SECT/DRGN0.BIN/")), Unpacker::playerCombatModelsAndTexturesDiscriminator, Unpacker::playerCombatModelsAndTexturesTransformer);
+    registerTransformer("dragoonCombatModelsAndTextures", 1, List.of(prefix("SECT/DRGN0.BIN/")), Unpacker::dragoonCombatModelsAndTexturesDiscriminator, Unpacker::dragoonCombatModelsAndTexturesTransformer);
+    registerTransformer("skipPartyPermutations", 1, List.of(prefix("SECT/DRGN0.BIN/")), Unpacker::skipPartyPermutationsDiscriminator, Unpacker::skipPartyPermutationsTransformer);
+    registerTransformer("extractBtldData", 1, List.of(path("OVL/S_BTLD.OV_")), Unpacker::extractBtldDataDiscriminator, Unpacker::extractBtldDataTransformer);
+    registerTransformer("uiPatcher", 1, List.of(path("SECT/DRGN0.BIN/6666")), Unpacker::uiPatcherDiscriminator, Unpacker::uiPatcherTransformer);
+    // Only applies to DEFF children, which are flagged rather than keyed
+    registerTransformer("ctmd", 1, CtmdTransformer::ctmdDiscriminator, CtmdTransformer::ctmdTransformer);
 
     // Remove damage caps from scripts
-    transformers.put(Unpacker::playerScriptDamageCapsDiscriminator, Unpacker::playerScriptDamageCapsTransformer);
-    transformers.put(Unpacker::enemyScriptDamageCapDiscriminator, Unpacker::enemyAndItemScriptDamageCapPatcher);
-    transformers.put(Unpacker::itemScriptDamageCapDiscriminator, Unpacker::enemyAndItemScriptDamageCapPatcher);
+    registerTransformer("playerScriptDamageCaps", 1, List.of(path("player_combat_script")), Unpacker::playerScriptDamageCapsDiscriminator, Unpacker::playerScriptDamageCapsTransformer);
+    registerTransformer("enemyScriptDamageCap", 1, List.of(prefix("SECT/DRGN1.BIN/")), Unpacker::enemyScriptDamageCapDiscriminator, Unpacker::enemyAndItemScriptDamageCapPatcher);
+    registerTransformer("itemScriptDamageCap", 1, List.of(prefix("SECT/DRGN0.BIN/")), Unpacker::itemScriptDamageCapDiscriminator, Unpacker::enemyAndItemScriptDamageCapPatcher);
   }
 
-  private static final List<Transformer> postTransformers = new ArrayList<>();
+  private static final List<TransformerRegistration> postTransformers = new ArrayList<>();
   static {
     // Convert submap PXLs into individual TIMs
-    postTransformers.add(SubmapPxlTransformer::transform);
+    registerPostTransformer("submapPxl", 1, SubmapPxlTransformer::transform);
+  }
+
+  /**
+   * Transformers are identified by an ID and version in the {@link UnpackManifest}. Bump a transformer's version whenever
+   * its output or discriminator changes and only the files it was checked against will be regenerated. A transformer whose
+   * keys change must be given a new ID instead since the files it will now be checked against are unknown.
+   */
+  private static void registerTransformer(final String id, final int version, final Discriminator discriminator, final Transformer transformer) {
+    registerTransformer(id, version, List.of(), discriminator, transformer);
+  }
+
+  /**
+   * The discriminator is only run on nodes that match at least one of {@code keys}. Transformers without keys are tried on
+   * every node.
+   */
+  private static void registerTransformer(final String id, final int version, final List<TransformerKey> keys, final Discriminator discriminator, final Transformer transformer) {
+    final TransformerRegistration registration = new TransformerRegistration(id, version, discriminator, transformer);
+    transformers.add(registration);
+    transformerIndex.add(registration, keys);
+  }
+
+  /** Post transformers run over the whole file tree once all leaf transformations are complete */
+  private static void registerPostTransformer(final String id, final int version, final Transformer transformer) {
+    postTransformers.add(new TransformerRegistration(id, version, (node, flags) -> true, transformer));
   }
 
   private static Consumer<String> statusListener = status -> { };
@@ -133,7 +183,7 @@ public final class Unpacker {
 
   public static void main(final String[] args) throws UnpackerException {
     unpack();
-    EXECUTOR.shutdown();
+    LOADER.shutdown();
   }
 
   public static void stop() {
@@ -145,68 +195,181 @@ public final class Unpacker {
   }
 
   public static void shutdownLoader() {
-    EXECUTOR.shutdown();
+    LOGGER.info(FILE_CACHE);
+    LOGGER.info(LOADER);
+    LOADER.shutdown();
+  }
+
+  public static AssetLoader getLoader() {
+    return LOADER;
+  }
+
+  /** Cancels every queued load of the given priority, e.g. speculative loads for an engine state that's being left */
+  public static void cancelLoads(final LoadPriority priority) {
+    LOADER.cancel(priority);
+  }
+
+  /** Drops a file from the in-memory cache, call this after changing a file on disk (e.g. when a mod overrides it) */
+  public static void invalidateCache(final String name) {
+    FILE_CACHE.invalidate(fixPath(name));
+  }
+
+  public static void invalidateCache() {
+    FILE_CACHE.invalidateAll();
+  }
+
+  public static FileCache getFileCache() {
+    return FILE_CACHE;
+  }
+
+  /** Loads files or directories into the cache in the background as {@link LoadPriority#LOW} loads */
+  public static void prefetch(final String... names) {
+    PREFETCHER.prefetch(() -> List.of(names));
+  }
+
+  /** The files or directories to load are resolved on the prefetch thread */
+  public static void prefetch(final Supplier<Collection<String>> names) {
+    PREFETCHER.prefetch(names);
+  }
+
+  /** Drops every queued prefetch, including the one waiting in the loader's queue */
+  public static void cancelPrefetch() {
+    PREFETCHER.cancel();
+    LOADER.cancel(LoadPriority.LOW);
+  }
+
+  /**
+   * Runs on the prefetch thread. The load goes through the loader as a {@link LoadPriority#LOW} load, so it waits behind every
+   * real load and is dropped by {@link #cancelLoads}. It isn't counted by {@link #getLoadingFileCount} since nothing is waiting
+   * on it.
+   */
+  private static void prefetchPath(final String name) {
+    final String path = fixPath(name);
+
+    final CompletableFuture<?> future;
+    if(isDirectory(path)) {
+      future = LOADER.submit(LoadPriority.LOW, path, () -> loadDirectory(path), files -> { }, () -> { });
+    } else if(!FILE_CACHE.contains(path) && exists(path)) {
+      future = LOADER.submit(LoadPriority.LOW, path, () -> loadFile(path), file -> { }, () -> { });
+    } else {
+      return;
+    }
+
+    try {
+      future.join();
+    } catch(final CancellationException e) {
+      // The engine state changed, the prefetcher drops the rest of the request
+    }
   }
 
   public static FileData loadFile(final String name) {
     LOGGER.info("Loading file %s", name);
 
+    final String path = fixPath(name);
+    final FileData cached = FILE_CACHE.get(path);
+
+    if(cached != null) {
+      return cached;
+    }
+
+    readingCount.incrementAndGet();
+
     try {
-      return new FileData(Files.readAllBytes(ROOT.resolve(fixPath(name))));
+      final Path loose = ROOT.resolve(path);
+      final AssetPack pack = getPack();
+
+      final FileData data;
+      if(pack == null || Files.isRegularFile(loose)) {
+        data = new FileData(Files.readAllBytes(loose));
+      } else {
+        data = pack.load(path);
+
+        if(data == null) {
+          throw new NoSuchFileException(path);
+        }
+      }
+
+      FILE_CACHE.put(path, data);
+      return data;
     } catch(final IOException e) {
       throw new RuntimeException("Failed to load file " + name, e);
+    } finally {
+      readingCount.decrementAndGet();
     }
   }
 
-  public static void loadFile(final String name, final Consumer<FileData> onCompletion) {
+  public static CompletableFuture<FileData> loadFile(final String name, final Consumer<FileData> onCompletion) {
+    return loadFile(name, LoadPriority.NORMAL, onCompletion);
+  }
+
+  public static CompletableFuture<FileData> loadFile(final String name, final LoadPriority priority, final Consumer<FileData> onCompletion) {
     final int total = loadingCount.incrementAndGet();
     LOGGER.info("Queueing file %s (total queued: %d)", name, total);
-    EXECUTOR.execute(() -> {
-      onCompletion.accept(loadFile(name));
+
+    return LOADER.submit(priority, name, () -> loadFile(name), onCompletion, () -> {
       final int remaining = loadingCount.decrementAndGet();
       LOGGER.info("File %s loaded (remaining queued: %d)", name, remaining);
     });
   }
 
-  public static void loadFiles(final Consumer<List<FileData>> onCompletion, final String... files) {
+  public static CompletableFuture<List<FileData>> loadFiles(final Consumer<List<FileData>> onCompletion, final String... files) {
+    return loadFiles(LoadPriority.NORMAL, onCompletion, files);
+  }
+
+  public static CompletableFuture<List<FileData>> loadFiles(final LoadPriority priority, final Consumer<List<FileData>> onCompletion, final String... files) {
     final int total = loadingCount.updateAndGet(i -> i + files.length);
     LOGGER.info("Queueing files %s (total queued: %d)", Arrays.toString(files), total);
 
-    EXECUTOR.execute(() -> {
+    return LOADER.submit(priority, Arrays.toString(files), () -> {
       final List<FileData> fileData = new ArrayList<>();
       for(final String file : files) {
         final FileData data = Unpacker.loadFile(file);
         fileData.add(data);
       }
 
-      onCompletion.accept(fileData);
+      return fileData;
+    }, onCompletion, () -> {
       final int remaining = loadingCount.updateAndGet(i -> i - files.length);
       LOGGER.info("Files %s loaded (remaining queued: %d)", Arrays.toString(files), remaining);
     });
   }
 
-  public static void loadDirectory(final String name, final Consumer<List<FileData>> onCompletion) {
+  public static CompletableFuture<List<FileData>> loadDirectory(final String name, final Consumer<List<FileData>> onCompletion) {
+    return loadDirectory(name, LoadPriority.NORMAL, onCompletion);
+  }
+
+  public static CompletableFuture<List<FileData>> loadDirectory(final String name, final LoadPriority priority, final Consumer<List<FileData>> onCompletion) {
     final int total = loadingCount.incrementAndGet();
     LOGGER.info("Queueing directory %s (total queued: %d)", name, total);
-    EXECUTOR.execute(() -> {
-      onCompletion.accept(loadDirectory(name));
+
+    return LOADER.submit(priority, name, () -> loadDirectory(name), onCompletion, () -> {
       final int remaining = loadingCount.decrementAndGet();
       LOGGER.info("Directory %s loaded (remaining queued: %d)", name, remaining);
     });
   }
 
   public static List<FileData> loadDirectory(final String name) {
+    readingCount.incrementAndGet();
+
+    try {
+      return readDirectory(name);
+    } finally {
+      readingCount.decrementAndGet();
+    }
+  }
+
+  private static List<FileData> readDirectory(final String name) {
     LOGGER.info("Loading directory %s", name);
 
-    final Path dir = ROOT.resolve(fixPath(name));
-    final Path mrg = dir.resolve("mrg");
+    final String dir = fixPath(name);
+    final String mrg = dir + "/mrg";
 
-    if(Files.exists(mrg)) {
-      try(final BufferedReader reader = Files.newBufferedReader(mrg)) {
+    try {
+      if(isFile(mrg)) {
         final Int2IntMap fileMap = new Int2IntArrayMap();
         final Int2IntMap virtualSizeMap = new Int2IntArrayMap();
 
-        reader.lines().forEach(line -> {
+        new String(loadFile(mrg).getBytes(), StandardCharsets.US_ASCII).lines().forEach(line -> {
           final String[] parts = MRG_ENTRY.split(line);
 
           if(parts.length != 3) {
@@ -228,6 +391,8 @@ public final class Unpacker {
         });
 
         final List<FileData> files = new ArrayList<>();
+        final List<String> realFiles = new ArrayList<>();
+        final IntList realFileIndices = new IntArrayList();
 
         // Add real files
         for(final var entry : fileMap.int2IntEntrySet()) {
@@ -240,22 +405,24 @@ public final class Unpacker {
             continue;
           }
 
-          try {
-            final Path file = dir.resolve(String.valueOf(real));
-            if(Files.isRegularFile(file)) {
-              if(virtual == real) {
-                files.add(new FileData(Files.readAllBytes(file)));
-              } else {
-                files.add(null);
-              }
-            } else if(Files.isDirectory(file)) {
-              files.add(new FileData(new byte[0]));
+          final String file = dir + '/' + real;
+          if(isFile(file)) {
+            if(virtual == real) {
+              realFileIndices.add(files.size());
+              realFiles.add(file);
             }
-          } catch(final IOException e) {
-            throw new RuntimeException("Failed to load directory " + name, e);
+
+            files.add(null);
+          } else if(isDirectory(file)) {
+            files.add(new FileData(new byte[0]));
           }
         }
 
+        final List<FileData> realData = loadFileList(realFiles);
+        for(int i = 0; i < realData.size(); i++) {
+          files.set(realFileIndices.getInt(i), realData.get(i));
+        }
+
         // Add virtual files
         for(final var entry : fileMap.int2IntEntrySet()) {
           final int virtual = entry.getIntKey();
@@ -270,45 +437,143 @@ public final class Unpacker {
             real = fileMap.get(real);
           }
 
-          final Path file = dir.resolve(String.valueOf(real));
-          if(Files.isRegularFile(file)) {
+          if(isFile(dir + '/' + real)) {
             files.set(virtual, FileData.virtual(files.get(real), virtualSizeMap.get(virtual), real));
           }
         }
 
         return files;
-      } catch(final IOException e) {
-        throw new RuntimeException("Failed to load directory " + name, e);
       }
-    } else {
-      try(final DirectoryStream<Path> ds = Files.newDirectoryStream(ROOT.resolve(fixPath(name)))) {
-        final List<FileData> files = new ArrayList<>();
 
-        StreamSupport.stream(ds.spliterator(), false)
-          .filter(Files::isRegularFile)
-          .sorted((path1, path2) -> {
-            final String filename1 = path1.getFileName().toString();
-            final String filename2 = path2.getFileName().toString();
-
-            try {
-              return Integer.compare(Integer.parseInt(filename1), Integer.parseInt(filename2));
-            } catch(final NumberFormatException ignored) { }
-
-            return String.CASE_INSENSITIVE_ORDER.compare(filename1, filename2);
-          })
-          .forEach(child -> {
-            try {
-              files.add(new FileData(Files.readAllBytes(child)));
-            } catch(final IOException e) {
-              throw new RuntimeException("Failed to load directory " + name, e);
+      if(!isDirectory(dir)) {
+        throw new NoSuchFileException(dir);
+      }
+
+      final List<String> children = new ArrayList<>(listFiles(dir));
+      children.sort((filename1, filename2) -> {
+        try {
+          return Integer.compare(Integer.parseInt(filename1), Integer.parseInt(filename2));
+        } catch(final NumberFormatException ignored) { }
+
+        return String.CASE_INSENSITIVE_ORDER.compare(filename1, filename2);
+      });
+
+      children.replaceAll(child -> dir + '/' + child);
+      return loadFileList(children);
+    } catch(final IOException e) {
+      throw new RuntimeException("Failed to load directory " + name, e);
+    }
+  }
+
+  /** Loads several files, reading all of the files that aren't cached or overridden by loose files out of the pack at once */
+  private static List<FileData> loadFileList(final List<String> paths) throws IOException {
+    final FileData[] files = new FileData[paths.size()];
+    final AssetPack pack = getPack();
+    final List<String> packed = new ArrayList<>();
+    final IntList packedIndices = new IntArrayList();
+
+    for(int i = 0; i < paths.size(); i++) {
+      files[i] = FILE_CACHE.get(paths.get(i));
+
+      if(files[i] != null) {
+        continue;
+      }
+
+      final Path loose = ROOT.resolve(paths.get(i));
+
+      if(pack == null || Files.isRegularFile(loose)) {
+        files[i] = new FileData(Files.readAllBytes(loose));
+        FILE_CACHE.put(paths.get(i), files[i]);
+      } else {
+        packed.add(paths.get(i));
+        packedIndices.add(i);
+      }
+    }
+
+    if(!packed.isEmpty()) {
+      final List<FileData> packedFiles = pack.load(packed);
+
+      for(int i = 0; i < packedFiles.size(); i++) {
+        if(packedFiles.get(i) == null) {
+          throw new NoSuchFileException(packed.get(i));
+        }
+
+        files[packedIndices.getInt(i)] = packedFiles.get(i);
+        FILE_CACHE.put(packed.get(i), packedFiles.get(i));
+      }
+    }
+
+    return Arrays.asList(files);
+  }
+
+  /** Names of the files (not directories) directly inside of a directory, from both the loose files and the pack */
+  private static Set<String> listFiles(final String dir) throws IOException {
+    final Set<String> files = new HashSet<>();
+    final Path loose = ROOT.resolve(dir);
+
+    if(Files.isDirectory(loose)) {
+      try(final DirectoryStream<Path> ds = Files.newDirectoryStream(loose)) {
+        for(final Path child : ds) {
+          if(Files.isRegularFile(child)) {
+            files.add(child.getFileName().toString());
+          }
+        }
+      }
+    }
+
+    final AssetPack pack = getPack();
+    if(pack != null) {
+      files.addAll(pack.listFiles(dir));
+    }
+
+    return files;
+  }
+
+  /**
+   * Returns the asset pack if the files were unpacked into one. Loose files in the files directory take priority over
+   * the contents of the pack so that patched and modded files can override it.
+   */
+  @Nullable
+  private static AssetPack getPack() {
+    AssetPack pack = Unpacker.pack;
+
+    if(pack == null && !packSearched) {
+      synchronized(PACK_LOCK) {
+        pack = Unpacker.pack;
+
+        if(pack == null && !packSearched) {
+          try {
+            final Path packFile = Files.isDirectory(ROOT) ? AssetPack.findLatest(ROOT) : null;
+
+            if(packFile != null) {
+              pack = new AssetPack(packFile);
+              LOGGER.info("Loaded %s (%d entries)", pack, pack.getCount());
+              Unpacker.pack = pack;
+              AssetPack.deleteOldGenerations(ROOT, packFile);
             }
-          });
+          } catch(final IOException e) {
+            throw new UnpackerException("Failed to load asset pack", e);
+          }
 
-        return files;
-      } catch(final IOException e) {
-        throw new RuntimeException("Failed to load directory " + name, e);
+          packSearched = true;
+        }
       }
     }
+
+    return pack;
+  }
+
+  private static void closePack() throws IOException {
+    FILE_CACHE.invalidateAll();
+
+    synchronized(PACK_LOCK) {
+      if(pack != null) {
+        pack.close();
+        pack = null;
+      }
+
+      packSearched = false;
+    }
   }
 
   public static int getLoadingFileCount() {
@@ -316,11 +581,34 @@ public final class Unpacker {
   }
 
   public static boolean exists(final String name) {
-    return Files.exists(ROOT.resolve(fixPath(name)));
+    final String path = fixPath(name);
+
+    if(Files.exists(ROOT.resolve(path))) {
+      return true;
+    }
+
+    final AssetPack pack = getPack();
+    return pack != null && pack.exists(path);
   }
 
   public static boolean isDirectory(final String name) {
-    return Files.isDirectory(ROOT.resolve(fixPath(name)));
+    final String path = fixPath(name);
+
+    if(Files.isDirectory(ROOT.resolve(path))) {
+      return true;
+    }
+
+    final AssetPack pack = getPack();
+    return pack != null && pack.isDirectory(path);
+  }
+
+  private static boolean isFile(final String path) {
+    if(Files.isRegularFile(ROOT.resolve(path))) {
+      return true;
+    }
+
+    final AssetPack pack = getPack();
+    return pack != null && pack.isFile(path);
   }
 
   private static String fixPath(String name) {
@@ -336,21 +624,47 @@ public final class Unpacker {
   }
 
   public static void unpack() throws UnpackerException {
+    // Any cached file may be regenerated
+    FILE_CACHE.invalidateAll();
+
     try {
       Files.createDirectories(ROOT);
       Files.createDirectories(Path.of("./isos"));
 
-      if(getUnpackVersion() != VERSION) {
+      final UnpackManifest manifest = createManifest();
+      UnpackManifest previousManifest = getUnpackVersion() == VERSION ? loadManifest() : null;
+
+      if(previousManifest != null && manifest.hasDifferentTransformerIds(previousManifest)) {
+        // A new transformer may apply to any file, so everything needs to be regenerated
+        LOGGER.info("Transformers have been added or removed since the last unpack");
+        previousManifest = null;
+      }
+
+      if(getUnpackVersion() != VERSION || previousManifest == null && Files.isRegularFile(ROOT.resolve(MANIFEST_FILE))) {
         final long start = System.nanoTime();
 
         statusListener.accept("Deleting old unpacked files...");
         LOGGER.info("Deleting old unpacked files...");
+        closePack();
         deleteUnpack();
         LOGGER.info("Files deleted in %d seconds", (System.nanoTime() - start) / 1_000_000_000L);
       }
 
       final long start = System.nanoTime();
       final IsoReader[] readers = getIsoReaders();
+
+      for(int i = 0; i < readers.length; i++) {
+        final Path disk = readers[i].getPath();
+        manifest.registerDisk(i, Files.size(disk), Files.getLastModifiedTime(disk).toMillis());
+      }
+
+      // Sources only need to be hashed again if the disk images they're read from have changed
+      final boolean disksChanged = previousManifest != null && !manifest.hasSameDisks(previousManifest);
+
+      if(disksChanged) {
+        LOGGER.info("Disk images have changed since the last unpack, checking for changed files...");
+      }
+
       final DirectoryEntry[] roots = new DirectoryEntry[4];
       final DirectoryEntry root = loadRoot(readers[3], null);
 
@@ -364,93 +678,138 @@ public final class Unpacker {
       LOGGER.info("Populating initial file tree...");
 
       final PathNode files = new PathNode("", "", null, null);
-      final Queue<PathNode> transformationQueue = new LinkedList<>();
-      populateInitialFileTree(root, "", files, transformationQueue);
+      final List<PathNode> initialNodes = new ArrayList<>();
+      populateInitialFileTree(root, "", files, initialNodes, manifest, previousManifest, disksChanged);
 
       LOGGER.info("Initial file tree populated in %fs", (System.nanoTime() - fileTreeTime) / 1_000_000_000.0f);
 
-      if(!transformationQueue.isEmpty()) {
-        statusListener.accept("Transforming files...");
+      if(!initialNodes.isEmpty()) {
+        final TransformationScheduler scheduler = new TransformationScheduler(availableProcessors);
 
-        final long leafTransformTime = System.nanoTime();
-        LOGGER.info("Performing leaf transformations...");
+        try {
+          statusListener.accept("Transforming files...");
 
-        final Transformations transformations = new Transformations(files, transformationQueue);
-        final Set<String> flags = Collections.synchronizedSet(new HashSet<>());
-        final AtomicInteger activeThreads = new AtomicInteger();
-        final Object lock = new Object();
+          final long leafTransformTime = System.nanoTime();
+          LOGGER.info("Performing leaf transformations...");
 
-        // Submit queued files to the executor in batches of 100
-        executeInParallel(activeThreads, lock, () -> {
-          int i = 0;
-          PathNode nodeToTransform;
-          while(i < 100 && (nodeToTransform = transformations.poll()) != null) {
-            transform(nodeToTransform, transformations, flags);
-            i++;
-          }
-        }, () -> !transformationQueue.isEmpty());
+          // Nodes added by a transformer are scheduled straight onto the worker that produced them
+          final Transformations transformations = new Transformations(files, scheduler::schedule, manifest);
+          final Set<String> flags = ConcurrentHashMap.newKeySet();
+          scheduler.run("Leaf transformations", initialNodes, node -> transform(node, transformations, manifest, flags));
+
+          LOGGER.info("Leaf transformations completed in %fs", (System.nanoTime() - leafTransformTime) / 1_000_000_000.0f);
 
-        LOGGER.info("Leaf transformations completed in %fs", (System.nanoTime() - leafTransformTime) / 1_000_000_000.0f);
+          statusListener.accept("Transforming directories...");
 
-        statusListener.accept("Transforming directories...");
+          final long branchTransformTime = System.nanoTime();
+          LOGGER.info("Performing branch transformations...");
 
-        final long branchTransformTime = System.nanoTime();
-        LOGGER.info("Performing branch transformations...");
+          // Leaf transformations are finished, nodes added by branch transformers are not transformed again
+          final Transformations branchTransformations = new Transformations(files, node -> { }, manifest);
 
-        postTransformers.parallelStream().forEach(transformer -> transformer.transform(files, transformations, flags));
+          // Branch transformers look at the whole tree, so they're checked against every source that's being regenerated
+          for(final PathNode node : initialNodes) {
+            for(final TransformerRegistration registration : postTransformers) {
+              manifest.recordTransformer(node.source, registration.id());
+            }
+          }
 
-        LOGGER.info("Branch transformations completed in %fs", (System.nanoTime() - branchTransformTime) / 1_000_000_000.0f);
+          postTransformers.parallelStream().forEach(registration -> registration.transformer().transform(files, branchTransformations.forTransformer(registration.id(), null), flags));
 
-        final Deque<PathNode> all = new ConcurrentLinkedDeque<>();
-        files.flatten(all);
+          LOGGER.info("Branch transformations completed in %fs", (System.nanoTime() - branchTransformTime) / 1_000_000_000.0f);
 
-        final long writeTime = System.nanoTime();
-        LOGGER.info("Writing %d files...", all.size());
+          final List<PathNode> all = new ArrayList<>();
+          files.flatten(all);
+
+          for(final PathNode node : all) {
+            if(node.data.realFileIndex() == -1) {
+              manifest.recordOutput(node.source, node.fullPath);
+            }
+          }
+
+          final long writeTime = System.nanoTime();
+          LOGGER.info("Writing %d files...", all.size());
 
-        executeInParallel(activeThreads, lock, () -> {
           statusListener.accept("Writing %d files...".formatted(all.size()));
 
-          int i = 0;
-          PathNode node;
-          while(i < 100 && (node = all.poll()) != null) {
-            writeFile(node);
-            i++;
+          if(PACK_FILES) {
+            writePack(all, manifest, previousManifest);
+          } else {
+            scheduler.run("Writing files", all, Unpacker::writeFile);
           }
-        }, () -> !all.isEmpty());
 
-        LOGGER.info("Files written in %fs", (System.nanoTime() - writeTime) / 1_000_000_000.0f);
+          LOGGER.info("Files written in %fs", (System.nanoTime() - writeTime) / 1_000_000_000.0f);
 
-        Files.writeString(ROOT.resolve("version"), Integer.toString(VERSION));
+          Files.writeString(ROOT.resolve("version"), Integer.toString(VERSION));
+          manifest.save(ROOT.resolve(MANIFEST_FILE));
+        } finally {
+          scheduler.shutdown();
+        }
+      } else if(previousManifest == null || disksChanged || !manifest.hasSameTransformers(previousManifest)) {
+        manifest.save(ROOT.resolve(MANIFEST_FILE));
       }
 
       statusListener.accept("");
       LOGGER.info("Files unpacked in %fs", (System.nanoTime() - start) / 1_000_000_000.0f);
-    } catch(final UnpackerException e) {
+    } catch(final UnpackerException | UnpackerStoppedRuntimeException e) {
       throw e;
     } catch(final Throwable e) {
       throw new UnpackerException(e);
     }
   }
 
-  private static void executeInParallel(final AtomicInteger activeThreads, final Object lock, final Runnable action, final BooleanSupplier condition) throws InterruptedException {
-    do {
-      if(activeThreads.get() >= availableProcessors) {
-        synchronized(lock) {
-          lock.wait(100);
-        }
-      } else {
-        activeThreads.incrementAndGet();
+  private static UnpackManifest createManifest() {
+    final UnpackManifest manifest = new UnpackManifest();
 
-        EXECUTOR.execute(() -> {
-          action.run();
-          activeThreads.decrementAndGet();
+    for(final TransformerRegistration registration : transformers) {
+      manifest.registerTransformer(registration.id(), registration.version());
+    }
 
-          synchronized(lock) {
-            lock.notifyAll();
-          }
-        });
+    for(final TransformerRegistration registration : postTransformers) {
+      manifest.registerTransformer(registration.id(), registration.version());
+    }
+
+    return manifest;
+  }
+
+  @Nullable
+  private static UnpackManifest loadManifest() {
+    try {
+      return UnpackManifest.load(ROOT.resolve(MANIFEST_FILE));
+    } catch(final IOException e) {
+      LOGGER.warn("Failed to load unpack manifest, all files will be regenerated", e);
+      return null;
+    }
+  }
+
+  /** Deletes the loose files that were generated from a source in a previous unpack */
+  private static void deleteOutputs(final UnpackManifest.Source source) throws IOException {
+    for(final String output : source.outputs) {
+      final Path path = ROOT.resolve(output);
+
+      try {
+        Files.deleteIfExists(path);
+      } catch(final DirectoryNotEmptyException ignored) {
+        // Directory now contains files from another source
       }
-    } while(condition.getAsBoolean() || activeThreads.get() > 0);
+    }
+  }
+
+  /** Writes the pack, carrying over the files of any sources that didn't need to be regenerated from the previous pack */
+  private static void writePack(final Collection<PathNode> nodes, final UnpackManifest manifest, @Nullable final UnpackManifest previousManifest) throws IOException {
+    final AssetPack previousPack = getPack();
+    final Set<String> carriedOver = new HashSet<>();
+
+    if(previousPack != null && previousManifest != null) {
+      for(final UnpackManifest.Source source : manifest.sources()) {
+        if(previousManifest.getSource(source.path) == source) {
+          carriedOver.addAll(source.outputs);
+        }
+      }
+    }
+
+    AssetPack.write(AssetPack.getNextPath(ROOT), nodes, EMPTY_DIRECTORY_SENTINEL, previousPack, carriedOver);
+    closePack();
   }
 
   private static int getUnpackVersion() throws IOException {
@@ -607,15 +966,42 @@ public final class Unpacker {
     }
   }
 
-  private static void populateInitialFileTree(final DirectoryEntry root, final String path, final PathNode parent, final Queue<PathNode> transformationQueue) {
+  private static void populateInitialFileTree(final DirectoryEntry root, final String path, final PathNode parent, final List<PathNode> initialNodes, final UnpackManifest manifest, @Nullable final UnpackManifest previousManifest, final boolean disksChanged) throws IOException {
     final String filename = path + root.name();
 
     if(!root.isDirectory()) {
-      if(!Files.exists(ROOT.resolve(filename))) {
-        final PathNode file = new PathNode(filename, root.name(), readFile(filename, root), parent);
-        parent.addChild(file);
-        transformationQueue.add(file);
+      final UnpackManifest.Source previous = previousManifest != null ? previousManifest.getSource(filename) : null;
+
+      if(exists(filename)) {
+        // Nothing has changed since the last unpack
+        if(previous != null && !disksChanged && manifest.isUpToDate(previous)) {
+          manifest.copySource(previous);
+          return;
+        }
+
+        // There's no manifest yet, so we can only trust that it's up-to-date
+        if(previousManifest == null) {
+          return;
+        }
+      }
+
+      final FileData data = readFile(filename, root);
+      final int hash = UnpackManifest.hash(data);
+
+      if(previous != null) {
+        if(previous.hash == hash && manifest.isUpToDate(previous) && exists(filename)) {
+          manifest.copySource(previous);
+          return;
+        }
+
+        LOGGER.info("Regenerating %s", filename);
+        deleteOutputs(previous);
       }
+
+      manifest.addSource(filename, hash);
+      final PathNode file = new PathNode(filename, root.name(), data, parent, filename);
+      parent.addChild(file);
+      initialNodes.add(file);
     } else {
       final PathNode dir;
       final String newPath;
@@ -630,30 +1016,28 @@ public final class Unpacker {
       }
 
       for(final DirectoryEntry entry : root.children().values()) {
-        populateInitialFileTree(entry, newPath, dir, transformationQueue);
+        populateInitialFileTree(entry, newPath, dir, initialNodes, manifest, previousManifest, disksChanged);
       }
     }
   }
 
   private static FileData readFile(final String filename, final DirectoryEntry entry) {
-    synchronized(entry.reader()) {
-      final byte[] fileData = entry.reader().readSectors(entry.sector(), entry.length(), filename.endsWith(".IKI") || filename.endsWith(".XA"));
-      return new FileData(fileData);
-    }
+    final byte[] fileData = entry.reader().readSectors(entry.sector(), entry.length(), filename.endsWith(".IKI") || filename.endsWith(".XA"));
+    return new FileData(fileData);
   }
 
-  private static void transform(final PathNode node, final Transformations transformations, final Set<String> flags) {
+  private static void transform(final PathNode node, final Transformations transformations, final UnpackManifest manifest, final Set<String> flags) {
     if(shouldStop) {
       throw new UnpackerStoppedRuntimeException("Unpacking cancelled");
     }
 
-    for(final var entry : transformers.entrySet()) {
-      final var discriminator = entry.getKey();
-      final var transformer = entry.getValue();
+    for(final TransformerRegistration registration : transformerIndex.candidates(node)) {
+      // Recorded even if it doesn't match, a new version of the transformer may match files that the old one didn't
+      manifest.recordTransformer(node.source, registration.id());
 
-      if(discriminator.matches(node, flags)) {
+      if(registration.discriminator().matches(node, flags)) {
         node.parent.children.remove(node.pathSegment);
-        transformer.transform(node, transformations, flags);
+        registration.transformer().transform(node, transformations.forTransformer(registration.id(), node), flags);
         break;
       }
     }
@@ -1218,13 +1602,28 @@ public final class Unpacker {
       throw new RuntimeException("Attempted to decompress non-BPE segment");
     }
 
+    final byte[] dest = new byte[archive.readInt(0)];
+    decompress(archive, dest);
+    return dest;
+  }
+
+  /**
+   * Decompresses a BPE segment into {@code dest}, which must be at least as large as the decompressed size in the header. This
+   * doesn't allocate, the dictionaries and the stack of unresolved bytes are reused per-thread.
+   *
+   * @return the number of bytes decompressed
+   */
+  public static int decompress(final FileData archive, final byte[] dest) {
 //    LOGGER.info("Decompressing BPE segment");
 
-    final byte[] dest = new byte[archive.readInt(0)];
+    final BpeScratch scratch = BPE_SCRATCH.get();
+    final byte[] unresolved_byte_stack = scratch.stack;
+    final byte[] dict_leftch = scratch.leftch;
+    final byte[] dict_rightch = scratch.rightch;
 
-    final Deque<Byte> unresolved_byte_list = new LinkedList<>();
-    final byte[] dict_leftch = new byte[0x100];
-    final byte[] dict_rightch = new byte[0x100];
+    // Read straight from the backing array, reads past the end of the archive are checked as we go
+    final byte[] src = archive.data();
+    final int archiveEnd = archive.offset() + archive.size();
 
     int totalSize = 0;
     int archiveOffset = 0x8;
@@ -1252,6 +1651,8 @@ public final class Unpacker {
         dict_leftch[i] = (byte)i;
       }
 
+      int pos = archive.offset() + archiveOffset;
+
       // Build adaptive dictionary.
       int key = 0;
       while(key < 0x100) {
@@ -1260,8 +1661,7 @@ public final class Unpacker {
         // be read into the dictionary, placed at the index value calculated
         // using the below formula. Otherwise, the byte indicates how many
         // sequential bytes to read into the dictionary.
-        int byte_pairs_to_read = archive.readUByte(archiveOffset);
-        archiveOffset++;
+        int byte_pairs_to_read = src[checkBpeRead(pos++, archiveEnd)] & 0xff;
 
         if(byte_pairs_to_read >= 0x80) {
           key = key - 0x7f + byte_pairs_to_read;
@@ -1276,12 +1676,10 @@ public final class Unpacker {
         if(key < 0x100) {
           // Check that dictionary length not exceeded.
           for(int i = 0; i < byte_pairs_to_read + 1; i++) {
-            dict_leftch[key] = archive.readByte(archiveOffset);
-            archiveOffset++;
+            dict_leftch[key] = src[checkBpeRead(pos++, archiveEnd)];
 
             if((dict_leftch[key] & 0xff) != key) {
-              dict_rightch[key] = archive.readByte(archiveOffset);
-              archiveOffset++;
+              dict_rightch[key] = src[checkBpeRead(pos++, archiveEnd)];
             }
 
             key++;
@@ -1290,30 +1688,38 @@ public final class Unpacker {
       }
 
       // Decompress block
-      // On each pass, read one byte and add it to a list of unresolved bytes.
+      // On each pass, read one byte and add it to the stack of unresolved bytes.
       while(bytes_remaining_in_block > 0) {
-        unresolved_byte_list.clear();
-        unresolved_byte_list.push(archive.readByte(archiveOffset));
-        archiveOffset++;
+        int stackSize = 0;
+        unresolved_byte_stack[stackSize++] = src[checkBpeRead(pos++, archiveEnd)];
 
-        // Pop the first item in the list of unresolved bytes. If the
+        // Pop the top item in the stack of unresolved bytes. If the
         // byte key == value in dict_leftch, append it to the list of
         // decompressed bytes. If the byte key !=value in dict_leftch,
-        // insert the leftch followed by rightch to the unresolved byte
-        // list. Loop until the unresolved byte list is empty.
-        while(!unresolved_byte_list.isEmpty()) {
-          final byte compressed_byte = unresolved_byte_list.pop();
-          if(compressed_byte == dict_leftch[compressed_byte & 0xff]) {
+        // push the rightch followed by the leftch onto the unresolved byte
+        // stack. Loop until the unresolved byte stack is empty.
+        while(stackSize != 0) {
+          final byte compressed_byte = unresolved_byte_stack[--stackSize];
+          final int compressed_key = compressed_byte & 0xff;
+
+          if(compressed_byte == dict_leftch[compressed_key]) {
             dest[destinationOffset] = compressed_byte;
             destinationOffset++;
             bytes_remaining_in_block--;
           } else {
-            unresolved_byte_list.push(dict_rightch[compressed_byte & 0xff]);
-            unresolved_byte_list.push(dict_leftch[compressed_byte & 0xff]);
+            if(stackSize + 2 > unresolved_byte_stack.length) {
+              LOGGER.error("Decompress: dictionary entry 0x%02x at offset 0x%08x expands recursively", compressed_key, pos - archive.offset() - 1);
+              throw new RuntimeException("Decompression error");
+            }
+
+            unresolved_byte_stack[stackSize++] = dict_rightch[compressed_key];
+            unresolved_byte_stack[stackSize++] = dict_leftch[compressed_key];
           }
         }
       }
 
+      archiveOffset = pos - archive.offset();
+
       if(archiveOffset % 4 != 0) {
         // Word - align the pointer.
         archiveOffset = archiveOffset + 4 - archiveOffset % 4;
@@ -1325,9 +1731,26 @@ public final class Unpacker {
 
 //    LOGGER.info("Archive size: %d, decompressed size: %d", archiveOffset, totalSize);
 
-    return dest;
+    return totalSize;
   }
 
+  private static int checkBpeRead(final int pos, final int archiveEnd) {
+    if(pos >= archiveEnd) {
+      throw new IndexOutOfBoundsException("Read end " + (pos + 1) + " out of bounds " + archiveEnd);
+    }
+
+    return pos;
+  }
+
+  private static final class BpeScratch {
+    private final byte[] leftch = new byte[0x100];
+    private final byte[] rightch = new byte[0x100];
+    /** Every expansion pops one byte and pushes two, a valid dictionary can't nest deeper than its 256 entries */
+    private final byte[] stack = new byte[0x200];
+  }
+
+  private record TransformerRegistration(String id, int version, Discriminator discriminator, Transformer transformer) { }
+
   @FunctionalInterface
   public interface Discriminator {
     boolean matches(final PathNode node, final Set<String> flags);
@@ -2,6 +2,7 @@ package legend.game.unpacker.scripts;
 
 import com.github.difflib.patch.PatchFailedException;
 import com.opencsv.exceptions.CsvException;
+import legend.game.unpacker.Unpacker;
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -16,10 +17,20 @@ import org.legendofdragoon.scripting.meta.NoSuchVersionException;
 import org.legendofdragoon.scripting.tokens.Script;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static legend.core.IoHelper.crc32;
 import static legend.core.IoHelper.intsToBytes;
@@ -28,24 +39,24 @@ public class ScriptPatcher {
   private static final Logger LOGGER = LogManager.getFormatterLogger(ScriptPatch.class);
 
   private final Meta meta;
-  private final Disassembler disassembler;
-  private final Translator translator = new Translator();
-  private final Compiler compiler = new Compiler();
-  private final Lexer lexer;
+  /** The disassembler, translator, compiler, and lexer aren't thread-safe, each patching thread gets its own */
+  private final ThreadLocal<Toolchain> toolchain;
 
   private final ScriptPatchList patches;
   private final Path patchesDir;
   private final Path filesDir;
   private final Path cacheDir;
+  /** Recompiled scripts keyed by the hashes of their input and patch, in a directory named for the recompiler and meta */
+  private final Path compiledDir;
 
-  public ScriptPatcher(final Path patchDir, final Path filesDir, final Path cacheDir) throws NoSuchVersionException, IOException, CsvException {
+  public ScriptPatcher(final Path patchDir, final Path filesDir, final Path cacheDir, final Path compiledCacheDir) throws NoSuchVersionException, IOException, CsvException {
     this.meta = new MetaManager(null, patchDir).loadMeta("meta");
-    this.disassembler = new Disassembler(this.meta);
-    this.lexer = new Lexer(this.meta);
+    this.toolchain = ThreadLocal.withInitial(() -> new Toolchain(this.meta));
     this.patches = this.loadPatchList(patchDir.resolve("scripts.csv"));
     this.patchesDir = patchDir;
     this.filesDir = filesDir;
     this.cacheDir = cacheDir;
+    this.compiledDir = compiledCacheDir.resolve(this.getToolchainVersion());
   }
 
   private ScriptPatchList loadPatchList(final Path file) {
@@ -57,44 +68,142 @@ public class ScriptPatcher {
     }
   }
 
+  /**
+   * Compiled scripts depend on the version of the recompiler and on the meta it decompiles with. Unversioned builds of the
+   * recompiler (i.e. during development) are identified by the size and timestamp of their jar instead.
+   */
+  private String getToolchainVersion() throws IOException {
+    final StringBuilder version = new StringBuilder();
+    final String implementationVersion = Compiler.class.getPackage().getImplementationVersion();
+
+    if(implementationVersion != null) {
+      version.append(implementationVersion);
+    } else {
+      try {
+        final Path jar = Path.of(Compiler.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        version.append(Files.size(jar)).append(Files.getLastModifiedTime(jar).toMillis());
+      } catch(final Exception e) {
+        LOGGER.warn("Failed to identify script recompiler, compiled scripts won't be cached between runs", e);
+        version.append(System.nanoTime());
+      }
+    }
+
+    final Path metaDir = this.patchesDir.resolve("meta");
+    if(Files.isDirectory(metaDir)) {
+      try(final Stream<Path> files = Files.walk(metaDir)) {
+        for(final Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+          version.append(file.getFileName()).append(crc32(file));
+        }
+      }
+    }
+
+    return "%08x".formatted(crc32(version.toString().getBytes(StandardCharsets.UTF_8)));
+  }
+
   public void apply() throws IOException, PatchFailedException {
     LOGGER.info("Applying script patches");
 
     final ScriptPatchList cacheList = this.loadPatchList(this.cacheDir.resolve("scripts.csv"));
 
-    boolean changed = false;
+    // Each job only touches one script, so scripts can be patched in parallel
+    final List<Callable<Void>> jobs = new ArrayList<>();
+
     // Apply new or changed patches
     for(final ScriptPatch patch : this.patches) {
       final ScriptPatch cachedPatch = cacheList.getPatchForScript(patch.sourceFile);
 
       if(cachedPatch != null && crc32(this.cacheDir.resolve(cachedPatch.patchFile)) != crc32(this.patchesDir.resolve(patch.patchFile))) {
         // Unpatch file if already patched with a different patch
-        LOGGER.info("Unpatching %s...", cachedPatch.sourceFile);
-        this.unpatchFile(cachedPatch);
-        LOGGER.info("Patching %s...", patch.sourceFile);
-        this.patchFile(patch);
-        changed = true;
+        jobs.add(() -> {
+          LOGGER.info("Unpatching %s...", cachedPatch.sourceFile);
+          this.unpatchFile(cachedPatch);
+          LOGGER.info("Patching %s...", patch.sourceFile);
+          this.patchFile(patch);
+          return null;
+        });
       } else if(cachedPatch == null) {
         // New patch
-        LOGGER.info("Patching %s...", patch.sourceFile);
-        this.patchFile(patch);
-        changed = true;
+        jobs.add(() -> {
+          LOGGER.info("Patching %s...", patch.sourceFile);
+          this.patchFile(patch);
+          return null;
+        });
       }
     }
 
     // Unpatch any patches that have been deleted
     for(final ScriptPatch cachedPatch : cacheList) {
       if(this.patches.getPatchForScript(cachedPatch.sourceFile) == null) {
-        LOGGER.info("Unpatching %s...", cachedPatch.sourceFile);
-        this.unpatchFile(cachedPatch);
-        changed = true;
+        jobs.add(() -> {
+          LOGGER.info("Unpatching %s...", cachedPatch.sourceFile);
+          this.unpatchFile(cachedPatch);
+          return null;
+        });
       }
     }
 
+    if(jobs.isEmpty()) {
+      return;
+    }
+
+    final long start = System.nanoTime();
+    this.runInParallel(jobs);
+    LOGGER.info("%d scripts patched in %fs", jobs.size(), (System.nanoTime() - start) / 1_000_000_000.0f);
+
+    this.pruneCompiledCache();
+
     // Cache changes
-    if(changed) {
-      FileUtils.deleteDirectory(this.cacheDir.toFile());
-      FileUtils.copyDirectory(this.patchesDir.toFile(), this.cacheDir.toFile());
+    FileUtils.deleteDirectory(this.cacheDir.toFile());
+    FileUtils.copyDirectory(this.patchesDir.toFile(), this.cacheDir.toFile());
+  }
+
+  private void runInParallel(final List<Callable<Void>> jobs) throws IOException, PatchFailedException {
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.min(jobs.size(), Runtime.getRuntime().availableProcessors()));
+
+    try {
+      final List<Future<Void>> futures = executor.invokeAll(jobs);
+
+      for(final Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch(final ExecutionException e) {
+          if(e.getCause() instanceof final IOException cause) {
+            throw cause;
+          }
+
+          if(e.getCause() instanceof final PatchFailedException cause) {
+            throw cause;
+          }
+
+          if(e.getCause() instanceof final RuntimeException cause) {
+            throw cause;
+          }
+
+          throw new RuntimeException(e.getCause());
+        }
+      }
+    } catch(final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while patching scripts", e);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /** Deletes compiled scripts from older versions of the recompiler or meta */
+  private void pruneCompiledCache() throws IOException {
+    final Path root = this.compiledDir.getParent();
+
+    if(!Files.isDirectory(root)) {
+      return;
+    }
+
+    try(final DirectoryStream<Path> dirs = Files.newDirectoryStream(root)) {
+      for(final Path dir : dirs) {
+        if(!dir.equals(this.compiledDir)) {
+          FileUtils.deleteDirectory(dir.toFile());
+        }
+      }
     }
   }
 
@@ -103,17 +212,12 @@ public class ScriptPatcher {
   }
 
   public void patchFile(final String source, final String patch) throws IOException, PatchFailedException {
-    this.patchFile(this.filesDir.resolve(source), this.patchesDir.resolve(patch));
+    this.patchFile(this.extractFile(source), this.patchesDir.resolve(patch));
+    Unpacker.invalidateCache(source);
   }
 
   public void patchFile(final Path sourceFile, final Path patchFile) throws IOException, PatchFailedException {
-    final List<String> patchLines = Files.readAllLines(patchFile);
-
-    final List<String> decompiledLines = this.decompile(Files.readAllBytes(sourceFile));
-    final String patched = Patcher.applyPatch(decompiledLines, patchLines);
-    final byte[] recompiledSource = this.recompile(patched);
-
-    Files.write(sourceFile, recompiledSource, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    this.transformFile(sourceFile, patchFile, false);
   }
 
   public void unpatchFile(final ScriptPatch patch) throws IOException {
@@ -121,27 +225,95 @@ public class ScriptPatcher {
   }
 
   public void unpatchFile(final String source, final String patch) throws IOException {
-    this.unpatchFile(this.filesDir.resolve(source), this.cacheDir.resolve(patch));
+    this.unpatchFile(this.extractFile(source), this.cacheDir.resolve(patch));
+    Unpacker.invalidateCache(source);
+  }
+
+  /** Scripts that were unpacked into the asset pack are extracted to loose files, which take priority over the pack */
+  private Path extractFile(final String source) throws IOException {
+    final Path file = this.filesDir.resolve(source);
+
+    if(!Files.isRegularFile(file) && Unpacker.exists(source)) {
+      Files.createDirectories(file.getParent());
+      Files.write(file, Unpacker.loadFile(source).getBytes());
+    }
+
+    return file;
   }
 
   public void unpatchFile(final Path sourceFile, final Path patchFile) throws IOException {
-    final List<String> patchLines = Files.readAllLines(patchFile);
+    try {
+      this.transformFile(sourceFile, patchFile, true);
+    } catch(final PatchFailedException e) {
+      // Undoing a patch never fails to apply
+      throw new RuntimeException(e);
+    }
+  }
+
+  /** Patches or unpatches a script, reusing the compiled output if this exact script has been through this exact patch before */
+  private void transformFile(final Path sourceFile, final Path patchFile, final boolean undo) throws IOException, PatchFailedException {
+    final byte[] source = Files.readAllBytes(sourceFile);
+    final byte[] patch = Files.readAllBytes(patchFile);
+    final Path compiledFile = this.compiledDir.resolve("%08x-%08x.%s".formatted(crc32(source), crc32(patch), undo ? "unpatched" : "patched"));
 
-    final List<String> decompiledLines = this.decompile(Files.readAllBytes(sourceFile));
-    final String unpatched = Patcher.undoPatch(decompiledLines, patchLines);
-    final byte[] recompiledSource = this.recompile(unpatched);
+    byte[] recompiledSource = null;
+    if(Files.isRegularFile(compiledFile)) {
+      try {
+        recompiledSource = Files.readAllBytes(compiledFile);
+      } catch(final IOException e) {
+        LOGGER.warn("Failed to read compiled script %s", compiledFile, e);
+      }
+    }
+
+    if(recompiledSource == null) {
+      final Toolchain toolchain = this.toolchain.get();
+      final List<String> patchLines = new String(patch, StandardCharsets.UTF_8).lines().toList();
+      final List<String> decompiledLines = toolchain.decompile(source);
+      final String transformed = undo ? Patcher.undoPatch(decompiledLines, patchLines) : Patcher.applyPatch(decompiledLines, patchLines);
+      recompiledSource = toolchain.recompile(transformed);
+
+      this.writeCompiled(compiledFile, recompiledSource);
+    }
 
     Files.write(sourceFile, recompiledSource, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
   }
 
-  private List<String> decompile(final byte[] data) {
-    final Script script = this.disassembler.disassemble(data);
-    final String decompiledOutput = this.translator.translate(script, this.meta);
-    return decompiledOutput.lines().toList();
+  private void writeCompiled(final Path compiledFile, final byte[] data) {
+    try {
+      Files.createDirectories(compiledFile.getParent());
+
+      // Write to a temp file first so that a crash never leaves a truncated script in the cache
+      final Path temp = Files.createTempFile(compiledFile.getParent(), compiledFile.getFileName().toString(), ".tmp");
+      Files.write(temp, data);
+      Files.move(temp, compiledFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch(final IOException e) {
+      // The cache is only an optimisation
+      LOGGER.warn("Failed to cache compiled script %s", compiledFile, e);
+    }
   }
 
-  private byte[] recompile(final String patched) {
-    final Script lexedDecompiledSource = this.lexer.lex(patched);
-    return intsToBytes(this.compiler.compile(lexedDecompiledSource));
+  private static final class Toolchain {
+    private final Meta meta;
+    private final Disassembler disassembler;
+    private final Translator translator = new Translator();
+    private final Compiler compiler = new Compiler();
+    private final Lexer lexer;
+
+    private Toolchain(final Meta meta) {
+      this.meta = meta;
+      this.disassembler = new Disassembler(meta);
+      this.lexer = new Lexer(meta);
+    }
+
+    private List<String> decompile(final byte[] data) {
+      final Script script = this.disassembler.disassemble(data);
+      final String decompiledOutput = this.translator.translate(script, this.meta);
+      return decompiledOutput.lines().toList();
+    }
+
+    private byte[] recompile(final String patched) {
+      final Script lexedDecompiledSource = this.lexer.lex(patched);
+      return intsToBytes(this.compiler.compile(lexedDecompiledSource));
+    }
   }
 }
@@ -16,6 +16,7 @@ import legend.core.opengl.McqBuilder;
 import legend.core.opengl.Obj;
 import legend.core.opengl.PolyBuilder;
 import legend.core.opengl.QuadBuilder;
+import legend.core.opengl.StreamingMesh;
 import legend.core.opengl.TmdObjLoader;
 import legend.game.EngineState;
 import legend.game.EngineStateEnum;
@@ -264,6 +265,15 @@ public class WMap extends EngineState {
   private int destinationLabelStage_800c86f0;
 
   private WmapSmokeInstance60[] smokeInstances_800c86f8;
+  private final QuadBuilder smokeSprite = new QuadBuilder("Smoke sprite")
+    .bpp(Bpp.BITS_4)
+    .vramPos(640, 256)
+    .pos(0.0f, 0.0f, 0.0f)
+    .size(1.0f, 1.0f)
+    .clut(640, 505)
+    .uvSize(32, 32);
+  /** The smoke sprite streamed this frame for each animation frame and translucency, indexed by {@code frame | additive << 1} */
+  private final StreamingMesh.Range[] smokeSpriteRanges = new StreamingMesh.Range[4];
 
   private final Rect4i storedEffectsRect_800c8700 = new Rect4i(576, 256, 128, 256);
 
@@ -3326,7 +3336,7 @@ public class WMap extends EngineState {
       float z = RotTransPers4(vertex0, vertex1, vertex2, vertex3, sxyz0, sxyz1, sxyz2, sxyz3);
 
       if(z >= 3 && z < orderingTableSize_1f8003c8) {
-        final GpuCommandPoly cmd = new GpuCommandPoly(4)
+        final GpuCommandPoly cmd = GPU.commands.poly(4)
           .bpp(Bpp.BITS_4)
           .translucent(Translucency.B_PLUS_F)
           .clut(1008, waterClutYs_800ef348[(int)modelAndAnimData.clutYIndex_28])
@@ -3353,7 +3363,7 @@ public class WMap extends EngineState {
       z = RotTransPers4(vertex0, vertex1, vertex2, vertex3, sxyz0, sxyz1, sxyz2, sxyz3);
 
       if(z >= 3 && z < orderingTableSize_1f8003c8) {
-        final GpuCommandPoly cmd = new GpuCommandPoly(4)
+        final GpuCommandPoly cmd = GPU.commands.poly(4)
           .bpp(Bpp.BITS_4)
           .translucent(Translucency.B_PLUS_F)
           .clut(1008, waterClutYs_800ef348[(int)modelAndAnimData.clutYIndex_28])
@@ -3480,7 +3490,7 @@ public class WMap extends EngineState {
   /** Some kind of full-screen effect during the Wingly teleportation between Aglis and Zenebatos */
   @Method(0x800e3304L)
   private void renderFastTravelScreenDistortionEffect() {
-    final GpuCommandQuad cmd = new GpuCommandQuad()
+    final GpuCommandQuad cmd = GPU.commands.quad()
       .bpp(Bpp.BITS_15)
       .translucent(Translucency.HALF_B_PLUS_HALF_F)
       .vramPos(0, 0)
@@ -5863,6 +5873,9 @@ public class WMap extends EngineState {
     //LAB_800edc84
     int smokeIndex = 0;
 
+    // Streamed ranges are only valid for a frame
+    Arrays.fill(this.smokeSpriteRanges, null);
+
     //LAB_800edca8
     for(int i = 0; i < this.placeCount_800c86cc; i++) {
       //LAB_800edccc
@@ -5984,22 +5997,22 @@ public class WMap extends EngineState {
                   //LAB_800eea34
                   final int index = (int)(smoke.scaleAndColourFade_50 / 0x40);
 
-                  if(smoke.objs[index] == null) {
-                    smoke.objs[index] = new QuadBuilder("Smoke sprite " + index + " (index " + smokeIndex + ')')
-                      .bpp(Bpp.BITS_4)
-                      .vramPos(640, 256)
-                      .pos(0.0f, 0.0f, 0.0f)
-                      .size(1.0f, 1.0f)
-                      .clut(640, 505)
+                  // Every smoke sprite with the same frame and translucency shares one streamed quad
+                  final int spriteIndex = (index == 0 ? 0 : 1) | (mode == 8 ? 0 : 2);
+                  StreamingMesh.Range sprite = this.smokeSpriteRanges[spriteIndex];
+                  if(sprite == null) {
+                    sprite = this.smokeSprite
                       .uv(96, index == 0 ? 48 : 80)
-                      .uvSize(32, 32)
                       .translucency(translucency)
-                      .build();
+                      .stream(RENDERER.streamingTriangles);
+
+                    this.smokeSpriteRanges[spriteIndex] = sprite;
                   }
 
                   smoke.transforms.scaling(transformedSize);
                   smoke.transforms.transfer.set(GPU.getOffsetX() + sx0, GPU.getOffsetY() + sy0, z * 4.0f);
-                  RENDERER.queueOrthoModel(smoke.objs[index], smoke.transforms)
+                  RENDERER.queueOrthoModel(sprite.obj(), smoke.transforms)
+                    .vertices(sprite.startVertex(), sprite.vertexCount())
                     .monochrome((0x80 - smoke.scaleAndColourFade_50) / 255.0f);
 
                   smoke.scaleAndColourFade_50 += 1.0f / (3.0f / vsyncMode_8007a3b8);
@@ -6029,16 +6042,6 @@ public class WMap extends EngineState {
 
   @Method(0x800eede4L)
   private void deallocateSmoke() {
-    for(final WmapSmokeInstance60 smoke : this.smokeInstances_800c86f8) {
-      if(smoke.objs[0] != null) {
-        smoke.objs[0].delete();
-      }
-
-      if(smoke.objs[1] != null) {
-        smoke.objs[1].delete();
-      }
-    }
-
     this.smokeInstances_800c86f8 = null;
   }
 }
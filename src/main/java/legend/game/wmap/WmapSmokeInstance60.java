@@ -2,11 +2,9 @@ package legend.game.wmap;
 
 import legend.core.gte.GsCOORDINATE2;
 import legend.core.gte.MV;
-import legend.core.opengl.MeshObj;
 import org.joml.Vector3f;
 
 public class WmapSmokeInstance60 {
-  public MeshObj[] objs = new MeshObj[2];
   public final MV transforms = new MV();
 
   public final GsCOORDINATE2 coord2_00 = new GsCOORDINATE2();
@@ -0,0 +1,129 @@
+package legend.core.gpu;
+
+import legend.game.types.Translucency;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/** Renders the same triangles with the scalar loop and the vector kernel and checks that every pixel matches */
+public class SpanKernelTest {
+  private static final int WIDTH = 320;
+  private static final int HEIGHT = 240;
+  private static final int TRIANGLES = 2000;
+
+  private Gpu gpu;
+  private SpanKernel kernel;
+
+  @BeforeEach
+  void setUp() {
+    this.gpu = new Gpu();
+    this.gpu.createRenderBuffers(WIDTH, HEIGHT);
+    this.gpu.drawingArea(0, 0, WIDTH, HEIGHT);
+    this.kernel = this.gpu.spanKernel;
+
+    // Run by the vectorSpansTest task, where the kernel must load. Regular test runs don't build it.
+    if(Boolean.getBoolean("lod.gpu.vectorSpans")) {
+      Assertions.assertNotNull(this.kernel, "Vector span kernel failed to load");
+    } else {
+      Assumptions.assumeTrue(this.kernel != null, "Vector span kernel not enabled, run the vectorSpansTest task");
+    }
+
+    final Random random = new Random(0x1234);
+    final int[] vram = new int[this.gpu.vramWidth * this.gpu.vramHeight];
+    for(int i = 0; i < vram.length; i++) {
+      vram[i] = random.nextInt(0x1_0000);
+    }
+
+    this.gpu.uploadData15(new Rect4i(0, 0, this.gpu.vramWidth, this.gpu.vramHeight), vram);
+  }
+
+  @Test
+  void flat() {
+    this.compare(false, false, 1);
+  }
+
+  @Test
+  void gouraud() {
+    this.compare(true, false, 2);
+  }
+
+  @Test
+  void textured() {
+    this.compare(false, true, 3);
+  }
+
+  @Test
+  void shadedTextured() {
+    this.compare(true, true, 4);
+  }
+
+  @Test
+  void largeTriangles() {
+    // Big enough for the kernel to decline some, which must fall back to the scalar loop
+    final Random random = new Random(5);
+
+    for(int i = 0; i < TRIANGLES / 10; i++) {
+      final int[] vertices = new int[6];
+      for(int n = 0; n < vertices.length; n++) {
+        vertices[n] = random.nextInt(6000) - 3000;
+      }
+
+      this.compareTriangle(random, vertices, true, random.nextBoolean());
+    }
+  }
+
+  private void compare(final boolean shaded, final boolean textured, final long seed) {
+    final Random random = new Random(seed);
+
+    for(int i = 0; i < TRIANGLES; i++) {
+      final int[] vertices = new int[6];
+      for(int n = 0; n < vertices.length; n += 2) {
+        vertices[n] = random.nextInt(WIDTH + 80) - 40;
+        vertices[n + 1] = random.nextInt(HEIGHT + 80) - 40;
+      }
+
+      this.compareTriangle(random, vertices, shaded, textured);
+    }
+  }
+
+  private void compareTriangle(final Random random, final int[] v, final boolean shaded, final boolean textured) {
+    final int[] background = new int[WIDTH * HEIGHT];
+    for(int i = 0; i < background.length; i++) {
+      background[i] = random.nextInt();
+    }
+
+    final int[] t = new int[6];
+    for(int i = 0; i < t.length; i++) {
+      t[i] = random.nextInt(256);
+    }
+
+    final int c0 = random.nextInt();
+    final int c1 = random.nextInt();
+    final int c2 = random.nextInt();
+    final Bpp bpp = Bpp.values()[random.nextInt(3)];
+    final boolean translucent = random.nextBoolean();
+    final boolean raw = random.nextBoolean();
+    final Translucency translucency = Translucency.values()[random.nextInt(Translucency.values().length)];
+    final int clutX = random.nextInt(this.gpu.vramWidth - 256);
+    final int clutY = random.nextInt(this.gpu.vramHeight);
+    final int textureBaseX = random.nextInt(16) * 64;
+    final int textureBaseY = random.nextInt(2) * 256;
+    this.gpu.status.setMaskBit = random.nextBoolean();
+    this.gpu.status.drawPixels = random.nextBoolean() ? Gpu.DRAW_PIXELS.ALWAYS : Gpu.DRAW_PIXELS.NOT_TO_MASKED_AREAS;
+
+    final int[][] results = new int[2][];
+    for(int pass = 0; pass < results.length; pass++) {
+      this.gpu.spanKernel = pass == 0 ? null : this.kernel;
+
+      final int[] drawBuffer = this.gpu.getDrawBuffer().getData();
+      System.arraycopy(background, 0, drawBuffer, 0, background.length);
+      this.gpu.rasterizeTriangle(v[0], v[1], v[2], v[3], v[4], v[5], t[0], t[1], t[2], t[3], t[4], t[5], c0, c1, c2, clutX, clutY, textureBaseX, textureBaseY, bpp, textured, shaded, translucent, raw, translucency, null, null, Gpu.NO_CLIP);
+      results[pass] = drawBuffer.clone();
+    }
+
+    Assertions.assertArrayEquals(results[0], results[1], () -> "Triangle (%d, %d) (%d, %d) (%d, %d) %s %s".formatted(v[0], v[1], v[2], v[3], v[4], v[5], bpp, translucent ? translucency : "opaque"));
+  }
+}
@@ -0,0 +1,190 @@
+package legend.core.gpu;
+
+import legend.game.types.Translucency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/** Renders the same ordering table serially and split into tiles and checks that every pixel matches */
+public class TiledRasterizerTest {
+  private static final int WIDTH = 320;
+  private static final int HEIGHT = 240;
+  private static final int ORDERING_TABLE_SIZE = 64;
+  private static final int COMMANDS = 3000;
+
+  private final boolean tiledRasterization = Gpu.tiledRasterization;
+
+  private Gpu gpu;
+  private int[] vram;
+  private int[] background;
+
+  @BeforeEach
+  void setUp() {
+    this.gpu = new Gpu();
+    this.gpu.createRenderBuffers(WIDTH, HEIGHT);
+    this.gpu.drawingArea(0, 0, WIDTH, HEIGHT);
+    this.gpu.updateOrderingTableSize(ORDERING_TABLE_SIZE);
+
+    final Random random = new Random(0x5678);
+    this.vram = new int[this.gpu.vramWidth * this.gpu.vramHeight];
+    for(int i = 0; i < this.vram.length; i++) {
+      this.vram[i] = random.nextInt(0x1_0000);
+    }
+
+    this.background = new int[WIDTH * HEIGHT];
+    for(int i = 0; i < this.background.length; i++) {
+      this.background[i] = random.nextInt();
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    Gpu.tiledRasterization = this.tiledRasterization;
+  }
+
+  @Test
+  void noOffset() {
+    this.compare(0, 0, 1);
+  }
+
+  @Test
+  void offset() {
+    this.compare(37, -21, 2);
+  }
+
+  @Test
+  void moreSeeds() {
+    for(long seed = 3; seed < 8; seed++) {
+      this.compare(5, 9, seed);
+    }
+  }
+
+  private void compare(final int offsetX, final int offsetY, final long seed) {
+    final int[][] results = new int[2][];
+    for(int pass = 0; pass < results.length; pass++) {
+      Gpu.tiledRasterization = pass == 1;
+
+      // Barriers change the mask state and VRAM, so both passes have to start from the same state
+      this.gpu.uploadData15(new Rect4i(0, 0, this.gpu.vramWidth, this.gpu.vramHeight), this.vram);
+      this.gpu.status.setMaskBit = false;
+      this.gpu.status.drawPixels = Gpu.DRAW_PIXELS.ALWAYS;
+      this.gpu.drawingOffset(offsetX, offsetY);
+
+      final int[] drawBuffer = this.gpu.getDrawBuffer().getData();
+      System.arraycopy(this.background, 0, drawBuffer, 0, this.background.length);
+
+      // Polys are offset in place when they're rendered, so each pass needs its own commands
+      final Random random = new Random(seed);
+      for(int i = 0; i < COMMANDS; i++) {
+        this.gpu.queueCommand(random.nextInt(ORDERING_TABLE_SIZE), this.createCommand(random));
+      }
+
+      this.gpu.renderOrderingTable();
+      results[pass] = drawBuffer.clone();
+    }
+
+    Assertions.assertArrayEquals(results[0], results[1], () -> "Seed %d, offset (%d, %d)".formatted(seed, offsetX, offsetY));
+  }
+
+  private GpuCommand createCommand(final Random random) {
+    final int type = random.nextInt(100);
+
+    if(type < 40) {
+      return this.createPoly(random, random.nextBoolean() ? 3 : 4, false);
+    }
+
+    if(type < 70) {
+      return this.createQuad(random);
+    }
+
+    if(type < 90) {
+      return this.createLine(random);
+    }
+
+    // Barriers
+    return switch(type) {
+      case 90, 91, 92 -> this.createPoly(random, 4, true);
+      case 93, 94, 95 -> new GpuCommandSetMaskBit(random.nextBoolean(), random.nextBoolean() ? Gpu.DRAW_PIXELS.ALWAYS : Gpu.DRAW_PIXELS.NOT_TO_MASKED_AREAS);
+      case 96, 97 -> new GpuCommandCopyVramToVram(random.nextInt(WIDTH - 32), random.nextInt(HEIGHT - 32), random.nextInt(WIDTH - 32), random.nextInt(HEIGHT - 32), 32, 32);
+      case 98 -> new GpuCommandFillVram(random.nextInt(0x100_0000));
+      default -> new GpuCommandSetMaskBit(false, Gpu.DRAW_PIXELS.ALWAYS);
+    };
+  }
+
+  /** @param readBack textured from the draw buffer, which can't be split into tiles */
+  private GpuCommandPoly createPoly(final Random random, final int vertexCount, final boolean readBack) {
+    final GpuCommandPoly poly = new GpuCommandPoly(vertexCount);
+
+    for(int vertex = 0; vertex < vertexCount; vertex++) {
+      poly.pos(vertex, random.nextInt(WIDTH + 160) - 120, random.nextInt(HEIGHT + 160) - 120);
+
+      if(random.nextBoolean()) {
+        poly.rgb(vertex, random.nextInt(0x100_0000));
+      } else {
+        poly.monochrome(vertex, random.nextInt(0x100));
+      }
+    }
+
+    if(readBack) {
+      for(int vertex = 0; vertex < vertexCount; vertex++) {
+        poly.uv(vertex, random.nextInt(HEIGHT), random.nextInt(HEIGHT));
+      }
+
+      poly.texture(this.gpu.getDrawBuffer());
+    } else if(random.nextBoolean()) {
+      for(int vertex = 0; vertex < vertexCount; vertex++) {
+        poly.uv(vertex, random.nextInt(256), random.nextInt(256));
+      }
+
+      poly
+        .bpp(Bpp.values()[random.nextInt(3)])
+        .clut(random.nextInt(this.gpu.vramWidth / 16 - 16) * 16, random.nextInt(this.gpu.vramHeight))
+        .vramPos(random.nextInt(16) * 64, random.nextInt(2) * 256);
+    }
+
+    if(random.nextBoolean()) {
+      poly.translucent(Translucency.values()[random.nextInt(Translucency.values().length)]);
+    }
+
+    return poly;
+  }
+
+  private GpuCommandQuad createQuad(final Random random) {
+    final GpuCommandQuad quad = new GpuCommandQuad()
+      .pos(random.nextInt(WIDTH + 80) - 80, random.nextInt(HEIGHT + 80) - 80, random.nextInt(80) + 1, random.nextInt(80) + 1)
+      .rgb(random.nextInt(0x100_0000));
+
+    if(random.nextBoolean()) {
+      quad
+        .uv(random.nextInt(128), random.nextInt(128))
+        .bpp(Bpp.values()[random.nextInt(3)])
+        .clut(random.nextInt(this.gpu.vramWidth / 16 - 16) * 16, random.nextInt(this.gpu.vramHeight))
+        .vramPos(random.nextInt(16) * 64, random.nextInt(2) * 256);
+    }
+
+    if(random.nextBoolean()) {
+      quad.translucent(Translucency.values()[random.nextInt(Translucency.values().length)]);
+    }
+
+    return quad;
+  }
+
+  private GpuCommandLine createLine(final Random random) {
+    final GpuCommandLine line = new GpuCommandLine();
+
+    for(int vertex = 0; vertex < 2; vertex++) {
+      line
+        .pos(vertex, random.nextInt(WIDTH + 80) - 40, random.nextInt(HEIGHT + 80) - 40)
+        .rgb(vertex, random.nextInt(0x100_0000));
+    }
+
+    if(random.nextBoolean()) {
+      line.translucent(Translucency.values()[random.nextInt(Translucency.values().length)]);
+    }
+
+    return line;
+  }
+}
@@ -0,0 +1,59 @@
+package legend.game.unpacker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+/** Checks {@link Unpacker#decompress} against the input and the old {@code LinkedList} decompressor */
+public class BpeDecompressTest {
+  /** A single byte, partial last blocks, and last blocks that end exactly on the 0x800 block size */
+  private static final int[] SIZES = {1, 0x7ff, 0x800, 0x801, 0x1000, 0x1234, 0x10000};
+
+  @Test
+  void decompressMatchesInput() {
+    for(final int size : SIZES) {
+      final byte[] data = BpeFixtures.generate(size);
+      final FileData compressed = new FileData(BpeFixtures.compress(data));
+
+      Assertions.assertArrayEquals(data, BpeFixtures.legacy(compressed), "Legacy, size 0x" + Integer.toHexString(size));
+      Assertions.assertArrayEquals(data, Unpacker.decompress(compressed), "Size 0x" + Integer.toHexString(size));
+    }
+  }
+
+  @Test
+  void decompressIntoBufferMatchesInput() {
+    for(final int size : SIZES) {
+      final byte[] data = BpeFixtures.generate(size);
+      final FileData compressed = new FileData(BpeFixtures.compress(data));
+
+      // Larger than needed, nothing past the decompressed size should be touched
+      final byte[] dest = new byte[size + 0x10];
+      dest[size] = 0x55;
+
+      // Twice, the per-thread scratch must not carry anything over from the previous call
+      for(int pass = 0; pass < 2; pass++) {
+        Assertions.assertEquals(size, Unpacker.decompress(compressed, dest), "Size 0x" + Integer.toHexString(size));
+        Assertions.assertArrayEquals(data, Arrays.copyOf(dest, size), "Size 0x" + Integer.toHexString(size));
+        Assertions.assertEquals(0x55, dest[size], "Size 0x" + Integer.toHexString(size));
+      }
+    }
+  }
+
+  @Test
+  void decompressFromSlice() {
+    final byte[] data = BpeFixtures.generate(0x1000);
+    final byte[] compressed = BpeFixtures.compress(data);
+
+    // Archives inside MRGs are slices of a larger file, the decompressor must honour the offset
+    final byte[] padded = new byte[compressed.length + 0x20];
+    System.arraycopy(compressed, 0, padded, 0x10, compressed.length);
+    final FileData slice = new FileData(padded).slice(0x10, compressed.length);
+
+    Assertions.assertArrayEquals(data, Unpacker.decompress(slice));
+
+    final byte[] dest = new byte[data.length];
+    Assertions.assertEquals(data.length, Unpacker.decompress(slice, dest));
+    Assertions.assertArrayEquals(data, dest);
+  }
+}
@@ -0,0 +1,195 @@
+package legend.game.unpacker;
+
+import legend.core.MathHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.Random;
+
+/** Test fixtures for BPE decompression, shared with {@code BpeDecompressBenchmark} */
+final class BpeFixtures {
+  private BpeFixtures() { }
+
+  /** Semi-compressible data - runs of a small alphabet, like TMD and script data tends to be */
+  static byte[] generate(final int size) {
+    final Random random = new Random(0x1a455042);
+    final byte[] data = new byte[size];
+    for(int i = 0; i < data.length; ) {
+      final int run = 1 + random.nextInt(16);
+      final byte value = (byte)(random.nextInt(48) * random.nextInt(3));
+
+      for(int j = 0; j < run && i < data.length; j++, i++) {
+        data[i] = (byte)(value + (j & 0x3));
+      }
+    }
+
+    return data;
+  }
+
+  /** Block-wise byte pair encoder producing the format read by {@link Unpacker#decompress} */
+  static byte[] compress(final byte[] data) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] header = new byte[8];
+    MathHelper.set(header, 0, 4, data.length);
+    MathHelper.set(header, 4, 4, 0x1a455042);
+    out.writeBytes(header);
+
+    for(int blockStart = 0; blockStart < data.length; blockStart += 0x800) {
+      int size = Math.min(0x800, data.length - blockStart);
+      final byte[] block = Arrays.copyOfRange(data, blockStart, blockStart + size);
+      final int[] left = new int[0x100];
+      final int[] right = new int[0x100];
+      Arrays.fill(left, -1);
+
+      // Bytes that have ever been in the block can't be pair codes, earlier pairs may still reference them as literals
+      final boolean[] used = new boolean[0x100];
+
+      while(true) {
+        final int[] pairCounts = new int[0x10000];
+        int bestPair = -1;
+
+        for(int i = 0; i < size; i++) {
+          used[block[i] & 0xff] = true;
+
+          if(i + 1 < size) {
+            final int pair = (block[i] & 0xff) << 8 | block[i + 1] & 0xff;
+            if(++pairCounts[pair] > (bestPair == -1 ? 3 : pairCounts[bestPair])) {
+              bestPair = pair;
+            }
+          }
+        }
+
+        int code = -1;
+        for(int i = 0; i < 0x100; i++) {
+          if(!used[i]) {
+            code = i;
+            break;
+          }
+        }
+
+        if(bestPair == -1 || code == -1) {
+          break;
+        }
+
+        left[code] = bestPair >>> 8;
+        right[code] = bestPair & 0xff;
+        used[code] = true;
+
+        int newSize = 0;
+        for(int i = 0; i < size; i++) {
+          if(i + 1 < size && ((block[i] & 0xff) << 8 | block[i + 1] & 0xff) == bestPair) {
+            block[newSize++] = (byte)code;
+            i++;
+          } else {
+            block[newSize++] = block[i];
+          }
+        }
+
+        size = newSize;
+      }
+
+      final byte[] blockHeader = new byte[4];
+      MathHelper.set(blockHeader, 0, 4, Math.min(0x800, data.length - blockStart));
+      out.writeBytes(blockHeader);
+
+      // Two runs of 128 dictionary entries
+      for(int run = 0; run < 2; run++) {
+        out.write(0x7f);
+
+        for(int key = run * 0x80; key < run * 0x80 + 0x80; key++) {
+          if(left[key] == -1) {
+            out.write(key);
+          } else {
+            out.write(left[key]);
+            out.write(right[key]);
+          }
+        }
+      }
+
+      out.write(block, 0, size);
+
+      while(out.size() % 4 != 0) {
+        out.write(0);
+      }
+    }
+
+    out.writeBytes(new byte[4]);
+    return out.toByteArray();
+  }
+
+  /** The original {@code LinkedList} decompressor that {@link Unpacker#decompress} replaced */
+  static byte[] legacy(final FileData archive) {
+    final byte[] dest = new byte[archive.readInt(0)];
+
+    final Deque<Byte> unresolved_byte_list = new LinkedList<>();
+    final byte[] dict_leftch = new byte[0x100];
+    final byte[] dict_rightch = new byte[0x100];
+
+    int archiveOffset = 0x8;
+    int destinationOffset = 0;
+
+    int bytes_remaining_in_block = archive.readInt(archiveOffset);
+    archiveOffset += 4;
+
+    while(bytes_remaining_in_block != 0) {
+      Arrays.fill(dict_rightch, (byte)0);
+      for(int i = 0; i < 0x100; i++) {
+        dict_leftch[i] = (byte)i;
+      }
+
+      int key = 0;
+      while(key < 0x100) {
+        int byte_pairs_to_read = archive.readUByte(archiveOffset);
+        archiveOffset++;
+
+        if(byte_pairs_to_read >= 0x80) {
+          key = key - 0x7f + byte_pairs_to_read;
+          byte_pairs_to_read = 0;
+        }
+
+        if(key < 0x100) {
+          for(int i = 0; i < byte_pairs_to_read + 1; i++) {
+            dict_leftch[key] = archive.readByte(archiveOffset);
+            archiveOffset++;
+
+            if((dict_leftch[key] & 0xff) != key) {
+              dict_rightch[key] = archive.readByte(archiveOffset);
+              archiveOffset++;
+            }
+
+            key++;
+          }
+        }
+      }
+
+      while(bytes_remaining_in_block > 0) {
+        unresolved_byte_list.clear();
+        unresolved_byte_list.push(archive.readByte(archiveOffset));
+        archiveOffset++;
+
+        while(!unresolved_byte_list.isEmpty()) {
+          final byte compressed_byte = unresolved_byte_list.pop();
+          if(compressed_byte == dict_leftch[compressed_byte & 0xff]) {
+            dest[destinationOffset] = compressed_byte;
+            destinationOffset++;
+            bytes_remaining_in_block--;
+          } else {
+            unresolved_byte_list.push(dict_rightch[compressed_byte & 0xff]);
+            unresolved_byte_list.push(dict_leftch[compressed_byte & 0xff]);
+          }
+        }
+      }
+
+      if(archiveOffset % 4 != 0) {
+        archiveOffset = archiveOffset + 4 - archiveOffset % 4;
+      }
+
+      bytes_remaining_in_block = archive.readInt(archiveOffset);
+      archiveOffset += 4;
+    }
+
+    return dest;
+  }
+}
@@ -0,0 +1,164 @@
+package legend.game.unpacker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/** Runs a small unpack through the manifest, saves and reloads it, then checks which outputs a second unpack would rewrite */
+public class UnpackManifestTest {
+  private static final FileData COMPRESSED = new FileData(new byte[] {1, 2, 3});
+  private static final FileData ARCHIVE = new FileData(new byte[] {4, 5, 6});
+  private static final FileData PLAIN = new FileData(new byte[] {7, 8, 9});
+
+  @TempDir
+  Path dir;
+
+  private static UnpackManifest createManifest(final int decompressVersion, final int mrgVersion) {
+    final UnpackManifest manifest = new UnpackManifest();
+    manifest.registerTransformer("decompress", decompressVersion);
+    manifest.registerTransformer("mrg", mrgVersion);
+    manifest.registerDisk(0, 1000, 1);
+    return manifest;
+  }
+
+  /**
+   * Both transformers are checked against every source. A.BIN is decompressed, B.BIN is split into two files, and C.BIN
+   * doesn't match either so it's written as-is.
+   */
+  private static void unpack(final UnpackManifest manifest) {
+    final PathNode root = new PathNode("", "", null, null);
+    final Transformations transformations = new Transformations(root, node -> { }, manifest);
+
+    final PathNode a = addSource(manifest, root, "A.BIN", COMPRESSED);
+    final PathNode b = addSource(manifest, root, "B.BIN", ARCHIVE);
+    addSource(manifest, root, "C.BIN", PLAIN);
+
+    root.children.remove(a.pathSegment);
+    transformations.forTransformer("decompress", a).replaceNode(a, new FileData(new byte[] {10, 11, 12, 13}));
+
+    root.children.remove(b.pathSegment);
+    final Transformations mrg = transformations.forTransformer("mrg", b);
+    mrg.addChild(b, "0", b.data.slice(0, 1));
+    mrg.addChild(b, "1", b.data.slice(1, 2));
+
+    final List<PathNode> all = new ArrayList<>();
+    root.flatten(all);
+
+    for(final PathNode node : all) {
+      manifest.recordOutput(node.source, node.fullPath);
+    }
+  }
+
+  private static PathNode addSource(final UnpackManifest manifest, final PathNode root, final String name, final FileData data) {
+    manifest.addSource(name, UnpackManifest.hash(data));
+    manifest.recordTransformer(name, "decompress");
+    manifest.recordTransformer(name, "mrg");
+    return root.addChild(new PathNode(name, name, data, root, name));
+  }
+
+  private UnpackManifest unpackAndReload() throws IOException {
+    final UnpackManifest manifest = createManifest(1, 1);
+    unpack(manifest);
+
+    final Path file = this.dir.resolve("manifest");
+    manifest.save(file);
+    return UnpackManifest.load(file);
+  }
+
+  /** The outputs that would be deleted and written again, the same way {@code Unpacker.populateInitialFileTree} decides */
+  private static Set<String> getRewrittenOutputs(final UnpackManifest manifest, final UnpackManifest previous) {
+    final Set<String> outputs = new TreeSet<>();
+
+    for(final UnpackManifest.Source source : previous.sources()) {
+      if(!manifest.isUpToDate(source)) {
+        outputs.addAll(source.outputs);
+      }
+    }
+
+    return outputs;
+  }
+
+  @Test
+  void unchangedTransformersRewriteNothing() throws IOException {
+    final UnpackManifest previous = this.unpackAndReload();
+    final UnpackManifest manifest = createManifest(1, 1);
+
+    Assertions.assertTrue(manifest.hasSameTransformers(previous));
+    Assertions.assertTrue(manifest.hasSameDisks(previous));
+    Assertions.assertEquals(Set.of(), getRewrittenOutputs(manifest, previous));
+  }
+
+  @Test
+  void versionBumpRewritesEverySourceCheckedAgainstThatTransformer() throws IOException {
+    final UnpackManifest previous = this.unpackAndReload();
+
+    // Every source was checked against mrg, so a new version of it may now match any of them
+    final UnpackManifest mrgBumped = createManifest(1, 2);
+    Assertions.assertFalse(mrgBumped.hasDifferentTransformerIds(previous));
+    Assertions.assertEquals(Set.of("A.BIN", "B.BIN/0", "B.BIN/1", "C.BIN"), getRewrittenOutputs(mrgBumped, previous));
+  }
+
+  @Test
+  void versionBumpOnlyRewritesThatTransformersOutputs() throws IOException {
+    final UnpackManifest previous = createManifest(1, 1);
+
+    // Only A.BIN was checked against decompress
+    final PathNode root = new PathNode("", "", null, null);
+    final Transformations transformations = new Transformations(root, node -> { }, previous);
+    final PathNode a = root.addChild(new PathNode("A.BIN", "A.BIN", COMPRESSED, root, "A.BIN"));
+    root.addChild(new PathNode("C.BIN", "C.BIN", PLAIN, root, "C.BIN"));
+    previous.addSource("A.BIN", UnpackManifest.hash(COMPRESSED));
+    previous.addSource("C.BIN", UnpackManifest.hash(PLAIN));
+    previous.recordTransformer("A.BIN", "decompress");
+    previous.recordTransformer("C.BIN", "mrg");
+
+    root.children.remove(a.pathSegment);
+    transformations.forTransformer("decompress", a).replaceNode(a, new FileData(new byte[] {10, 11, 12, 13}));
+
+    final List<PathNode> all = new ArrayList<>();
+    root.flatten(all);
+    for(final PathNode node : all) {
+      previous.recordOutput(node.source, node.fullPath);
+    }
+
+    final Path file = this.dir.resolve("manifest");
+    previous.save(file);
+    final UnpackManifest loaded = UnpackManifest.load(file);
+
+    Assertions.assertEquals("decompress", loaded.getSource("A.BIN").getProducer("A.BIN"));
+    Assertions.assertNull(loaded.getSource("C.BIN").getProducer("C.BIN"));
+
+    Assertions.assertEquals(Set.of("A.BIN"), getRewrittenOutputs(createManifest(2, 1), loaded));
+    Assertions.assertEquals(Set.of("C.BIN"), getRewrittenOutputs(createManifest(1, 2), loaded));
+  }
+
+  @Test
+  void outputsRememberTheirProducer() throws IOException {
+    final UnpackManifest previous = this.unpackAndReload();
+
+    Assertions.assertEquals("decompress", previous.getSource("A.BIN").getProducer("A.BIN"));
+    Assertions.assertEquals("mrg", previous.getSource("B.BIN").getProducer("B.BIN/0"));
+    Assertions.assertEquals("mrg", previous.getSource("B.BIN").getProducer("B.BIN/1"));
+    Assertions.assertNull(previous.getSource("C.BIN").getProducer("C.BIN"));
+    Assertions.assertEquals(Set.of("B.BIN/0", "B.BIN/1"), previous.getSource("B.BIN").outputs);
+  }
+
+  @Test
+  void changedInputsAreDetected() throws IOException {
+    final UnpackManifest previous = this.unpackAndReload();
+
+    final UnpackManifest manifest = createManifest(1, 1);
+    manifest.registerDisk(0, 1000, 2);
+    Assertions.assertFalse(manifest.hasSameDisks(previous));
+
+    Assertions.assertEquals(UnpackManifest.hash(PLAIN), previous.getSource("C.BIN").hash);
+    Assertions.assertNotEquals(UnpackManifest.hash(new FileData(new byte[] {7, 8, 0})), previous.getSource("C.BIN").hash);
+  }
+}